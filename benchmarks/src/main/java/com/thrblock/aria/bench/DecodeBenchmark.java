@@ -0,0 +1,95 @@
+package com.thrblock.aria.bench;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.decoder.SPIDecoder;
+
+/**
+ * SPIDecoder throughput,the decodedBytes counter is the bytes decoded per
+ * second
+ * <p>
+ * SPIDecoder吞吐量，decodedBytes计数即每秒解码字节数
+ * <p>
+ * Add {@code -p format=WAV,MP3,OGG} to include OGG when a vorbis encoder is
+ * on the path.
+ * <p>
+ * PATH中存在vorbis编码器时，可加入上述参数以包含OGG
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = NullMixerProvider.JVM_ARG)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+    private static final int READ_LENGTH = 16 * 1024;
+
+    @Param({ "WAV", "MP3" })
+    private Fixtures.Format format;
+    @Param({ "1", "10", "60" })
+    private int seconds;
+
+    private final IDecoder decoder = new SPIDecoder();
+    private final byte[] buffer = new byte[READ_LENGTH];
+    private File file;
+
+    /**
+     * The bytes decoded,reported per second
+     * <p>
+     * 解码字节数，按每秒报告
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Decoded {
+        public long decodedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            decodedBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        file = Fixtures.get(format, seconds);
+    }
+
+    @Benchmark
+    public long decode(Decoded decoded) throws IOException, UnsupportedAudioFileException {
+        long total = 0;
+        try (AudioInputStream src = AudioSystem.getAudioInputStream(new BufferedInputStream(new FileInputStream(
+                file)))) {
+            AudioInputStream pcm = decoder.getDecodedAudioInputStream(src);
+            for (int realRead = pcm.read(buffer); realRead != -1; realRead = pcm.read(buffer)) {
+                total += realRead;
+            }
+        }
+        decoded.decodedBytes += total;
+        return total;
+    }
+}
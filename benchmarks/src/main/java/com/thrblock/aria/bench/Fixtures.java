@@ -0,0 +1,156 @@
+package com.thrblock.aria.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Generated audio fixtures,a stereo sine sweep of the given length in each
+ * format
+ * <p>
+ * 生成的测试音频，各格式的指定时长立体声正弦扫频
+ * <p>
+ * The files are kept in {@code aria.bench.fixtures},default
+ * {@code java.io.tmpdir/aria-bench},and made once.WAV is written by java
+ * sound,MP3 by the LAME port jump3r,OGG by {@code oggenc} or {@code ffmpeg}
+ * on the path since there is no pure java vorbis encoder.
+ * <p>
+ * 文件保存在aria.bench.fixtures目录中(默认为临时目录下的aria-bench)且只生成一次；WAV由java sound写入，
+ * MP3由LAME移植jump3r编码，OGG由PATH中的oggenc或ffmpeg编码，因为没有纯java的vorbis编码器
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class Fixtures {
+    /**
+     * The fixture formats
+     * <p>
+     * 测试音频格式
+     */
+    public enum Format {
+        WAV, MP3, OGG
+    }
+
+    private static final float SAMPLE_RATE = 44100;
+    private static final AudioFormat PCM = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+
+    private Fixtures() {
+    }
+
+    /**
+     * get a fixture,made on the first call
+     * <p>
+     * 获得测试音频，首次调用时生成
+     *
+     * @param format
+     *            格式
+     * @param seconds
+     *            时长秒数
+     * @return 音频文件
+     * @throws IOException
+     *             when the fixture can not be made 无法生成时抛出
+     */
+    public static synchronized File get(Format format, int seconds) throws IOException {
+        File dir = new File(System.getProperty("aria.bench.fixtures",
+                new File(System.getProperty("java.io.tmpdir"), "aria-bench").getPath()));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can not create fixture dir:" + dir);
+        }
+        File target = new File(dir, "sweep-" + seconds + "s." + format.name().toLowerCase());
+        if (target.isFile()) {
+            return target;
+        }
+        File temp = File.createTempFile("making-", "." + format.name().toLowerCase(), dir);
+        try {
+            switch (format) {
+            case WAV:
+                writeWav(temp, seconds);
+                break;
+            case MP3:
+                encodeMp3(get(Format.WAV, seconds), temp);
+                break;
+            case OGG:
+                encodeOgg(get(Format.WAV, seconds), temp);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown format:" + format);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        return target;
+    }
+
+    /**
+     * the pcm of a sweep,also used by the benchmarks needing raw data
+     * <p>
+     * 扫频的PCM数据，亦供需要原始数据的基准测试使用
+     *
+     * @param seconds
+     *            时长秒数
+     * @return 44.1kHz 16位立体声小端PCM
+     */
+    public static byte[] sweep(int seconds) {
+        int frames = (int) (SAMPLE_RATE * seconds);
+        byte[] pcm = new byte[frames * 4];
+        double phase = 0;
+        for (int i = 0; i < frames; i++) {
+            double t = i / SAMPLE_RATE;
+            phase += 2 * Math.PI * (220 + 880 * t / seconds) / SAMPLE_RATE;
+            int left = (int) (12000 * Math.sin(phase));
+            int right = left * 3 / 4;
+            pcm[i * 4] = (byte) left;
+            pcm[i * 4 + 1] = (byte) (left >> 8);
+            pcm[i * 4 + 2] = (byte) right;
+            pcm[i * 4 + 3] = (byte) (right >> 8);
+        }
+        return pcm;
+    }
+
+    private static void writeWav(File target, int seconds) throws IOException {
+        byte[] pcm = sweep(seconds);
+        try (AudioInputStream ais = new AudioInputStream(new ByteArrayInputStream(pcm), PCM, pcm.length / 4)) {
+            AudioSystem.write(ais, AudioFileFormat.Type.WAVE, target);
+        }
+    }
+
+    private static void encodeMp3(File wav, File target) throws IOException {
+        int code = new de.sciss.jump3r.Main().run(new String[] { "--silent", "-b", "128", wav.getPath(),
+                target.getPath() });
+        if (code != 0 || target.length() == 0) {
+            throw new IOException("mp3 encode failed:" + code);
+        }
+    }
+
+    private static void encodeOgg(File wav, File target) throws IOException {
+        List<List<String>> commands = Arrays.asList(
+                Arrays.asList("oggenc", "-Q", "-q", "4", "-o", target.getPath(), wav.getPath()),
+                Arrays.asList("ffmpeg", "-y", "-loglevel", "error", "-i", wav.getPath(), "-c:a", "libvorbis",
+                        "-q:a", "4", "-f", "ogg", target.getPath()));
+        for (List<String> command : commands) {
+            try {
+                Process process = new ProcessBuilder(command).inheritIO().start();
+                if (process.waitFor() == 0 && target.length() > 0) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 编码器不存在，尝试下一个
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        throw new IOException("no vorbis encoder,install oggenc or ffmpeg,or put " + wav.getName().replace(".wav",
+                ".ogg") + " into " + wav.getParent());
+    }
+}
@@ -0,0 +1,70 @@
+package com.thrblock.aria.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thrblock.aria.decoder.SPIDecoder;
+import com.thrblock.aria.sound.AriaSoundException;
+import com.thrblock.aria.sound.Sound;
+import com.thrblock.aria.sound.SoundFactory;
+import com.thrblock.aria.sound.SoundStorage;
+
+/**
+ * SoundFactory.buildSound load time of each storage,the sound is released
+ * in the op so the off-heap data does not pile up
+ * <p>
+ * 各存储方式下SoundFactory.buildSound的载入耗时，音效在测试内释放以免堆外数据堆积
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = NullMixerProvider.JVM_ARG)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+    @Param({ "WAV", "MP3" })
+    private Fixtures.Format format;
+    @Param({ "1", "10" })
+    private int seconds;
+    @Param({ "HEAP", "DIRECT", "ADPCM" })
+    private SoundStorage storage;
+
+    private SoundFactory factory;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Fixtures.get(format, seconds);
+        factory = new SoundFactory(new SPIDecoder());
+        factory.init();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        factory.destroy();
+    }
+
+    @Benchmark
+    public int buildSound() throws AriaSoundException {
+        Sound sound = factory.buildSound(file, storage);
+        int length = sound.getLength();
+        sound.release();
+        return length;
+    }
+}
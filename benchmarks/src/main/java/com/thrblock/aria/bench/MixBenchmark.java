@@ -0,0 +1,97 @@
+package com.thrblock.aria.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thrblock.aria.decoder.SPIDecoder;
+import com.thrblock.aria.dsp.BiquadFilter;
+import com.thrblock.aria.sound.AriaSoundException;
+import com.thrblock.aria.sound.Sound;
+import com.thrblock.aria.sound.SoundFactory;
+
+/**
+ * The software mixer cost,the time for the mixer thread to put one more
+ * block on the null line while the given voices loop.Divide by the voices for
+ * the cost per voice
+ * <p>
+ * 软件混音开销：指定数量的发声循环播放时，混音线程向空LINE多写入一个块所需的时间；除以发声数即每个发声的开销
+ * <p>
+ * The benchmark thread waits for a batch of blocks and polls with a short
+ * park,so the mixer thread keeps the cpu even on a single core box.
+ * <p>
+ * 基准测试线程等待一批块并以短暂挂起轮询，即使在单核机器上混音线程也能持续占用CPU
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = NullMixerProvider.JVM_ARG)
+@State(Scope.Benchmark)
+public class MixBenchmark {
+    /**
+     * the mix block of the mixer in bytes
+     * <p>
+     * 混音器的混音块字节数
+     */
+    private static final int MIX_BLOCK_LENGTH = 2 * 1024;
+    private static final int BATCH_BLOCKS = 256;
+    private static final long POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Param({ "1", "4", "16", "64" })
+    private int voices;
+    @Param({ "false", "true" })
+    private boolean filtered;
+
+    private SoundFactory factory;
+    private Sound sound;
+    private volatile boolean looping = true;
+
+    @Setup
+    public void setup() throws IOException, AriaSoundException {
+        factory = new SoundFactory(new SPIDecoder());
+        factory.init();
+        sound = factory.buildSound(Fixtures.get(Fixtures.Format.WAV, 1));
+        if (filtered) {
+            sound.setProcessorFactory(() -> new BiquadFilter(BiquadFilter.Type.LOW_PASS, 2000));
+        }
+        sound.setGain(1f / voices);
+        for (int i = 0; i < voices; i++) {
+            sound.loopUntil(() -> looping);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        looping = false;
+        sound.release();
+        factory.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_BLOCKS)
+    public long mixBlock() {
+        long target = NullSourceDataLine.written() + (long) MIX_BLOCK_LENGTH * BATCH_BLOCKS;
+        long written;
+        while ((written = NullSourceDataLine.written()) < target) {
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,142 @@
+package com.thrblock.aria.bench;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * A mixer of null source lines,any pcm format and any number of lines
+ * <p>
+ * 空LINE的混音器，支持任意PCM格式与任意数量的LINE
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class NullMixer implements Mixer {
+    static final String NAME = "Aria Null Mixer";
+    private static final Mixer.Info INFO = new Mixer.Info(NAME, "thrblock", "discards all the data", "1.0") {
+    };
+    private static final DataLine.Info LINE_INFO = new DataLine.Info(SourceDataLine.class, new AudioFormat[] {
+            new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED,
+                    AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED, false),
+            new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED,
+                    AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED, true),
+            new AudioFormat(AudioFormat.Encoding.PCM_UNSIGNED, AudioSystem.NOT_SPECIFIED,
+                    AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED,
+                    AudioSystem.NOT_SPECIFIED, false) },
+            AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED);
+
+    @Override
+    public Mixer.Info getMixerInfo() {
+        return INFO;
+    }
+
+    @Override
+    public Line.Info[] getSourceLineInfo() {
+        return new Line.Info[] { LINE_INFO };
+    }
+
+    @Override
+    public Line.Info[] getTargetLineInfo() {
+        return new Line.Info[0];
+    }
+
+    @Override
+    public Line.Info[] getSourceLineInfo(Line.Info info) {
+        return isLineSupported(info) ? getSourceLineInfo() : new Line.Info[0];
+    }
+
+    @Override
+    public Line.Info[] getTargetLineInfo(Line.Info info) {
+        return new Line.Info[0];
+    }
+
+    @Override
+    public boolean isLineSupported(Line.Info info) {
+        return info.getLineClass().isAssignableFrom(SourceDataLine.class);
+    }
+
+    @Override
+    public Line getLine(Line.Info info) throws LineUnavailableException {
+        if (!isLineSupported(info)) {
+            throw new IllegalArgumentException("line not supported:" + info);
+        }
+        return new NullSourceDataLine(info instanceof DataLine.Info ? (DataLine.Info) info : LINE_INFO);
+    }
+
+    @Override
+    public int getMaxLines(Line.Info info) {
+        return AudioSystem.NOT_SPECIFIED;
+    }
+
+    @Override
+    public Line[] getSourceLines() {
+        return new Line[0];
+    }
+
+    @Override
+    public Line[] getTargetLines() {
+        return new Line[0];
+    }
+
+    @Override
+    public void synchronize(Line[] lines, boolean maintainSync) {
+        throw new IllegalArgumentException("synchronization not supported");
+    }
+
+    @Override
+    public void unsynchronize(Line[] lines) {
+        throw new IllegalArgumentException("synchronization not supported");
+    }
+
+    @Override
+    public boolean isSynchronizationSupported(Line[] lines, boolean maintainSync) {
+        return false;
+    }
+
+    @Override
+    public Line.Info getLineInfo() {
+        return new Line.Info(Mixer.class);
+    }
+
+    @Override
+    public void open() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public Control[] getControls() {
+        return new Control[0];
+    }
+
+    @Override
+    public boolean isControlSupported(Control.Type control) {
+        return false;
+    }
+
+    @Override
+    public Control getControl(Control.Type control) {
+        throw new IllegalArgumentException("control not supported:" + control);
+    }
+
+    @Override
+    public void addLineListener(LineListener listener) {
+    }
+
+    @Override
+    public void removeLineListener(LineListener listener) {
+    }
+}
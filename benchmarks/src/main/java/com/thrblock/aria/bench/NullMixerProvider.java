@@ -0,0 +1,42 @@
+package com.thrblock.aria.bench;
+
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.spi.MixerProvider;
+
+/**
+ * Provide the null mixer,so the benchmarks run on a box without a sound card
+ * <p>
+ * 提供空混音器，使基准测试可在无声卡的机器上运行
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class NullMixerProvider extends MixerProvider {
+    /**
+     * the value of {@code javax.sound.sampled.SourceDataLine} making the null
+     * mixer the default
+     * <p>
+     * 使空混音器成为默认混音器的系统属性值
+     */
+    public static final String DEFAULT = "com.thrblock.aria.bench.NullMixerProvider#" + NullMixer.NAME;
+    /**
+     * the jvm argument making the null mixer the default,for the forks
+     * <p>
+     * 使空混音器成为默认混音器的JVM参数，用于测试进程
+     */
+    public static final String JVM_ARG = "-Djavax.sound.sampled.SourceDataLine=" + DEFAULT;
+
+    private static final NullMixer MIXER = new NullMixer();
+
+    @Override
+    public Mixer.Info[] getMixerInfo() {
+        return new Mixer.Info[] { MIXER.getMixerInfo() };
+    }
+
+    @Override
+    public Mixer getMixer(Mixer.Info info) {
+        if (info == null || MIXER.getMixerInfo().equals(info)) {
+            return MIXER;
+        }
+        throw new IllegalArgumentException("mixer not supported:" + info);
+    }
+}
@@ -0,0 +1,179 @@
+package com.thrblock.aria.bench;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * A source line discarding the data at once,never blocks so a benchmark
+ * measures the cost of producing the data and not the playback time
+ * <p>
+ * 立即丢弃数据的LINE，写入从不阻塞，基准测试因此只测量产生数据的开销而非播放时长
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class NullSourceDataLine implements SourceDataLine {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final LongAdder WRITTEN = new LongAdder();
+
+    private final DataLine.Info info;
+    private AudioFormat format;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile boolean open;
+    private volatile boolean running;
+    private long framesWritten;
+
+    NullSourceDataLine(DataLine.Info info) {
+        this.info = info;
+        AudioFormat[] formats = info.getFormats();
+        this.format = formats.length > 0 ? formats[0] : null;
+        if (info.getMaxBufferSize() > 0) {
+            this.bufferSize = info.getMaxBufferSize();
+        }
+    }
+
+    /**
+     * get the bytes written to all the null lines
+     * <p>
+     * 获得写入所有空LINE的字节数
+     *
+     * @return 写入字节数
+     */
+    public static long written() {
+        return WRITTEN.sum();
+    }
+
+    @Override
+    public void open(AudioFormat format, int bufferSize) {
+        this.format = format;
+        if (bufferSize > 0) {
+            this.bufferSize = bufferSize;
+        }
+        open = true;
+    }
+
+    @Override
+    public void open(AudioFormat format) {
+        open(format, AudioSystem.NOT_SPECIFIED);
+    }
+
+    @Override
+    public void open() {
+        open(format, AudioSystem.NOT_SPECIFIED);
+    }
+
+    @Override
+    public int write(byte[] b, int off, int len) {
+        WRITTEN.add(len);
+        framesWritten += len / Math.max(1, format.getFrameSize());
+        return len;
+    }
+
+    @Override
+    public void drain() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isActive() {
+        return running;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public int available() {
+        return bufferSize;
+    }
+
+    @Override
+    public int getFramePosition() {
+        return (int) framesWritten;
+    }
+
+    @Override
+    public long getLongFramePosition() {
+        return framesWritten;
+    }
+
+    @Override
+    public long getMicrosecondPosition() {
+        return format == null ? 0 : (long) (framesWritten * 1_000_000L / format.getFrameRate());
+    }
+
+    @Override
+    public float getLevel() {
+        return AudioSystem.NOT_SPECIFIED;
+    }
+
+    @Override
+    public Line.Info getLineInfo() {
+        return info;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        running = false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public Control[] getControls() {
+        return new Control[0];
+    }
+
+    @Override
+    public boolean isControlSupported(Control.Type control) {
+        return false;
+    }
+
+    @Override
+    public Control getControl(Control.Type control) {
+        throw new IllegalArgumentException("control not supported:" + control);
+    }
+
+    @Override
+    public void addLineListener(LineListener listener) {
+    }
+
+    @Override
+    public void removeLineListener(LineListener listener) {
+    }
+}
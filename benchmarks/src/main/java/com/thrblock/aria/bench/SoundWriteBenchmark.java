@@ -0,0 +1,69 @@
+package com.thrblock.aria.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thrblock.aria.decoder.SPIDecoder;
+import com.thrblock.aria.sound.AriaSoundException;
+import com.thrblock.aria.sound.Sound;
+import com.thrblock.aria.sound.SoundFactory;
+import com.thrblock.aria.sound.SoundStorage;
+
+/**
+ * The Sound write loop without mixing,one play from start to the drained
+ * null line
+ * <p>
+ * 非混音模式下Sound的写入循环，一次从开始播放直至空LINE排空
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = NullMixerProvider.JVM_ARG)
+@State(Scope.Benchmark)
+public class SoundWriteBenchmark {
+    @Param({ "HEAP", "DIRECT", "ADPCM" })
+    private SoundStorage storage;
+    @Param({ "1.0", "0.5" })
+    private float gain;
+
+    private SoundFactory factory;
+    private Sound sound;
+
+    @Setup
+    public void setup() throws IOException, AriaSoundException {
+        factory = new SoundFactory(new SPIDecoder());
+        factory.setMixing(false);
+        factory.init();
+        sound = factory.buildSound(Fixtures.get(Fixtures.Format.WAV, 1), storage);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        sound.release();
+        factory.destroy();
+    }
+
+    @Benchmark
+    public void playOnce() {
+        sound.play(gain);
+        while (sound.isPlaying()) {
+            Thread.yield();
+        }
+    }
+}
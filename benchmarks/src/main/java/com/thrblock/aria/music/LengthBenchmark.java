@@ -0,0 +1,89 @@
+package com.thrblock.aria.music;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thrblock.aria.bench.Fixtures;
+import com.thrblock.aria.bench.NullMixerProvider;
+import com.thrblock.aria.decoder.SPIDecoder;
+
+/**
+ * The track length of MusicPlayer,the container header probe against the
+ * full decode of lengthDetect
+ * <p>
+ * MusicPlayer的音轨长度获取：容器头探测与lengthDetect完整解码的对比
+ * <p>
+ * In the music package for the package private probe.lengthDetect is private
+ * and stops when it is no longer the current detector,so it is called by
+ * reflection with the benchmark thread set as the detector.
+ * <p>
+ * 位于music包中以访问包内可见的探测方法；lengthDetect为私有方法且在不再是当前检测线程时停止，
+ * 因此通过反射调用并将基准测试线程设为检测线程
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = NullMixerProvider.JVM_ARG)
+@State(Scope.Thread)
+public class LengthBenchmark {
+    @Param({ "WAV", "MP3" })
+    private Fixtures.Format format;
+    @Param({ "10", "60" })
+    private int seconds;
+
+    private File file;
+    private MusicPlayer player;
+    private Method lengthDetect;
+    private Field lengthDetector;
+
+    @Setup
+    public void setup() throws IOException, ReflectiveOperationException {
+        file = Fixtures.get(format, seconds);
+        player = new MusicPlayer(new SPIDecoder());
+        lengthDetect = MusicPlayer.class.getDeclaredMethod("lengthDetect", File.class);
+        lengthDetect.setAccessible(true);
+        lengthDetector = MusicPlayer.class.getDeclaredField("lengthDetector");
+        lengthDetector.setAccessible(true);
+    }
+
+    @Setup(Level.Iteration)
+    public void becomeDetector() throws IllegalAccessException {
+        lengthDetector.set(player, Thread.currentThread());
+    }
+
+    @TearDown
+    public void tearDown() {
+        player.destroy();
+    }
+
+    @Benchmark
+    public DurationProbe.Duration probe() {
+        return DurationProbe.probe(file);
+    }
+
+    @Benchmark
+    public Object lengthDetect() throws IllegalAccessException, InvocationTargetException {
+        return lengthDetect.invoke(player, file);
+    }
+}
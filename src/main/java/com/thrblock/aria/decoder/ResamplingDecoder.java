@@ -0,0 +1,117 @@
+package com.thrblock.aria.decoder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Decoder that converts every stream to one canonical format
+ * <p>
+ * 将所有音频流转换为同一目标格式的解码器
+ * <p>
+ * The decoding is done by the delegate decoder,then the sample rate and
+ * channels are converted.So all the sounds can share one mixer and one pool
+ * of lines.
+ * <p>
+ * 先由被委托的解码器解码，再转换采样率与声道数，使所有音效可共享混音器与LINE池
+ * <p>
+ * Not a spring component,declare it when needed.
+ * <p>
+ * 非spring组件，需要时自行声明
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class ResamplingDecoder implements IDecoder {
+    /**
+     * The rate conversion quality
+     * <p>
+     * 采样率转换质量
+     */
+    public enum Quality {
+        /**
+         * linear interpolation,cheap
+         * <p>
+         * 线性插值，开销低
+         */
+        LINEAR,
+        /**
+         * polyphase windowed-sinc,high quality
+         * <p>
+         * 多相加窗sinc，高质量
+         */
+        SINC
+    }
+
+    private final IDecoder delegate;
+    private final float sampleRate;
+    private final int channels;
+    private final Quality quality;
+
+    /**
+     * convert to the given rate and channels with sinc quality,decoded by SPI
+     * <p>
+     * 使用SPI解码并以sinc质量转换为指定采样率与声道数
+     *
+     * @param sampleRate
+     *            目标采样率
+     * @param channels
+     *            目标声道数
+     */
+    public ResamplingDecoder(float sampleRate, int channels) {
+        this(new SPIDecoder(), sampleRate, channels, Quality.SINC);
+    }
+
+    /**
+     * convert to the given rate and channels
+     * <p>
+     * 转换为指定采样率与声道数
+     *
+     * @param delegate
+     *            被委托的解码器
+     * @param sampleRate
+     *            目标采样率
+     * @param channels
+     *            目标声道数
+     * @param quality
+     *            转换质量
+     */
+    public ResamplingDecoder(IDecoder delegate, float sampleRate, int channels, Quality quality) {
+        this.delegate = delegate;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.quality = quality;
+    }
+
+    @Override
+    public AudioInputStream getDecodedAudioInputStream(AudioInputStream audioInputStream) {
+        AudioInputStream decoded = delegate.getDecodedAudioInputStream(audioInputStream);
+        AudioFormat srcFormat = decoded.getFormat();
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(srcFormat.getEncoding())
+                || srcFormat.getSampleSizeInBits() != 16) {
+            AudioFormat pcm16 = new AudioFormat(srcFormat.getSampleRate(), 16, srcFormat.getChannels(), true, false);
+            decoded = AudioSystem.getAudioInputStream(pcm16, decoded);
+            srcFormat = decoded.getFormat();
+        }
+        AudioFormat target = getDecodedAudioFormat(srcFormat);
+        if (srcFormat.matches(target)) {
+            return decoded;
+        }
+        long frames = decoded.getFrameLength();
+        long targetFrames = frames == AudioSystem.NOT_SPECIFIED ? AudioSystem.NOT_SPECIFIED
+                : ResamplingInputStream.outputFrames(frames, srcFormat.getSampleRate(), sampleRate);
+        return new AudioInputStream(new ResamplingInputStream(decoded, target, quality == Quality.SINC), target,
+                targetFrames);
+    }
+
+    @Override
+    public AudioFormat getDecodedAudioFormat(AudioFormat baseFormat) {
+        return new AudioFormat(
+                AudioFormat.Encoding.PCM_SIGNED,//Encoding
+                sampleRate,                     //SampleRate
+                16,                             //SampleSize
+                channels,                       //Channels
+                channels * 2,                   //FrameSize
+                sampleRate,                     //FrameRate
+                false);
+    }
+}
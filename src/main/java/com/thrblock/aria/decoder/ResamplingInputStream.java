@@ -0,0 +1,298 @@
+package com.thrblock.aria.decoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import com.thrblock.aria.dsp.SampleBuffer;
+
+/**
+ * Rate and channel conversion over a 16 bit signed pcm stream
+ * <p>
+ * 16位有符号PCM流的采样率与声道转换
+ * <p>
+ * Samples are processed in blocks,all the buffers are allocated once in the
+ * constructor.
+ * <p>
+ * 按块处理采样，所有缓冲区仅在构造时分配
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class ResamplingInputStream extends InputStream {
+    /**
+     * output frames of one block
+     * <p>
+     * 每块输出帧数
+     */
+    private static final int BLOCK_FRAMES = 1024;
+    /**
+     * zero crossings on each side of the sinc kernel
+     * <p>
+     * sinc核单侧过零点数
+     */
+    private static final int SINC_ZERO_CROSSINGS = 16;
+    /**
+     * phases of the polyphase table
+     * <p>
+     * 多相表相位数
+     */
+    private static final int PHASES = 128;
+
+    private final AudioInputStream src;
+    private final boolean srcBigEndian;
+    private final int srcChannels;
+    private final int channels;
+    private final long inRate;
+    private final long outRate;
+    /**
+     * taps on each side,1 for linear
+     * <p>
+     * 单侧抽头数，线性插值时为1
+     */
+    private final int half;
+    /**
+     * polyphase table,null for linear
+     * <p>
+     * 多相系数表，线性插值时为空
+     */
+    private final float[] table;
+
+    private final byte[] readCache;
+    private final float[] window;
+    private final int windowCapacity;
+    private long windowStart;
+    private int windowLen;
+    private boolean srcEof = false;
+    private long srcTotal = 0;
+
+    private final byte[] outCache;
+    private int outPos = 0;
+    private int outLen = 0;
+    private long produced = 0;
+    private boolean finished = false;
+
+    ResamplingInputStream(AudioInputStream src, AudioFormat target, boolean sinc) {
+        AudioFormat srcFormat = src.getFormat();
+        this.src = src;
+        this.srcBigEndian = srcFormat.isBigEndian();
+        this.srcChannels = srcFormat.getChannels();
+        this.channels = target.getChannels();
+        this.inRate = Math.round(srcFormat.getSampleRate());
+        this.outRate = Math.round(target.getSampleRate());
+        if (sinc) {
+            float cutoff = Math.min(1f, (float) outRate / inRate);
+            this.half = (int) Math.ceil(SINC_ZERO_CROSSINGS / cutoff);
+            this.table = buildTable(half, cutoff);
+        } else {
+            this.half = 1;
+            this.table = null;
+        }
+        int blockInFrames = (int) (BLOCK_FRAMES * inRate / outRate) + 2;
+        this.windowCapacity = blockInFrames + 2 * half + 1;
+        this.window = new float[windowCapacity * channels];
+        this.readCache = new byte[blockInFrames * srcChannels * 2];
+        this.outCache = new byte[BLOCK_FRAMES * channels * 2];
+        this.windowStart = -half;
+        this.windowLen = half;
+    }
+
+    private static float[] buildTable(int half, float cutoff) {
+        int taps = 2 * half;
+        float[] table = new float[(PHASES + 1) * taps];
+        for (int p = 0; p <= PHASES; p++) {
+            double frac = (double) p / PHASES;
+            double sum = 0;
+            for (int k = -half + 1; k <= half; k++) {
+                double t = k - frac;
+                double x = t / half;
+                double blackman = Math.abs(x) >= 1 ? 0
+                        : 0.42 + 0.5 * Math.cos(Math.PI * x) + 0.08 * Math.cos(2 * Math.PI * x);
+                double arg = Math.PI * cutoff * t;
+                double sincValue = t == 0 ? 1 : Math.sin(arg) / arg;
+                double h = cutoff * sincValue * blackman;
+                table[p * taps + k + half - 1] = (float) h;
+                sum += h;
+            }
+            for (int k = 0; k < taps; k++) {
+                table[p * taps + k] /= sum;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * the output frame count of a known input frame count
+     * <p>
+     * 已知输入帧数时的输出帧数
+     *
+     * @param srcFrames
+     *            输入帧数
+     * @param srcRate
+     *            输入采样率
+     * @param dstRate
+     *            输出采样率
+     * @return 输出帧数
+     */
+    static long outputFrames(long srcFrames, float srcRate, float dstRate) {
+        long in = Math.round(srcRate);
+        long out = Math.round(dstRate);
+        return (srcFrames * out + in - 1) / in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (outPos == outLen) {
+            if (finished) {
+                return -1;
+            }
+            produceBlock();
+            if (outLen == 0) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, outLen - outPos);
+        System.arraycopy(outCache, outPos, b, off, n);
+        outPos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return outLen - outPos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        src.close();
+    }
+
+    private void produceBlock() throws IOException {
+        int frames = 0;
+        int outIndex = 0;
+        while (frames < BLOCK_FRAMES) {
+            long num = produced * inRate;
+            long i = num / outRate;
+            if (srcEof && num >= srcTotal * outRate) {
+                finished = true;
+                break;
+            }
+            if (!srcEof && i + half >= windowStart + windowLen) {
+                fill(i - half + 1);
+                continue;
+            }
+            float frac = (float) (num % outRate) / outRate;
+            for (int c = 0; c < channels; c++) {
+                float value = table == null ? linear(i, c, frac) : sinc(i, c, frac);
+                SampleBuffer.writeSample(outCache, outIndex, Math.round(value), false);
+                outIndex += 2;
+            }
+            produced++;
+            frames++;
+        }
+        outPos = 0;
+        outLen = outIndex;
+    }
+
+    private float linear(long i, int c, float frac) {
+        return sample(i, c) * (1 - frac) + sample(i + 1, c) * frac;
+    }
+
+    private float sinc(long i, int c, float frac) {
+        int taps = 2 * half;
+        float phase = frac * PHASES;
+        int p = (int) phase;
+        float w = phase - p;
+        int row0 = p * taps;
+        int row1 = Math.min(p + 1, PHASES) * taps;
+        long first = i - half + 1;
+        float acc = 0;
+        if (first >= windowStart && first + taps <= windowStart + windowLen) {
+            int base = (int) (first - windowStart) * channels + c;
+            for (int k = 0; k < taps; k++) {
+                float h = table[row0 + k] + (table[row1 + k] - table[row0 + k]) * w;
+                acc += window[base + k * channels] * h;
+            }
+        } else {
+            for (int k = 0; k < taps; k++) {
+                float h = table[row0 + k] + (table[row1 + k] - table[row0 + k]) * w;
+                acc += sample(first + k, c) * h;
+            }
+        }
+        return acc;
+    }
+
+    private float sample(long frame, int c) {
+        if (frame < windowStart || frame >= windowStart + windowLen) {
+            return 0;
+        }
+        return window[(int) (frame - windowStart) * channels + c];
+    }
+
+    /**
+     * drop frames before keepFrom and read more source frames
+     * <p>
+     * 丢弃keepFrom之前的帧并读入更多源数据
+     */
+    private void fill(long keepFrom) throws IOException {
+        int drop = (int) Math.max(0, Math.min(keepFrom - windowStart, windowLen));
+        if (drop > 0) {
+            System.arraycopy(window, drop * channels, window, 0, (windowLen - drop) * channels);
+            windowStart += drop;
+            windowLen -= drop;
+        }
+        int srcFrameSize = srcChannels * 2;
+        int wantFrames = Math.min(windowCapacity - windowLen, readCache.length / srcFrameSize);
+        int realRead = readFully(wantFrames * srcFrameSize);
+        int readFrames = realRead / srcFrameSize;
+        mapChannels(readFrames);
+        windowLen += readFrames;
+        srcTotal += readFrames;
+        if (realRead < wantFrames * srcFrameSize) {
+            srcEof = true;
+        }
+    }
+
+    private int readFully(int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int realRead = src.read(readCache, total, len - total);
+            if (realRead == -1) {
+                break;
+            }
+            total += realRead;
+        }
+        return total;
+    }
+
+    private void mapChannels(int frames) {
+        int dst = windowLen * channels;
+        for (int f = 0; f < frames; f++) {
+            int srcBase = f * srcChannels * 2;
+            for (int c = 0; c < channels; c++) {
+                float value;
+                if (srcChannels == channels) {
+                    value = SampleBuffer.readSample(readCache, srcBase + c * 2, srcBigEndian);
+                } else if (channels > srcChannels) {
+                    value = SampleBuffer.readSample(readCache, srcBase + (c % srcChannels) * 2, srcBigEndian);
+                } else {
+                    float sum = 0;
+                    int count = 0;
+                    for (int sc = c; sc < srcChannels; sc += channels) {
+                        sum += SampleBuffer.readSample(readCache, srcBase + sc * 2, srcBigEndian);
+                        count++;
+                    }
+                    value = sum / count;
+                }
+                window[dst++] = value;
+            }
+        }
+    }
+}
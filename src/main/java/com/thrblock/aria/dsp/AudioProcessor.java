@@ -0,0 +1,52 @@
+package com.thrblock.aria.dsp;
+
+/**
+ * An in-place processor of interleaved float samples
+ * <p>
+ * 原地处理交错浮点采样的音频处理器
+ * <p>
+ * The samples are in [-1,1].A processor is called by one playing thread and
+ * allocates nothing while processing,its parameters can be set from any
+ * thread.
+ * <p>
+ * 采样范围为[-1,1]；处理器仅由单个播放线程调用且处理时不分配内存，参数可由任意线程设置
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public interface AudioProcessor {
+    /**
+     * process the samples in place
+     * <p>
+     * 原地处理采样
+     *
+     * @param samples
+     *            交错采样
+     * @param frames
+     *            采样帧数
+     * @param channels
+     *            声道数
+     * @param sampleRate
+     *            采样率
+     */
+    public void process(float[] samples, int frames, int channels, float sampleRate);
+
+    /**
+     * whether processing leaves the samples unchanged,the conversion is
+     * skipped when the whole chain is bypassed
+     * <p>
+     * 处理是否不改变采样，整条处理链均跳过时不进行采样转换
+     *
+     * @return 是否跳过
+     */
+    public default boolean isBypassed() {
+        return false;
+    }
+
+    /**
+     * clear the state kept between buffers,eg.filter history
+     * <p>
+     * 清除缓冲区间保留的状态，如滤波器历史
+     */
+    public default void reset() {
+    }
+}
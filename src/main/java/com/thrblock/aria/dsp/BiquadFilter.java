@@ -0,0 +1,143 @@
+package com.thrblock.aria.dsp;
+
+/**
+ * Second order low or high pass filter,RBJ cookbook coefficients in the
+ * transposed direct form II
+ * <p>
+ * 二阶低通或高通滤波器，使用RBJ公式系数与转置直接II型结构
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class BiquadFilter implements AudioProcessor {
+    /**
+     * The filter type
+     * <p>
+     * 滤波器类型
+     */
+    public enum Type {
+        LOW_PASS, HIGH_PASS
+    }
+
+    /**
+     * the Q of a butterworth response
+     * <p>
+     * 巴特沃斯响应的Q值
+     */
+    public static final float BUTTERWORTH_Q = 0.70710677f;
+
+    private final Type type;
+    private volatile float cutoff;
+    private volatile float q;
+    private volatile int version = 0;
+    private int coefficientVersion = -1;
+    private float coefficientRate = 0;
+    private float b0;
+    private float b1;
+    private float b2;
+    private float a1;
+    private float a2;
+    private float[] z1 = new float[2];
+    private float[] z2 = new float[2];
+
+    /**
+     * build a butterworth filter
+     * <p>
+     * 构造巴特沃斯滤波器
+     *
+     * @param type
+     *            类型
+     * @param cutoff
+     *            截止频率
+     */
+    public BiquadFilter(Type type, float cutoff) {
+        this(type, cutoff, BUTTERWORTH_Q);
+    }
+
+    /**
+     * build a filter
+     * <p>
+     * 构造滤波器
+     *
+     * @param type
+     *            类型
+     * @param cutoff
+     *            截止频率
+     * @param q
+     *            Q值
+     */
+    public BiquadFilter(Type type, float cutoff, float q) {
+        this.type = type;
+        this.cutoff = cutoff;
+        this.q = q;
+    }
+
+    public void setCutoff(float cutoff) {
+        this.cutoff = cutoff;
+        version++;
+    }
+
+    public float getCutoff() {
+        return cutoff;
+    }
+
+    public void setQ(float q) {
+        this.q = q;
+        version++;
+    }
+
+    public float getQ() {
+        return q;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    private void updateCoefficients(float sampleRate, int v) {
+        double w0 = 2 * Math.PI * Math.min(cutoff, sampleRate * 0.49) / sampleRate;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * Math.max(q, 0.01));
+        double a0 = 1 + alpha;
+        double b = type == Type.LOW_PASS ? (1 - cos) / 2 : (1 + cos) / 2;
+        b0 = (float) (b / a0);
+        b1 = (float) ((type == Type.LOW_PASS ? 1 - cos : -(1 + cos)) / a0);
+        b2 = b0;
+        a1 = (float) (-2 * cos / a0);
+        a2 = (float) ((1 - alpha) / a0);
+        coefficientVersion = v;
+        coefficientRate = sampleRate;
+    }
+
+    @Override
+    public void process(float[] samples, int frames, int channels, float sampleRate) {
+        int v = version;
+        if (v != coefficientVersion || sampleRate != coefficientRate) {
+            updateCoefficients(sampleRate, v);
+        }
+        if (z1.length != channels) {
+            z1 = new float[channels];
+            z2 = new float[channels];
+        }
+        for (int c = 0; c < channels; c++) {
+            float s1 = z1[c];
+            float s2 = z2[c];
+            for (int i = c; i < frames * channels; i += channels) {
+                float x = samples[i];
+                float y = b0 * x + s1;
+                s1 = b1 * x - a1 * y + s2;
+                s2 = b2 * x - a2 * y;
+                samples[i] = y;
+            }
+            z1[c] = s1;
+            z2[c] = s2;
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (int c = 0; c < z1.length; c++) {
+            z1[c] = 0;
+            z2[c] = 0;
+        }
+    }
+}
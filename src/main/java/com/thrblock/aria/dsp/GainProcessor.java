@@ -0,0 +1,130 @@
+package com.thrblock.aria.dsp;
+
+/**
+ * Gain with a linear ramp to every new value,so a change never clicks
+ * <p>
+ * 增益处理器，每次变化以线性斜坡过渡，避免爆音
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class GainProcessor implements AudioProcessor {
+    /**
+     * the gain range in decibel,as a master gain control
+     * <p>
+     * 以分贝计的增益范围，与主增益控制一致
+     */
+    public static final float MIN_DB = -80f;
+    public static final float MAX_DB = 6.0206f;
+    private static final float DEFAULT_RAMP_MILLIS = 20f;
+
+    private volatile float target;
+    private volatile float rampMillis = DEFAULT_RAMP_MILLIS;
+    private float current;
+    private float rampTarget;
+    private float step;
+
+    /**
+     * build with unity gain
+     * <p>
+     * 以单位增益构造
+     */
+    public GainProcessor() {
+        this(1f);
+    }
+
+    /**
+     * build with a linear gain,no ramp for the first buffer
+     * <p>
+     * 以线性增益构造，首个缓冲区不经过斜坡
+     *
+     * @param gain
+     *            线性增益
+     */
+    public GainProcessor(float gain) {
+        this.target = gain;
+        this.current = gain;
+        this.rampTarget = gain;
+    }
+
+    /**
+     * set the linear gain,reached by a ramp
+     * <p>
+     * 设置线性增益，经斜坡到达
+     *
+     * @param gain
+     *            linear gain,1 means original 线性增益，1为原始音量
+     */
+    public void setGain(float gain) {
+        this.target = Math.max(0f, gain);
+    }
+
+    public float getGain() {
+        return target;
+    }
+
+    /**
+     * set the gain in decibel,the min is silence
+     * <p>
+     * 以分贝设置增益，最小值为静音
+     *
+     * @param db
+     *            分贝
+     */
+    public void setGainDb(float db) {
+        float clamped = Math.min(MAX_DB, db);
+        setGain(clamped <= MIN_DB ? 0f : (float) Math.pow(10, clamped / 20));
+    }
+
+    public float getGainDb() {
+        float gain = target;
+        return gain <= 0 ? MIN_DB : Math.max(MIN_DB, (float) (20 * Math.log10(gain)));
+    }
+
+    /**
+     * set the ramp length of a change
+     * <p>
+     * 设置变化的斜坡时长
+     *
+     * @param rampMillis
+     *            斜坡毫秒数
+     */
+    public void setRampMillis(float rampMillis) {
+        this.rampMillis = Math.max(0f, rampMillis);
+    }
+
+    @Override
+    public void process(float[] samples, int frames, int channels, float sampleRate) {
+        float t = target;
+        if (t != rampTarget) {
+            int rampFrames = Math.max(1, (int) (rampMillis * sampleRate / 1000));
+            rampTarget = t;
+            step = (t - current) / rampFrames;
+        }
+        int frame = 0;
+        for (int i = 0; current != t && frame < frames; frame++) {
+            current += step;
+            if (step > 0 ? current >= t : current <= t) {
+                current = t;
+            }
+            for (int c = 0; c < channels; c++, i++) {
+                samples[i] *= current;
+            }
+        }
+        if (t != 1f) {
+            for (int i = frame * channels; i < frames * channels; i++) {
+                samples[i] *= t;
+            }
+        }
+    }
+
+    @Override
+    public boolean isBypassed() {
+        return target == 1f && current == 1f;
+    }
+
+    @Override
+    public void reset() {
+        current = target;
+        rampTarget = current;
+    }
+}
@@ -0,0 +1,99 @@
+package com.thrblock.aria.dsp;
+
+/**
+ * Peak limiter,instant attack and exponential release,the channels are
+ * linked
+ * <p>
+ * 峰值限制器，瞬时启动、指数释放，各声道联动
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class Limiter implements AudioProcessor {
+    private static final float DEFAULT_THRESHOLD = 0.98f;
+    private static final float DEFAULT_RELEASE_MILLIS = 100f;
+
+    private volatile float threshold;
+    private volatile float releaseMillis;
+    private float envelope = 1f;
+    private float releaseRate = 0;
+    private float releaseCoefficient;
+    private float releaseFor = -1;
+
+    /**
+     * build with a threshold just under full scale
+     * <p>
+     * 以略低于满幅的阈值构造
+     */
+    public Limiter() {
+        this(DEFAULT_THRESHOLD, DEFAULT_RELEASE_MILLIS);
+    }
+
+    /**
+     * build a limiter
+     * <p>
+     * 构造限制器
+     *
+     * @param threshold
+     *            linear threshold in (0,1] 线性阈值
+     * @param releaseMillis
+     *            释放毫秒数
+     */
+    public Limiter(float threshold, float releaseMillis) {
+        setThreshold(threshold);
+        setReleaseMillis(releaseMillis);
+    }
+
+    public void setThreshold(float threshold) {
+        this.threshold = Math.max(0.001f, Math.min(1f, threshold));
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public void setReleaseMillis(float releaseMillis) {
+        this.releaseMillis = Math.max(1f, releaseMillis);
+    }
+
+    public float getReleaseMillis() {
+        return releaseMillis;
+    }
+
+    /**
+     * the current gain reduction,1 for none
+     * <p>
+     * 当前增益衰减，1为无衰减
+     *
+     * @return 线性增益
+     */
+    public float getEnvelope() {
+        return envelope;
+    }
+
+    @Override
+    public void process(float[] samples, int frames, int channels, float sampleRate) {
+        float release = releaseMillis;
+        if (sampleRate != releaseRate || release != releaseFor) {
+            releaseCoefficient = (float) (1 - Math.exp(-1000.0 / (release * sampleRate)));
+            releaseRate = sampleRate;
+            releaseFor = release;
+        }
+        float limit = threshold;
+        for (int f = 0, i = 0; f < frames; f++, i += channels) {
+            float peak = 0;
+            for (int c = 0; c < channels; c++) {
+                peak = Math.max(peak, Math.abs(samples[i + c]));
+            }
+            float target = peak > limit ? limit / peak : 1f;
+            envelope = target < envelope ? target : envelope + (target - envelope) * releaseCoefficient;
+            for (int c = 0; c < channels; c++) {
+                samples[i + c] *= envelope;
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        envelope = 1f;
+    }
+}
@@ -0,0 +1,87 @@
+package com.thrblock.aria.dsp;
+
+/**
+ * Stereo balance,the far side is attenuated by an equal power curve
+ * <p>
+ * 立体声平衡，远离一侧按等功率曲线衰减
+ * <p>
+ * The centre keeps the original level,a change is ramped across one buffer.
+ * Only stereo is processed.
+ * <p>
+ * 居中时保持原音量，变化在一个缓冲区内渐变；仅处理立体声
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class PanProcessor implements AudioProcessor {
+    private volatile float pan;
+    private float left = 1f;
+    private float right = 1f;
+
+    /**
+     * build at the centre
+     * <p>
+     * 以居中构造
+     */
+    public PanProcessor() {
+        this(0f);
+    }
+
+    /**
+     * build with a pan
+     * <p>
+     * 以指定声像构造
+     *
+     * @param pan
+     *            -1 left,0 centre,1 right 声像，-1为左，0为中，1为右
+     */
+    public PanProcessor(float pan) {
+        setPan(pan);
+        this.left = leftOf(this.pan);
+        this.right = leftOf(-this.pan);
+    }
+
+    /**
+     * set the pan
+     * <p>
+     * 设置声像
+     *
+     * @param pan
+     *            -1 left,0 centre,1 right 声像，-1为左，0为中，1为右
+     */
+    public void setPan(float pan) {
+        this.pan = Math.max(-1f, Math.min(1f, pan));
+    }
+
+    public float getPan() {
+        return pan;
+    }
+
+    private static float leftOf(float pan) {
+        return pan <= 0 ? 1f : (float) Math.cos(pan * Math.PI / 2);
+    }
+
+    @Override
+    public void process(float[] samples, int frames, int channels, float sampleRate) {
+        if (channels != 2) {
+            return;
+        }
+        float p = pan;
+        float toLeft = leftOf(p);
+        float toRight = leftOf(-p);
+        float leftStep = (toLeft - left) / frames;
+        float rightStep = (toRight - right) / frames;
+        for (int f = 0, i = 0; f < frames; f++, i += 2) {
+            left += leftStep;
+            right += rightStep;
+            samples[i] *= left;
+            samples[i + 1] *= right;
+        }
+        left = toLeft;
+        right = toRight;
+    }
+
+    @Override
+    public boolean isBypassed() {
+        return pan == 0f && left == 1f && right == 1f;
+    }
+}
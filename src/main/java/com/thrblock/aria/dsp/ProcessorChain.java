@@ -0,0 +1,105 @@
+package com.thrblock.aria.dsp;
+
+import java.util.Arrays;
+
+/**
+ * A chain of processors run in order,itself a processor
+ * <p>
+ * 按顺序执行的处理链，其本身也是处理器
+ * <p>
+ * The processors can be added and removed from any thread,the playing thread
+ * reads a snapshot array and allocates nothing.
+ * <p>
+ * 处理器可由任意线程增删，播放线程读取数组快照，不分配内存
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class ProcessorChain implements AudioProcessor {
+    private static final AudioProcessor[] EMPTY = new AudioProcessor[0];
+    private volatile AudioProcessor[] processors = EMPTY;
+
+    /**
+     * add a processor to the end
+     * <p>
+     * 在末尾加入处理器
+     *
+     * @param processor
+     *            处理器
+     * @return this
+     */
+    public synchronized ProcessorChain add(AudioProcessor processor) {
+        AudioProcessor[] next = Arrays.copyOf(processors, processors.length + 1);
+        next[processors.length] = processor;
+        processors = next;
+        return this;
+    }
+
+    /**
+     * remove a processor
+     * <p>
+     * 移除处理器
+     *
+     * @param processor
+     *            处理器
+     * @return 是否移除
+     */
+    public synchronized boolean remove(AudioProcessor processor) {
+        AudioProcessor[] current = processors;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == processor) {
+                AudioProcessor[] next = new AudioProcessor[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                processors = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * remove all the processors
+     * <p>
+     * 移除所有处理器
+     */
+    public synchronized void clear() {
+        processors = EMPTY;
+    }
+
+    /**
+     * get the processor count
+     * <p>
+     * 获得处理器数
+     *
+     * @return 处理器数
+     */
+    public int size() {
+        return processors.length;
+    }
+
+    @Override
+    public void process(float[] samples, int frames, int channels, float sampleRate) {
+        for (AudioProcessor processor : processors) {
+            if (!processor.isBypassed()) {
+                processor.process(samples, frames, channels, sampleRate);
+            }
+        }
+    }
+
+    @Override
+    public boolean isBypassed() {
+        for (AudioProcessor processor : processors) {
+            if (!processor.isBypassed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        for (AudioProcessor processor : processors) {
+            processor.reset();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.thrblock.aria.dsp;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Run a processor on 16 bit signed pcm in place
+ * <p>
+ * 在16位有符号PCM数据上原地执行处理器
+ * <p>
+ * The float buffer is kept between calls and only grows,one buffer is used by
+ * one playing thread.
+ * <p>
+ * 浮点缓冲区在调用间复用且只增不减，每个缓冲区仅供单个播放线程使用
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class SampleBuffer {
+    private static final float SCALE = 32768f;
+    private float[] samples;
+
+    /**
+     * build with an initial capacity
+     * <p>
+     * 以初始容量构造
+     *
+     * @param capacity
+     *            采样数
+     */
+    public SampleBuffer(int capacity) {
+        this.samples = new float[capacity];
+    }
+
+    /**
+     * check if the format can be processed,only 16 bit signed pcm
+     * <p>
+     * 检查格式是否可处理，仅支持16位有符号PCM
+     *
+     * @param format
+     *            音频格式
+     * @return 是否支持
+     */
+    public static boolean supports(AudioFormat format) {
+        return AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) && format.getSampleSizeInBits() == 16
+                && format.getFrameSize() == format.getChannels() * 2;
+    }
+
+    /**
+     * read a 16 bit signed sample
+     * <p>
+     * 读取一个16位有符号采样
+     *
+     * @param pcm
+     *            PCM数据
+     * @param index
+     *            字节偏移
+     * @param bigEndian
+     *            是否大端
+     * @return 采样值
+     */
+    public static int readSample(byte[] pcm, int index, boolean bigEndian) {
+        if (bigEndian) {
+            return (short) (pcm[index] << 8 | pcm[index + 1] & 0xFF);
+        } else {
+            return (short) (pcm[index + 1] << 8 | pcm[index] & 0xFF);
+        }
+    }
+
+    /**
+     * write a 16 bit signed sample,clipped into the 16 bit range
+     * <p>
+     * 写入一个16位有符号采样，超出范围的值被截断
+     *
+     * @param pcm
+     *            PCM数据
+     * @param index
+     *            字节偏移
+     * @param sample
+     *            采样值
+     * @param bigEndian
+     *            是否大端
+     */
+    public static void writeSample(byte[] pcm, int index, int sample, boolean bigEndian) {
+        sample = sample > Short.MAX_VALUE ? Short.MAX_VALUE : sample < Short.MIN_VALUE ? Short.MIN_VALUE : sample;
+        if (bigEndian) {
+            pcm[index] = (byte) (sample >> 8);
+            pcm[index + 1] = (byte) sample;
+        } else {
+            pcm[index] = (byte) sample;
+            pcm[index + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    /**
+     * run the processor on the pcm in place,nothing is done when the format is
+     * not supported or the processor is bypassed
+     * <p>
+     * 在PCM数据上原地执行处理器，格式不支持或处理器跳过时不做处理
+     *
+     * @param processor
+     *            处理器
+     * @param pcm
+     *            PCM数据
+     * @param off
+     *            偏移
+     * @param len
+     *            字节长度
+     * @param format
+     *            音频格式
+     */
+    public void apply(AudioProcessor processor, byte[] pcm, int off, int len, AudioFormat format) {
+        if (processor.isBypassed() || !supports(format)) {
+            return;
+        }
+        int channels = format.getChannels();
+        int frames = len / format.getFrameSize();
+        int count = frames * channels;
+        if (samples.length < count) {
+            samples = new float[count];
+        }
+        boolean bigEndian = format.isBigEndian();
+        for (int i = 0, b = off; i < count; i++, b += 2) {
+            samples[i] = readSample(pcm, b, bigEndian) / SCALE;
+        }
+        processor.process(samples, frames, channels, format.getSampleRate());
+        for (int i = 0, b = off; i < count; i++, b += 2) {
+            writeSample(pcm, b, Math.round(samples[i] * SCALE), bigEndian);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.thrblock.aria.metrics;
+
+/**
+ * The metrics recorded by aria
+ * <p>
+ * aria记录的运行指标
+ * <p>
+ * By default a {@link DefaultMetricsRegistry} exposes them under the JMX
+ * domain {@value #DOMAIN}.Install another registry before the players are
+ * built to bridge them elsewhere.The metrics are fixed once first used,so a
+ * gauge is always taken and given back on the same counter.
+ * <p>
+ * 默认由{@link DefaultMetricsRegistry}在JMX域{@value #DOMAIN}下公开；在构造播放器之前安装其他注册表可将指标接入其他系统；
+ * 指标首次使用后即固定，因此计量值的增减总在同一计数器上
+ * <ul>
+ * <li>voices.active,voices.stolen,voices.dropped:sound effect voices
+ * 音效发声数</li>
+ * <li>threads.active:the audio threads running 运行中的音频线程数</li>
+ * <li>lines.open:the open lines 已打开的LINE数</li>
+ * <li>line.open.nanos:the time to open a line 打开LINE的耗时</li>
+ * <li>line.underruns:a line played out before the next write 写入前LINE已播空的次数</li>
+ * <li>sound.decode.nanos:the decode time of a built sound 构造音效时的解码耗时</li>
+ * <li>decode.bytes:the bytes decoded,see the rate for bytes per second 解码字节数，其速率即每秒解码字节数</li>
+ * <li>music.commands.pending,music.command.latency.nanos:the music player command queue
+ * 播放器指令队列深度与指令等待时长</li>
+ * </ul>
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class AriaMetrics {
+    /**
+     * the JMX domain of the default registry
+     * <p>
+     * 默认注册表的JMX域
+     */
+    public static final String DOMAIN = "com.thrblock.aria";
+
+    private static volatile AriaMetrics current;
+    /**
+     * the metrics of the registry installed before the first use,guarded by
+     * the class
+     * <p>
+     * 首次使用前安装的注册表所创建的指标，由类锁保护
+     */
+    private static AriaMetrics installed;
+
+    private final MetricsRegistry registry;
+    private final Counter activeVoices;
+    private final Counter stolenVoices;
+    private final Counter droppedVoices;
+    private final Counter activeThreads;
+    private final Counter openLines;
+    private final Histogram lineOpenNanos;
+    private final Counter lineUnderruns;
+    private final Histogram soundDecodeNanos;
+    private final Counter decodedBytes;
+    private final Counter pendingCommands;
+    private final Histogram commandLatencyNanos;
+
+    private AriaMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        this.activeVoices = registry.counter("voices.active");
+        this.stolenVoices = registry.counter("voices.stolen");
+        this.droppedVoices = registry.counter("voices.dropped");
+        this.activeThreads = registry.counter("threads.active");
+        this.openLines = registry.counter("lines.open");
+        this.lineOpenNanos = registry.histogram("line.open.nanos");
+        this.lineUnderruns = registry.counter("line.underruns");
+        this.soundDecodeNanos = registry.histogram("sound.decode.nanos");
+        this.decodedBytes = registry.counter("decode.bytes");
+        this.pendingCommands = registry.counter("music.commands.pending");
+        this.commandLatencyNanos = registry.histogram("music.command.latency.nanos");
+    }
+
+    /**
+     * get the metrics,the installed ones or the ones of the default registry
+     * created on the first call
+     * <p>
+     * 获得运行指标，即已安装的指标或首次调用时由默认注册表创建的指标
+     *
+     * @return 运行指标
+     */
+    public static AriaMetrics get() {
+        AriaMetrics metrics = current;
+        if (metrics == null) {
+            synchronized (AriaMetrics.class) {
+                if (current == null) {
+                    current = installed != null ? installed : new AriaMetrics(new DefaultMetricsRegistry(DOMAIN));
+                }
+                metrics = current;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * install a registry,must be called before the metrics are first used
+     * <p>
+     * 安装注册表，须在指标首次使用前调用
+     *
+     * @param registry
+     *            指标注册表
+     * @throws IllegalStateException
+     *             when the metrics are in use 指标已在使用时抛出
+     */
+    public static synchronized void install(MetricsRegistry registry) {
+        if (current != null) {
+            throw new IllegalStateException("metrics in use,install the registry before the players are built");
+        }
+        installed = new AriaMetrics(registry);
+    }
+
+    /**
+     * get the registry the metrics are created by
+     * <p>
+     * 获得创建指标的注册表
+     *
+     * @return 指标注册表
+     */
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    public Counter activeVoices() {
+        return activeVoices;
+    }
+
+    public Counter stolenVoices() {
+        return stolenVoices;
+    }
+
+    public Counter droppedVoices() {
+        return droppedVoices;
+    }
+
+    public Counter activeThreads() {
+        return activeThreads;
+    }
+
+    public Counter openLines() {
+        return openLines;
+    }
+
+    public Histogram lineOpenNanos() {
+        return lineOpenNanos;
+    }
+
+    public Counter lineUnderruns() {
+        return lineUnderruns;
+    }
+
+    public Histogram soundDecodeNanos() {
+        return soundDecodeNanos;
+    }
+
+    public Counter decodedBytes() {
+        return decodedBytes;
+    }
+
+    public Counter pendingCommands() {
+        return pendingCommands;
+    }
+
+    public Histogram commandLatencyNanos() {
+        return commandLatencyNanos;
+    }
+}
@@ -0,0 +1,51 @@
+package com.thrblock.aria.metrics;
+
+/**
+ * A counter,may go down to track a current count such as open lines
+ * <p>
+ * 计数器，可减少以跟踪当前数量，如已打开的LINE数
+ * <p>
+ * Recording must not allocate,it is called on the audio threads.
+ * <p>
+ * 记录操作不得分配内存，会在音频线程中调用
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public interface Counter {
+    /**
+     * add a delta
+     * <p>
+     * 增加指定数值
+     *
+     * @param delta
+     *            增量，可为负数
+     */
+    void add(long delta);
+
+    /**
+     * add one
+     * <p>
+     * 加一
+     */
+    default void increment() {
+        add(1);
+    }
+
+    /**
+     * subtract one
+     * <p>
+     * 减一
+     */
+    default void decrement() {
+        add(-1);
+    }
+
+    /**
+     * get the count
+     * <p>
+     * 获得计数
+     *
+     * @return 计数
+     */
+    long getCount();
+}
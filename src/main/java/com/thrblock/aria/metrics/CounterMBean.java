@@ -0,0 +1,29 @@
+package com.thrblock.aria.metrics;
+
+/**
+ * The JMX view of a counter
+ * <p>
+ * 计数器的JMX视图
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public interface CounterMBean {
+    /**
+     * get the count
+     * <p>
+     * 获得计数
+     *
+     * @return 计数
+     */
+    long getCount();
+
+    /**
+     * get the change per second,measured between the reads at least one
+     * second apart
+     * <p>
+     * 获得每秒变化量，在间隔至少一秒的两次读取之间计算
+     *
+     * @return 每秒变化量
+     */
+    double getRatePerSecond();
+}
@@ -0,0 +1,200 @@
+package com.thrblock.aria.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The default registry,striped counters and log-linear histograms,each
+ * exposed as a JMX MBean
+ * <p>
+ * 默认注册表，使用分段计数器与对数线性直方图，每个指标注册为一个JMX MBean
+ * <p>
+ * The object names are {@code <domain>:type=Counter,name="<name>"} and
+ * {@code <domain>:type=Histogram,name="<name>"},no MBean is registered when
+ * the domain is null.
+ * <p>
+ * 对象名称格式如上，domain为空时不注册MBean
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultMetricsRegistry.class);
+
+    private final String domain;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<ObjectName, Boolean> registered = new ConcurrentHashMap<>();
+
+    /**
+     * build a registry without JMX
+     * <p>
+     * 构造不注册JMX的注册表
+     */
+    public DefaultMetricsRegistry() {
+        this(null);
+    }
+
+    /**
+     * build a registry exposed under the given JMX domain
+     * <p>
+     * 构造在指定JMX域下注册的注册表
+     *
+     * @param domain
+     *            JMX domain,null for none JMX域，为空时不注册
+     */
+    public DefaultMetricsRegistry(String domain) {
+        this.domain = domain;
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> {
+            StripedCounter counter = new StripedCounter();
+            register("Counter", k, new CounterView(counter), CounterMBean.class);
+            return counter;
+        });
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> {
+            LogHistogram histogram = new LogHistogram();
+            register("Histogram", k, new HistogramView(histogram), HistogramMBean.class);
+            return histogram;
+        });
+    }
+
+    /**
+     * get the counters by name
+     * <p>
+     * 获得按名称索引的计数器
+     *
+     * @return 只读的计数器表
+     */
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * get the histograms by name
+     * <p>
+     * 获得按名称索引的直方图
+     *
+     * @return 只读的直方图表
+     */
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * unregister all the MBeans of this registry,the metrics still record
+     * <p>
+     * 注销本注册表的所有MBean，指标仍继续记录
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered.keySet()) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                LOG.info("Exception in MBean unregister:" + e);
+            }
+            registered.remove(name);
+        }
+    }
+
+    private <T> void register(String type, String name, T view, Class<T> mbeanInterface) {
+        if (domain == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(domain + ":type=" + type + ",name=" + ObjectName.quote(name));
+            StandardMBean mbean = new StandardMBean(view, mbeanInterface, false);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+            registered.put(objectName, Boolean.TRUE);
+        } catch (JMException e) {
+            LOG.info("Exception in MBean register:" + e);
+        }
+    }
+
+    private static class CounterView implements CounterMBean {
+        private final Counter counter;
+        private long lastCount;
+        private long lastNanos = System.nanoTime();
+        private double rate;
+
+        CounterView(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public long getCount() {
+            return counter.getCount();
+        }
+
+        @Override
+        public synchronized double getRatePerSecond() {
+            long now = System.nanoTime();
+            if (now - lastNanos >= 1_000_000_000L) {
+                long count = counter.getCount();
+                rate = (count - lastCount) * 1e9 / (now - lastNanos);
+                lastCount = count;
+                lastNanos = now;
+            }
+            return rate;
+        }
+    }
+
+    private static class HistogramView implements HistogramMBean {
+        private final Histogram histogram;
+
+        HistogramView(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getMax();
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getMean();
+        }
+
+        @Override
+        public long get50thPercentile() {
+            return histogram.getValueAtPercentile(50);
+        }
+
+        @Override
+        public long get90thPercentile() {
+            return histogram.getValueAtPercentile(90);
+        }
+
+        @Override
+        public long get99thPercentile() {
+            return histogram.getValueAtPercentile(99);
+        }
+
+        @Override
+        public long get999thPercentile() {
+            return histogram.getValueAtPercentile(99.9);
+        }
+    }
+}
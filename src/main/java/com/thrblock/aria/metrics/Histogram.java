@@ -0,0 +1,62 @@
+package com.thrblock.aria.metrics;
+
+/**
+ * A histogram of non negative values,eg.latency in nanoseconds
+ * <p>
+ * 非负数值的直方图，如以纳秒计的延迟
+ * <p>
+ * Recording must not allocate,it is called on the audio threads.
+ * <p>
+ * 记录操作不得分配内存，会在音频线程中调用
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public interface Histogram {
+    /**
+     * record a value,a negative value is taken as 0
+     * <p>
+     * 记录一个数值，负数视为0
+     *
+     * @param value
+     *            数值
+     */
+    void record(long value);
+
+    /**
+     * get the recorded count
+     * <p>
+     * 获得记录次数
+     *
+     * @return 记录次数
+     */
+    long getCount();
+
+    /**
+     * get the max recorded value
+     * <p>
+     * 获得记录的最大值
+     *
+     * @return 最大值，无记录时为0
+     */
+    long getMax();
+
+    /**
+     * get the mean of the recorded values
+     * <p>
+     * 获得记录值的平均值
+     *
+     * @return 平均值，无记录时为0
+     */
+    double getMean();
+
+    /**
+     * get the value at a percentile
+     * <p>
+     * 获得指定百分位的数值
+     *
+     * @param percentile
+     *            percentile in [0,100] 百分位
+     * @return 数值，无记录时为0
+     */
+    long getValueAtPercentile(double percentile);
+}
@@ -0,0 +1,66 @@
+package com.thrblock.aria.metrics;
+
+/**
+ * The JMX view of a histogram
+ * <p>
+ * 直方图的JMX视图
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public interface HistogramMBean {
+    /**
+     * get the recorded count<p>
+     * 获得记录次数
+     *
+     * @return 记录次数
+     */
+    long getCount();
+
+    /**
+     * get the max recorded value<p>
+     * 获得记录的最大值
+     *
+     * @return 最大值
+     */
+    long getMax();
+
+    /**
+     * get the mean<p>
+     * 获得平均值
+     *
+     * @return 平均值
+     */
+    double getMean();
+
+    /**
+     * get the median<p>
+     * 获得中位数
+     *
+     * @return 50%分位值
+     */
+    long get50thPercentile();
+
+    /**
+     * get the 90th percentile<p>
+     * 获得90%分位值
+     *
+     * @return 90%分位值
+     */
+    long get90thPercentile();
+
+    /**
+     * get the 99th percentile<p>
+     * 获得99%分位值
+     *
+     * @return 99%分位值
+     */
+    long get99thPercentile();
+
+    /**
+     * get the 99.9th percentile<p>
+     * 获得99.9%分位值
+     *
+     * @return 99.9%分位值
+     */
+    long get999thPercentile();
+}
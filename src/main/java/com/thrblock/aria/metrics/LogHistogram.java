@@ -0,0 +1,99 @@
+package com.thrblock.aria.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A log-linear histogram in the way of HdrHistogram,fixed buckets and no
+ * allocation when recording
+ * <p>
+ * 仿照HdrHistogram的对数线性直方图，桶数固定，记录时不分配内存
+ * <p>
+ * The values below 64 are exact,each power of two above is split into 32
+ * linear buckets,so a percentile is within 1/32 of the recorded value.
+ * <p>
+ * 小于64的数值精确记录，其上的每个2的幂区间划分为32个线性桶，百分位误差不超过记录值的1/32
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class LogHistogram implements Histogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    @Override
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        for (long current = max.get(); v > current && !max.compareAndSet(current, v); current = max.get()) {
+            // 重试直至最大值不小于v
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double p = Math.max(0, Math.min(100, percentile));
+        long target = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(highestOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(long v) {
+        if (v < 2 * SUB_COUNT) {
+            return (int) v;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (v >>> shift) - SUB_COUNT;
+    }
+
+    /**
+     * the highest value of a bucket
+     * <p>
+     * 桶内的最大数值
+     */
+    static long highestOf(int index) {
+        if (index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
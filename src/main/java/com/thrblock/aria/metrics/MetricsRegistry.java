@@ -0,0 +1,39 @@
+package com.thrblock.aria.metrics;
+
+/**
+ * The registry the metrics are created by,implement it to bridge the metrics
+ * into another monitoring system
+ * <p>
+ * 创建指标的注册表，实现此接口可将指标接入其他监控系统
+ * <p>
+ * The same name always gets the same metric.The metrics are created once
+ * when installed,never on the audio threads.
+ * <p>
+ * 相同名称总是获得同一指标；指标在安装时一次性创建，不会在音频线程中创建
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see AriaMetrics#install(MetricsRegistry)
+ */
+public interface MetricsRegistry {
+    /**
+     * get or create a counter
+     * <p>
+     * 获得或创建计数器
+     *
+     * @param name
+     *            指标名称
+     * @return 计数器
+     */
+    Counter counter(String name);
+
+    /**
+     * get or create a histogram
+     * <p>
+     * 获得或创建直方图
+     *
+     * @param name
+     *            指标名称
+     * @return 直方图
+     */
+    Histogram histogram(String name);
+}
@@ -0,0 +1,35 @@
+package com.thrblock.aria.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter striped over cells,so the threads adding at once do not contend
+ * on one value
+ * <p>
+ * 分散至多个单元的计数器，并发增加的线程不会争用同一数值
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class StripedCounter implements Counter {
+    private final LongAdder adder = new LongAdder();
+
+    @Override
+    public void add(long delta) {
+        adder.add(delta);
+    }
+
+    @Override
+    public void increment() {
+        adder.increment();
+    }
+
+    @Override
+    public void decrement() {
+        adder.decrement();
+    }
+
+    @Override
+    public long getCount() {
+        return adder.sum();
+    }
+}
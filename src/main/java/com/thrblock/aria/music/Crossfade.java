@@ -0,0 +1,56 @@
+package com.thrblock.aria.music;
+
+import javax.sound.sampled.AudioFormat;
+
+import com.thrblock.aria.dsp.SampleBuffer;
+
+/**
+ * Equal power crossfade of two 16 bit signed pcm blocks
+ * <p>
+ * 两段16位有符号PCM数据的等功率交叉淡化
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class Crossfade {
+    private Crossfade() {
+    }
+
+    /**
+     * fade out the outgoing block and mix in the incoming one,in place.The
+     * incoming data shorter than the block is taken as silence
+     * <p>
+     * 原地淡出当前块并混入后续数据，后续数据不足部分视为静音
+     *
+     * @param out
+     *            当前块
+     * @param offset
+     *            当前块起始偏移
+     * @param length
+     *            混合字节数
+     * @param in
+     *            后续数据，从0开始
+     * @param inLength
+     *            后续数据字节数
+     * @param format
+     *            共同的格式
+     * @param position
+     *            the byte position of offset in the fade 起始偏移在淡化中的字节位置
+     * @param fadeLength
+     *            淡化总字节数
+     */
+    static void mix(byte[] out, int offset, int length, byte[] in, int inLength, AudioFormat format, long position,
+            long fadeLength) {
+        int frameSize = format.getFrameSize();
+        boolean bigEndian = format.isBigEndian();
+        for (int frame = 0; frame + frameSize <= length; frame += frameSize) {
+            double angle = Math.min(1.0, (double) (position + frame) / fadeLength) * Math.PI / 2;
+            float outGain = (float) Math.cos(angle);
+            float inGain = (float) Math.sin(angle);
+            for (int i = frame; i < frame + frameSize; i += 2) {
+                int a = SampleBuffer.readSample(out, offset + i, bigEndian);
+                int b = i + 1 < inLength ? SampleBuffer.readSample(in, i, bigEndian) : 0;
+                SampleBuffer.writeSample(out, offset + i, Math.round(a * outGain + b * inGain), bigEndian);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.thrblock.aria.music;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import com.thrblock.aria.metrics.AriaMetrics;
+
+/**
+ * Decode on a separate thread into a pcm ring ahead of the output
+ * <p>
+ * 在独立线程中提前解码至PCM环形缓冲区
+ * <p>
+ * The output thread halts the decoder before touching the stream,eg.to seek,
+ * and resumes it after.The waits on both sides use park and unpark.
+ * <p>
+ * 输出线程在操作音频流（如定位）前暂停解码线程，完成后恢复；双方等待均使用park/unpark
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class DecodeAhead implements Runnable {
+    /**
+     * Read one block of decoded data
+     * <p>
+     * 读取一块解码数据
+     */
+    @FunctionalInterface
+    interface BlockReader {
+        /**
+         * @param dst
+         *            目标块
+         * @return length,-1 for the end 数据长度，-1表示结束
+         * @throws IOException
+         *             when io error IO错误时抛出
+         */
+        int read(byte[] dst) throws IOException;
+    }
+
+    private final PcmRing ring;
+    private final BlockReader reader;
+    private final Thread decoder;
+    private final Thread output;
+    private volatile boolean haltRequested = false;
+    private volatile boolean halted = false;
+    private volatile boolean ended = false;
+    private volatile boolean closed = false;
+    private volatile IOException error;
+
+    /**
+     * build on the output thread,the ring is cleared
+     * <p>
+     * 在输出线程中构造，清空环形缓冲区
+     *
+     * @param ring
+     *            环形缓冲区
+     * @param reader
+     *            块读取
+     */
+    DecodeAhead(PcmRing ring, BlockReader reader) {
+        this.ring = ring;
+        this.ring.clear();
+        this.reader = reader;
+        this.output = Thread.currentThread();
+        this.decoder = new Thread(this);
+        this.decoder.setName("Aria Music Decoder");
+        this.decoder.setDaemon(true);
+    }
+
+    void start() {
+        decoder.start();
+    }
+
+    @Override
+    public void run() {
+        AriaMetrics.get().activeThreads().increment();
+        try {
+            decodeUntilClosed();
+        } finally {
+            AriaMetrics.get().activeThreads().decrement();
+        }
+    }
+
+    private void decodeUntilClosed() {
+        while (!closed) {
+            if (haltRequested) {
+                halted = true;
+                LockSupport.unpark(output);
+                while (haltRequested && !closed) {// park可能虚假返回
+                    LockSupport.park(this);
+                }
+                halted = false;
+                continue;
+            }
+            byte[] block = ended ? null : ring.claim();
+            if (block == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            int length;
+            try {
+                length = reader.read(block);
+            } catch (IOException e) {
+                error = e;
+                length = -1;
+            } catch (RuntimeException e) {// 损坏的帧可能使解码器抛出运行时异常
+                error = new IOException(e);
+                length = -1;
+            }
+            ring.publish(length);
+            if (length == -1) {
+                ended = true;
+            }
+            LockSupport.unpark(output);
+        }
+    }
+
+    /**
+     * output:wait for the head block
+     * <p>
+     * 输出线程：等待头部块
+     *
+     * @return length,-1 for the end 数据长度，-1表示结束
+     * @throws IOException
+     *             when the decoder failed 解码失败时抛出
+     */
+    int await() throws IOException {
+        int length = ring.peekLength();
+        while (length == PcmRing.EMPTY) {
+            LockSupport.park(this);
+            length = ring.peekLength();
+        }
+        if (length == -1 && error != null) {
+            throw error;
+        }
+        return length;
+    }
+
+    /**
+     * output:the head block
+     * <p>
+     * 输出线程：头部块
+     */
+    byte[] block() {
+        return ring.peekBlock();
+    }
+
+    /**
+     * output:release the head block
+     * <p>
+     * 输出线程：释放头部块
+     */
+    void release() {
+        ring.release();
+        LockSupport.unpark(decoder);
+    }
+
+    /**
+     * output:halt the decoder,the stream is free to touch after
+     * <p>
+     * 输出线程：暂停解码线程，之后可操作音频流
+     */
+    void halt() {
+        haltRequested = true;
+        LockSupport.unpark(decoder);
+        while (!halted) {
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * output:drop the decoded blocks,only when halted
+     * <p>
+     * 输出线程：丢弃已解码的块，仅在暂停时调用
+     */
+    void clear() {
+        ring.clear();
+        ended = false;
+        error = null;
+    }
+
+    /**
+     * output:resume the halted decoder,it clears the halted flag itself when
+     * it leaves the halt
+     * <p>
+     * 输出线程：恢复已暂停的解码线程，解码线程离开暂停时自行清除暂停标记
+     */
+    void resume() {
+        haltRequested = false;
+        LockSupport.unpark(decoder);
+    }
+
+    /**
+     * output:stop the decoder and wait for it
+     * <p>
+     * 输出线程：停止解码线程并等待其结束
+     */
+    void close() {
+        closed = true;
+        LockSupport.unpark(decoder);
+        boolean interrupted = false;
+        while (decoder.isAlive()) {
+            try {
+                decoder.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    float fill() {
+        return (float) ring.size() / ring.capacity();
+    }
+}
@@ -0,0 +1,324 @@
+package com.thrblock.aria.music;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import com.thrblock.aria.sound.BufferCleaner;
+
+/**
+ * Read the track duration from the container headers without decoding
+ * <p>
+ * 从容器头读取音轨时长而无需解码
+ * <p>
+ * MP3 uses the Xing/Info (LAME) or VBRI header,or counts the frame headers
+ * when none.OGG uses the granule position of the last page,WAV uses the fact
+ * or data chunk.
+ * <p>
+ * MP3使用Xing/Info(LAME)或VBRI头，均不存在时统计帧头；OGG使用末页的granule位置；WAV使用fact或data块
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class DurationProbe {
+    /**
+     * The probed duration in source frames
+     * <p>
+     * 以源采样帧计的时长
+     */
+    static final class Duration {
+        final long frames;
+        final float sampleRate;
+
+        Duration(long frames, float sampleRate) {
+            this.frames = frames;
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * the decoded byte length of a decoded format
+         * <p>
+         * 指定解码格式下的解码字节数
+         *
+         * @param frameRate
+         *            解码帧率
+         * @param frameSize
+         *            解码帧字节数
+         * @return 解码字节数
+         */
+        long decodedLength(float frameRate, int frameSize) {
+            return Math.round(frames * (double) frameRate / sampleRate) * frameSize;
+        }
+    }
+
+    private static final int[][] MP3_BITRATES = {
+            { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 }, // V1 L1
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 }, // V1 L2
+            { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 }, // V1 L3
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 }, // V2 L1
+            { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 } }; // V2 L2/L3
+    private static final int[][] MP3_RATES = { { 11025, 12000, 8000 }, null, { 22050, 24000, 16000 },
+            { 44100, 48000, 32000 } };
+    private static final int OGG_TAIL_LENGTH = 64 * 1024;
+
+    private DurationProbe() {
+    }
+
+    /**
+     * probe a file by its extension
+     * <p>
+     * 按扩展名探测文件
+     *
+     * @param f
+     *            音频文件
+     * @return duration,null if unknown 时长，未知时为空
+     */
+    static Duration probe(File f) {
+        String name = f.getName().toLowerCase(Locale.ROOT);
+        if (!name.endsWith(".mp3") && !name.endsWith(".ogg") && !name.endsWith(".oga") && !name.endsWith(".wav")) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (name.endsWith(".mp3")) {
+                    return probeMp3(data);
+                } else if (name.endsWith(".wav")) {
+                    return probeWav(data);
+                } else {
+                    return probeOgg(data);
+                }
+            } finally {
+                BufferCleaner.free(data);// 不等待GC解除映射
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * the decoded byte length of an opened track,from the stream or else the
+     * container headers
+     * <p>
+     * 已打开音轨的解码字节总数，优先取自音频流，其次为容器头
+     *
+     * @param f
+     *            音频文件
+     * @param decoded
+     *            解码音频流
+     * @param decodedFormat
+     *            解码格式
+     * @return length,0 when unknown 解码字节总数，未知时为0
+     */
+    static long decodedLength(File f, AudioInputStream decoded, AudioFormat decodedFormat) {
+        long frames = decoded.getFrameLength();
+        if (frames > 0) {
+            return frames * decodedFormat.getFrameSize();
+        }
+        Duration duration = probe(f);
+        if (duration == null) {
+            return 0;
+        }
+        return duration.decodedLength(decodedFormat.getFrameRate(), decodedFormat.getFrameSize());
+    }
+
+    static Duration probeMp3(ByteBuffer data) {
+        int first = firstMp3Frame(data);
+        if (first < 0) {
+            return null;
+        }
+        int header = data.getInt(first);
+        Duration tagged = mp3Tag(data, first, header);
+        if (tagged != null) {
+            return tagged;
+        }
+        long frames = 0;
+        for (int pos = first; pos + 4 <= data.limit();) {
+            int h = data.getInt(pos);
+            int len = mp3FrameLength(h);
+            if (len <= 0 || !sameStream(header, h)) {
+                break;
+            }
+            frames++;
+            pos += len;
+        }
+        return new Duration(frames * mp3SamplesPerFrame(header), mp3SampleRate(header));
+    }
+
+    /**
+     * the offset of the first frame,after the ID3v2 tag
+     * <p>
+     * 首帧偏移，跳过ID3v2标签
+     */
+    static int firstMp3Frame(ByteBuffer data) {
+        int pos = 0;
+        while (data.limit() >= pos + 10 && data.get(pos) == 'I' && data.get(pos + 1) == 'D'
+                && data.get(pos + 2) == '3') {
+            int size = (data.get(pos + 6) & 0x7F) << 21 | (data.get(pos + 7) & 0x7F) << 14
+                    | (data.get(pos + 8) & 0x7F) << 7 | (data.get(pos + 9) & 0x7F);
+            boolean footer = (data.get(pos + 5) & 0x10) != 0;
+            pos += 10 + size + (footer ? 10 : 0);
+        }
+        for (; pos + 4 <= data.limit(); pos++) {
+            int h = data.getInt(pos);
+            int len = mp3FrameLength(h);
+            if (len > 0) {
+                int next = pos + len;
+                if (next + 4 > data.limit() || sameStream(h, data.getInt(next))) {
+                    return pos;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Duration mp3Tag(ByteBuffer data, int first, int header) {
+        boolean v1 = (header >>> 19 & 3) == 3;
+        boolean mono = (header >>> 6 & 3) == 3;
+        int crc = (header >>> 16 & 1) == 0 ? 2 : 0;
+        int xing = first + 4 + crc + (v1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+        int spf = mp3SamplesPerFrame(header);
+        float rate = mp3SampleRate(header);
+        // the tag frame itself is decoded as a silent frame,count it in
+        if (xing + 12 <= data.limit() && (tagIs(data, xing, "Xing") || tagIs(data, xing, "Info"))) {
+            int flags = data.getInt(xing + 4);
+            if ((flags & 1) != 0) {
+                return new Duration(((data.getInt(xing + 8) & 0xFFFFFFFFL) + 1) * spf, rate);
+            }
+        }
+        int vbri = first + 4 + 32;
+        if (vbri + 18 <= data.limit() && tagIs(data, vbri, "VBRI")) {
+            return new Duration(((data.getInt(vbri + 14) & 0xFFFFFFFFL) + 1) * spf, rate);
+        }
+        return null;
+    }
+
+    private static boolean tagIs(ByteBuffer data, int pos, String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            if (data.get(pos + i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the frame length of a header,-1 if not a valid header
+     * <p>
+     * 帧头对应的帧长，非法帧头时为-1
+     */
+    static int mp3FrameLength(int h) {
+        if ((h >>> 21 & 0x7FF) != 0x7FF) {
+            return -1;
+        }
+        int version = h >>> 19 & 3;
+        int layer = h >>> 17 & 3;
+        int bitrateIndex = h >>> 12 & 0xF;
+        int rateIndex = h >>> 10 & 3;
+        if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || rateIndex == 3) {
+            return -1;
+        }
+        int padding = h >>> 9 & 1;
+        int table = version == 3 ? 3 - layer : (layer == 3 ? 3 : 4);
+        int bitrate = MP3_BITRATES[table][bitrateIndex] * 1000;
+        int rate = MP3_RATES[version][rateIndex];
+        if (layer == 3) {
+            return (12 * bitrate / rate + padding) * 4;
+        }
+        int coefficient = layer == 1 && version != 3 ? 72 : 144;
+        return coefficient * bitrate / rate + padding;
+    }
+
+    static int mp3SamplesPerFrame(int h) {
+        int layer = h >>> 17 & 3;
+        if (layer == 3) {
+            return 384;
+        }
+        return layer == 1 && (h >>> 19 & 3) != 3 ? 576 : 1152;
+    }
+
+    static float mp3SampleRate(int h) {
+        return MP3_RATES[h >>> 19 & 3][h >>> 10 & 3];
+    }
+
+    /**
+     * same version,layer and sample rate
+     * <p>
+     * 版本、层与采样率相同
+     */
+    static boolean sameStream(int a, int b) {
+        return mp3FrameLength(b) > 0 && (a & 0xFFFE0C00) == (b & 0xFFFE0C00);
+    }
+
+    static Duration probeOgg(ByteBuffer data) {
+        if (data.limit() < 27 + 1 || !tagIs(data, 0, "OggS")) {
+            return null;
+        }
+        ByteBuffer le = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int serial = le.getInt(14);
+        float rate = 0;
+        int payload = 27 + (data.get(26) & 0xFF);
+        if (payload + 16 <= data.limit() && data.get(payload) == 1 && tagIs(data, payload + 1, "vorbis")) {
+            rate = le.getInt(payload + 12);
+        }
+        if (rate <= 0) {
+            return null;
+        }
+        int from = Math.max(0, data.limit() - OGG_TAIL_LENGTH);
+        for (int pos = data.limit() - 27; pos >= from; pos--) {
+            if (data.get(pos) == 'O' && tagIs(data, pos, "OggS") && data.get(pos + 4) == 0
+                    && le.getInt(pos + 14) == serial) {
+                long granule = le.getLong(pos + 6);
+                if (granule >= 0) {
+                    return new Duration(granule, rate);
+                }
+            }
+        }
+        return null;
+    }
+
+    static Duration probeWav(ByteBuffer data) {
+        if (data.limit() < 12 || !tagIs(data, 0, "RIFF") || !tagIs(data, 8, "WAVE")) {
+            return null;
+        }
+        ByteBuffer le = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int formatTag = 0;
+        int blockAlign = 0;
+        float rate = 0;
+        long factFrames = -1;
+        for (int pos = 12; pos + 8 <= data.limit();) {
+            long size = le.getInt(pos + 4) & 0xFFFFFFFFL;
+            if (tagIs(data, pos, "fmt ") && pos + 20 <= data.limit()) {
+                formatTag = le.getShort(pos + 8) & 0xFFFF;
+                rate = le.getInt(pos + 12);
+                blockAlign = le.getShort(pos + 20) & 0xFFFF;
+            } else if (tagIs(data, pos, "fact") && pos + 12 <= data.limit()) {
+                factFrames = le.getInt(pos + 8) & 0xFFFFFFFFL;
+            } else if (tagIs(data, pos, "data")) {
+                long available = data.limit() - pos - 8L;
+                long dataLength = size == 0 || size == 0xFFFFFFFFL ? available : Math.min(size, available);
+                boolean pcm = formatTag == 1 || formatTag == 3 || formatTag == 0xFFFE;
+                if (rate <= 0) {
+                    return null;
+                } else if (!pcm && factFrames >= 0) {
+                    return new Duration(factFrames, rate);
+                } else if (blockAlign > 0) {
+                    return new Duration(dataLength / blockAlign, rate);
+                }
+                return null;
+            }
+            pos += 8 + size + (size & 1);
+        }
+        return null;
+    }
+}
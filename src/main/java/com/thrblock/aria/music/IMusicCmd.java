@@ -14,4 +14,15 @@ interface IMusicCmd {
      * 运行指令
      */
     public void exec();
+
+    /**
+     * the key to coalesce,only the last pending command of a key runs
+     * <p>
+     * 合并键，同一键的待执行指令仅执行最后一个
+     * 
+     * @return key,null for no coalescing 合并键，为空时不合并
+     */
+    public default Object coalesceKey() {
+        return null;
+    }
 }
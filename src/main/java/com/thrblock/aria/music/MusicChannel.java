@@ -0,0 +1,501 @@
+package com.thrblock.aria.music;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.dsp.AudioProcessor;
+import com.thrblock.aria.dsp.GainProcessor;
+import com.thrblock.aria.dsp.ProcessorChain;
+import com.thrblock.aria.metrics.AriaMetrics;
+import com.thrblock.aria.sound.AudioFormatInfo;
+
+/**
+ * A music channel,a logical player run by the scheduler of a channel manager
+ * <p>
+ * 音乐通道，由通道管理器的调度线程驱动的逻辑播放器
+ * <p>
+ * The commands are queued and run by the scheduler,the channel owns no thread
+ * and no line.The file is opened on the loader pool of the manager,and the
+ * stream of the next loop is opened ahead while playing.
+ * <p>
+ * 指令进入队列并由调度线程执行，通道本身不占有线程与LINE；文件在管理器的加载线程池中打开，播放时提前打开下一次循环的音频流
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see MusicChannelManager
+ */
+public class MusicChannel {
+    private static final Logger LOG = LoggerFactory.getLogger(MusicChannel.class);
+
+    private final MusicChannelManager manager;
+    private final IDecoder decoder;
+    private final Queue<IMusicCmd> cmdQueue = new ConcurrentLinkedQueue<>();
+
+    private File srcFile;
+    private AudioFormat decodedFormat;
+    private AudioFormatInfo formatInfo;
+    private AudioInputStream audioInput;
+    /**
+     * the stream opening on the loader pool,for the init or the next loop
+     * <p>
+     * 在加载线程池中打开的音频流，供初始化或下一次循环使用
+     */
+    private CompletableFuture<Opened> next;
+    private volatile long currentPlayed;
+    private volatile long totalLength;
+    private boolean playFlag = false;
+    private boolean pauseFlag = false;
+    private int loopTime = 0;
+    private final GainProcessor softGain = new GainProcessor();
+    private final ProcessorChain processors = new ProcessorChain();
+    private final ProcessorChain outputChain = new ProcessorChain().add(softGain).add(processors);
+    private final ProgressDispatcher progress = new ProgressDispatcher();
+    private MusicProgressListener progressListener;
+
+    MusicChannel(MusicChannelManager manager, IDecoder decoder) {
+        this.manager = manager;
+        this.decoder = decoder;
+    }
+
+    /**
+     * init a music file
+     * <p>
+     * 初始化一个音频文件
+     *
+     * @param srcFile
+     *            src audio file 音频文件
+     */
+    public void initMusic(File srcFile) {
+        offer(() -> {
+            if (!playFlag) {
+                closeQuietly();
+                this.srcFile = srcFile;
+                openNext();
+            }
+        });
+    }
+
+    /**
+     * play and loop
+     * <p>
+     * 播放并设置循环次数，循环次数为实际播放次数 + 1
+     *
+     * @param loopTime
+     *            loop times,-1 means forever 循环次数，-1为永远循环
+     */
+    public void play(int loopTime) {
+        offer(() -> {
+            if (!playFlag && srcFile != null) {
+                playFlag = true;
+                pauseFlag = false;
+                this.loopTime = loopTime;
+                progress.event(MusicEvent.START);
+            }
+        });
+    }
+
+    /**
+     * play once<p>
+     * 播放一次
+     */
+    public void play() {
+        play(0);
+    }
+
+    /**
+     * pause<p>
+     * 暂停
+     */
+    public void pause() {
+        offer(() -> {
+            if (playFlag) {
+                pauseFlag = true;
+            }
+        });
+    }
+
+    /**
+     * remuse<p>
+     * 恢复
+     */
+    public void remuse() {
+        offer(() -> pauseFlag = false);
+    }
+
+    /**
+     * stop,the music is inited again for the next play<p>
+     * 停止，音频将重新初始化以供下次播放
+     */
+    public void stop() {
+        offer(() -> {
+            if (playFlag) {
+                playFlag = false;
+                pauseFlag = false;
+                loopTime = 0;
+                progress.event(MusicEvent.END);
+                reopen();
+            }
+        });
+    }
+
+    /**
+     * set audio volume in decibel,ramped from the next mixed block<p>
+     * 设置以分贝计的音量，自下一混音块起渐变生效
+     *
+     * @param volume
+     *            音量
+     * @see #getMinVolume() 获得音量最小值
+     * @see #getMaxVolume() 获得音量最大值
+     */
+    public void setVolume(float volume) {
+        softGain.setGainDb(volume);
+    }
+
+    /**
+     * get current volume<p>
+     * 获得当前音量
+     *
+     * @return 当前音量
+     */
+    public float getVolume() {
+        return softGain.getGainDb();
+    }
+
+    /**
+     * get the max volume<p>
+     * 获得音量的最大值
+     *
+     * @return 音量最大值
+     */
+    public float getMaxVolume() {
+        return GainProcessor.MAX_DB;
+    }
+
+    /**
+     * get the min volume<p>
+     * 获得音量的最小值
+     *
+     * @return 音量最小值
+     */
+    public float getMinVolume() {
+        return GainProcessor.MIN_DB;
+    }
+
+    /**
+     * get current played in bytes of raw data<p>
+     * 获得当前解码字节播放数
+     *
+     * @return 解码字节播放数
+     */
+    public long getCurrentPlayed() {
+        return currentPlayed;
+    }
+
+    /**
+     * get current total in bytes of raw data,0 when the headers do not tell<p>
+     * 获得当前解码字节总数，容器头无长度信息时为0
+     *
+     * @return 解码字节总数
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * get the processors run on the decoded data before mixing,they can be
+     * added and removed while playing<p>
+     * 获得混音前对解码数据执行的处理链，播放时可增删处理器
+     *
+     * @return 处理链
+     */
+    public ProcessorChain getProcessors() {
+        return processors;
+    }
+
+    /**
+     * set progress listener,called on the dispatch thread with the latest
+     * position
+     * <p>
+     * 设定进度监听器，在分发线程中以最新位置调用
+     *
+     * @param progressListener
+     *            进度监听器，可由lambda构造
+     * @see #getProgressDispatcher() 加入更多监听器
+     */
+    public synchronized void setProgressListener(MusicProgressListener progressListener) {
+        if (this.progressListener != null) {
+            progress.removeProgressListener(this.progressListener);
+        }
+        this.progressListener = progressListener;
+        if (progressListener != null) {
+            progress.addProgressListener(progressListener);
+        }
+    }
+
+    /**
+     * get the dispatcher of the progress and the start,end and loop events
+     * <p>
+     * 获得进度与开始、结束、循环事件的分发器
+     *
+     * @return 进度分发器
+     */
+    public ProgressDispatcher getProgressDispatcher() {
+        return progress;
+    }
+
+    private void offer(IMusicCmd cmd) {
+        cmdQueue.offer(cmd);
+        manager.wakeUp();
+    }
+
+    /**
+     * scheduler:run the pending commands
+     * <p>
+     * 调度线程：执行待执行指令
+     */
+    void processCmds() {
+        for (IMusicCmd cmd = cmdQueue.poll(); cmd != null; cmd = cmdQueue.poll()) {
+            cmd.exec();
+        }
+        if (audioInput == null && next != null && next.isDone()) {
+            adoptNext();
+        }
+    }
+
+    /**
+     * scheduler:whether the channel outputs data
+     * <p>
+     * 调度线程：通道是否输出数据
+     */
+    boolean isActive() {
+        return playFlag && !pauseFlag && audioInput != null;
+    }
+
+    /**
+     * scheduler:whether the channel is paused with its stream open
+     * <p>
+     * 调度线程：通道是否在音频流打开时暂停
+     */
+    boolean isPaused() {
+        return playFlag && pauseFlag && audioInput != null;
+    }
+
+    AudioFormat getDecodedFormat() {
+        return decodedFormat;
+    }
+
+    AudioFormatInfo getFormatInfo() {
+        return formatInfo;
+    }
+
+    /**
+     * the volume and the processors
+     * <p>
+     * 音量与处理链
+     */
+    AudioProcessor getOutputChain() {
+        return outputChain;
+    }
+
+    /**
+     * scheduler:read decoded data,the loops are handled here and the channel
+     * stops at the last end
+     * <p>
+     * 调度线程：读取解码数据，在此处理循环，最后一次结束时通道停止
+     *
+     * @return the length read,less than asked when stopped 读取字节数，停止时小于请求长度
+     */
+    int read(byte[] dst, int len) {
+        int length = 0;
+        while (length < len && playFlag && audioInput != null) {
+            int realRead;
+            try {
+                realRead = audioInput.read(dst, length, len - length);
+            } catch (IOException e) {
+                LOG.info("Exception in channel read:" + e);
+                realRead = -1;
+                loopTime = 0;
+            }
+            if (realRead > 0) {
+                length += realRead;
+                currentPlayed += realRead;
+            } else if (realRead == -1) {
+                progress.publish(currentPlayed, totalLength);
+                if (loopTime == 0) {
+                    playFlag = false;
+                    progress.event(MusicEvent.END);
+                } else {
+                    if (loopTime > 0) {
+                        loopTime--;
+                    }
+                    progress.event(MusicEvent.LOOP);
+                }
+                reopen();
+            } else {
+                break;
+            }
+        }
+        if (length > 0) {
+            AriaMetrics.get().decodedBytes().add(length);
+        }
+        if (length > 0 && playFlag) {
+            progress.publish(currentPlayed, totalLength);
+        }
+        return length;
+    }
+
+    /**
+     * scheduler:close the stream
+     * <p>
+     * 调度线程：关闭音频流
+     */
+    void close() {
+        playFlag = false;
+        closeQuietly();
+    }
+
+    /**
+     * scheduler:start to open the file on the loader pool
+     * <p>
+     * 调度线程：在加载线程池中开始打开文件
+     */
+    private void openNext() {
+        File f = srcFile;
+        CompletableFuture<Opened> future = new CompletableFuture<>();
+        next = future;
+        try {
+            manager.opener().execute(() -> {
+                try {
+                    Opened opened = Opened.open(f, decoder);
+                    if (!future.complete(opened)) {
+                        opened.close();
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                } finally {
+                    manager.wakeUp();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * scheduler:take the opened stream and open the one of the next loop
+     * <p>
+     * 调度线程：取用已打开的音频流并打开下一次循环的音频流
+     */
+    private void adoptNext() {
+        Opened opened;
+        try {
+            opened = next.join();
+        } catch (CompletionException | CancellationException e) {
+            LOG.info("Exception in init:" + e.getCause());
+            next = null;
+            srcFile = null;
+            if (playFlag) {
+                playFlag = false;
+                progress.event(MusicEvent.END);
+            }
+            return;
+        }
+        this.decodedFormat = opened.format;
+        this.formatInfo = opened.formatInfo;
+        this.audioInput = opened.input;
+        this.currentPlayed = 0;
+        this.totalLength = opened.totalLength;
+        progress.publish(currentPlayed, totalLength);
+        openNext();
+    }
+
+    /**
+     * scheduler:close the stream played and take the next one,which is
+     * usually opened by now
+     * <p>
+     * 调度线程：关闭已播放的音频流并取用下一个，通常此时已打开完毕
+     */
+    private void reopen() {
+        closeInput();
+        if (next != null && next.isDone()) {
+            adoptNext();
+        }
+    }
+
+    private void closeQuietly() {
+        closeInput();
+        if (next != null) {
+            next.cancel(false);
+            next.thenAccept(Opened::close);
+            next = null;
+        }
+        srcFile = null;
+    }
+
+    private void closeInput() {
+        if (audioInput != null) {
+            try {
+                audioInput.close();
+            } catch (IOException e) {
+                LOG.info("IOException in stream close:" + e);
+            }
+            audioInput = null;
+        }
+    }
+
+    /**
+     * A stream opened on the loader pool
+     * <p>
+     * 在加载线程池中打开的音频流
+     */
+    private static final class Opened {
+        private final AudioInputStream input;
+        private final AudioFormat format;
+        private final AudioFormatInfo formatInfo;
+        private final long totalLength;
+
+        private Opened(AudioInputStream input, AudioFormat format, long totalLength) {
+            this.input = input;
+            this.format = format;
+            this.formatInfo = new AudioFormatInfo(format);
+            this.totalLength = totalLength;
+        }
+
+        static Opened open(File srcFile, IDecoder decoder) throws UnsupportedAudioFileException, IOException {
+            AudioInputStream srcInput = AudioSystem.getAudioInputStream(srcFile);
+            try {
+                AudioFormat format = decoder.getDecodedAudioFormat(srcInput.getFormat());
+                AudioInputStream decoded = decoder.getDecodedAudioInputStream(srcInput);
+                return new Opened(decoded, format, DurationProbe.decodedLength(srcFile, decoded, format));
+            } catch (RuntimeException e) {
+                srcInput.close();
+                throw e;
+            }
+        }
+
+        void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                LOG.info("IOException in stream close:" + e);
+            }
+        }
+    }
+}
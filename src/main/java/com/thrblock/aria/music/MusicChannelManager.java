@@ -0,0 +1,436 @@
+package com.thrblock.aria.music;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PreDestroy;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.dsp.SampleBuffer;
+import com.thrblock.aria.metrics.AriaMetrics;
+import com.thrblock.aria.sink.AudioSink;
+import com.thrblock.aria.sink.JavaSoundSink;
+import com.thrblock.aria.sound.SoundExecutors;
+
+/**
+ * Run many music channels on one scheduler thread
+ * <p>
+ * 在单个调度线程上运行多个音乐通道
+ * <p>
+ * The playing channels of the same 16 bit pcm format are mixed into one line
+ * after their own volume and processors,a channel of any other format gets a line of its own.
+ * The scheduler writes only what each line can take and parks in between,so
+ * no line blocks the others.The files are opened on a loader pool,and a line
+ * left without playing channels is kept for a grace period and closed without
+ * draining.
+ * <p>
+ * 相同16位PCM格式的播放中通道经各自音量与处理链后混合至同一LINE，其他格式的通道独占一条LINE；
+ * 调度线程仅写入各LINE可接收的数据量，其间挂起等待，因此各LINE互不阻塞；
+ * 文件在加载线程池中打开，无播放中通道的LINE保留一段宽限期后不经排空直接关闭
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see MusicChannel
+ */
+@Component
+@Lazy(true)
+public class MusicChannelManager implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(MusicChannelManager.class);
+    /**
+     * This is the cache size for data line
+     * <p>
+     * 底层播放缓冲区设置
+     */
+    private static final int LINE_CACHE_LENGTH = 32 * 1024;
+    /**
+     * the mix block size
+     * <p>
+     * 混音块大小
+     */
+    private static final int MIX_BLOCK_LENGTH = 4 * 1024;
+    /**
+     * the park between two pumps while playing
+     * <p>
+     * 播放时两次写入间的挂起时长
+     */
+    private static final long PUMP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /**
+     * the park while only idle lines are kept
+     * <p>
+     * 仅保留空闲LINE时的挂起时长
+     */
+    private static final long IDLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * an idle line is kept this long for the resume or the next play,longer
+     * than the line buffer so the tail of an ended track plays out
+     * <p>
+     * 空闲LINE保留时长，供恢复或下次播放复用，长于LINE缓冲区以播完结束音轨的尾部
+     */
+    private static final long OUTPUT_GRACE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int OPENER_PARALLELISM = 2;
+
+    @Autowired
+    private IDecoder decoder;
+    /**
+     * the sink of the lines,default the Java Sound device
+     * <p>
+     * LINE的输出端，默认为Java Sound设备
+     */
+    @Autowired(required = false)
+    private volatile AudioSink sink = new JavaSoundSink();
+
+    private final List<MusicChannel> channels = new CopyOnWriteArrayList<>();
+    private final Queue<MusicChannel> removed = new ConcurrentLinkedQueue<>();
+    /**
+     * the outputs by format,or by channel when the format can not be mixed
+     * <p>
+     * 按格式划分的输出，格式不可混合时按通道划分
+     */
+    private final Map<Object, Output> outputs = new HashMap<>();
+    private final byte[] channelCache = new byte[MIX_BLOCK_LENGTH];
+    private final SampleBuffer samples = new SampleBuffer(MIX_BLOCK_LENGTH / 2);
+    private final ExecutorService opener = SoundExecutors.loader(OPENER_PARALLELISM);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * For Spring IOC use only.
+     * <p>
+     * 仅供Spring IOC容器 使用
+     */
+    private MusicChannelManager() {
+        thread = new Thread(this);
+        thread.setName("Aria Music Channels");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Build a channel manager with the given decoder
+     * <p>
+     * 构造一个通道管理器 使用指定的解码器实例
+     *
+     * @param decoder
+     *            解码器实例
+     */
+    public MusicChannelManager(IDecoder decoder) {
+        this();
+        this.decoder = decoder;
+    }
+
+    /**
+     * create a channel run by this manager
+     * <p>
+     * 创建由此管理器驱动的通道
+     *
+     * @return 音乐通道
+     */
+    public MusicChannel createChannel() {
+        MusicChannel channel = new MusicChannel(this, decoder);
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * remove a channel,its stream is closed by the scheduler
+     * <p>
+     * 移除通道，其音频流由调度线程关闭
+     *
+     * @param channel
+     *            音乐通道
+     */
+    public void removeChannel(MusicChannel channel) {
+        removed.offer(channel);
+        wakeUp();
+    }
+
+    /**
+     * set the sink,used from the next line opened
+     * <p>
+     * 设置输出端，自下一条打开的LINE起生效
+     *
+     * @param sink
+     *            输出端
+     */
+    public void setSink(AudioSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * get the sink
+     * <p>
+     * 获得输出端
+     *
+     * @return 输出端
+     */
+    public AudioSink getSink() {
+        return sink;
+    }
+
+    /**
+     * get the channel count
+     * <p>
+     * 获得通道数
+     *
+     * @return 通道数
+     */
+    public int getChannelCount() {
+        return channels.size();
+    }
+
+    /**
+     * stop the scheduler,all the channels and lines are closed.Auto destroy
+     * when use spring
+     * <p>
+     * 停止调度线程并关闭所有通道与LINE，Spring IOC控制时自动进行
+     */
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    void wakeUp() {
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * the pool opening the files of the channels
+     * <p>
+     * 打开通道文件的线程池
+     */
+    Executor opener() {
+        return opener;
+    }
+
+    @Override
+    public void run() {
+        AriaMetrics.get().activeThreads().increment();
+        while (running) {
+            for (MusicChannel channel = removed.poll(); channel != null; channel = removed.poll()) {
+                if (channels.remove(channel)) {
+                    channel.close();
+                    channel.getProgressDispatcher().close();
+                }
+            }
+            boolean playing = false;
+            for (MusicChannel channel : channels) {
+                channel.processCmds();
+                if (channel.isActive()) {
+                    outputOf(channel).members.add(channel);
+                    playing = true;
+                } else if (channel.isPaused()) {
+                    Output output = outputs.get(keyOf(channel));
+                    if (output != null) {
+                        output.held = true;
+                    }
+                }
+            }
+            long now = System.nanoTime();
+            for (Iterator<Output> it = outputs.values().iterator(); it.hasNext();) {
+                Output output = it.next();
+                if (!output.members.isEmpty()) {
+                    output.pump();
+                    output.members.clear();
+                } else if (output.idle(now)) {
+                    output.close();
+                    it.remove();
+                }
+                output.held = false;
+            }
+            if (playing) {
+                LockSupport.parkNanos(this, PUMP_INTERVAL_NANOS);
+            } else if (!outputs.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_INTERVAL_NANOS);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        for (Output output : outputs.values()) {
+            output.close();
+        }
+        outputs.clear();
+        for (MusicChannel channel : channels) {
+            channel.processCmds();
+            channel.close();
+            channel.getProgressDispatcher().close();
+        }
+        opener.shutdown();
+        AriaMetrics.get().activeThreads().decrement();
+    }
+
+    private Object keyOf(MusicChannel channel) {
+        return SampleBuffer.supports(channel.getDecodedFormat()) ? channel.getFormatInfo() : channel;
+    }
+
+    private Output outputOf(MusicChannel channel) {
+        Object key = keyOf(channel);
+        Output output = outputs.get(key);
+        if (output == null) {
+            output = new Output(channel.getDecodedFormat());
+            outputs.put(key, output);
+        }
+        return output;
+    }
+
+    /**
+     * A line and the channels mixed into it
+     * <p>
+     * 一条LINE及混合至其中的通道
+     */
+    private class Output {
+        private final AudioFormat format;
+        private final List<MusicChannel> members = new ArrayList<>();
+        private final int blockLength;
+        private final byte[] outCache;
+        private final int[] mixCache;
+        private final boolean mixable;
+        private final boolean realtime;
+        private SourceDataLine line;
+        private boolean written;
+        /**
+         * a paused channel plays through this output when resumed
+         * <p>
+         * 有暂停中的通道恢复后经此输出播放
+         */
+        private boolean held;
+        private boolean stopped;
+        private boolean idling;
+        private long idleSince;
+
+        Output(AudioFormat format) {
+            this.format = format;
+            this.blockLength = MIX_BLOCK_LENGTH - MIX_BLOCK_LENGTH % format.getFrameSize();
+            this.outCache = new byte[blockLength];
+            this.mixCache = new int[blockLength / 2];
+            this.mixable = SampleBuffer.supports(format);
+            AudioSink lineSink = sink;
+            this.realtime = lineSink.isRealtime();
+            try {
+                long ts = System.nanoTime();
+                SourceDataLine.Info info = new DataLine.Info(SourceDataLine.class, format, LINE_CACHE_LENGTH);
+                line = lineSink.getLine(info);
+                line.open(format, LINE_CACHE_LENGTH);
+                AriaMetrics metrics = AriaMetrics.get();
+                metrics.lineOpenNanos().record(System.nanoTime() - ts);
+                metrics.openLines().increment();
+                line.start();
+            } catch (LineUnavailableException | IllegalArgumentException e) {
+                LOG.info("Exception in line operation:" + e);
+                line = null;
+            }
+        }
+
+        /**
+         * mix and write the blocks the line can take now,at most one buffer
+         * when the sink is not realtime as a free-running line takes all
+         * <p>
+         * 混合并写入LINE当前可接收的块，非实时输出端的LINE可无限接收，每次至多写入一个缓冲区
+         */
+        void pump() {
+            if (line == null) {
+                for (MusicChannel channel : members) {
+                    channel.close();
+                }
+                return;
+            }
+            idling = false;
+            if (stopped) {
+                line.start();
+                stopped = false;
+            }
+            if (realtime && written && line.available() >= line.getBufferSize()) {// 两次写入之间LINE已播空
+                AriaMetrics.get().lineUnderruns().increment();
+            }
+            int blocks = realtime ? Integer.MAX_VALUE : Math.max(1, line.getBufferSize() / blockLength);
+            while (blocks-- > 0 && line.available() >= blockLength) {
+                int length = mixable ? mixBlock() : copyBlock();
+                if (length <= 0) {
+                    written = false;
+                    return;
+                }
+                written = true;
+                line.write(outCache, 0, length);
+            }
+        }
+
+        private int mixBlock() {
+            for (int i = 0; i < mixCache.length; i++) {
+                mixCache[i] = 0;
+            }
+            boolean bigEndian = format.isBigEndian();
+            int maxRead = 0;
+            for (MusicChannel channel : members) {
+                int realRead = channel.read(channelCache, blockLength);
+                samples.apply(channel.getOutputChain(), channelCache, 0, realRead, format);
+                for (int i = 0; i < realRead / 2; i++) {
+                    mixCache[i] += SampleBuffer.readSample(channelCache, i * 2, bigEndian);
+                }
+                maxRead = Math.max(maxRead, realRead);
+            }
+            for (int i = 0; i < maxRead / 2; i++) {
+                SampleBuffer.writeSample(outCache, i * 2, mixCache[i], bigEndian);
+            }
+            return maxRead;
+        }
+
+        private int copyBlock() {
+            int maxRead = 0;
+            for (MusicChannel channel : members) {
+                maxRead = channel.read(outCache, blockLength);
+            }
+            return maxRead;
+        }
+
+        /**
+         * no channel plays through now,a line held by a paused channel is
+         * stopped and flushed,the one of ended channels plays its tail out
+         * <p>
+         * 当前无通道播放，被暂停通道占用的LINE停止并清空，已结束通道的LINE继续播完尾部
+         *
+         * @return 宽限期已过，可关闭
+         */
+        boolean idle(long now) {
+            if (line == null) {
+                return true;
+            }
+            if (!idling) {
+                idling = true;
+                idleSince = now;
+                written = false;
+            }
+            if (held && !stopped) {
+                line.stop();
+                line.flush();
+                stopped = true;
+            }
+            return now - idleSince >= OUTPUT_GRACE_NANOS;
+        }
+
+        void close() {
+            if (line != null) {
+                line.close();
+                AriaMetrics.get().openLines().decrement();
+            }
+        }
+    }
+}
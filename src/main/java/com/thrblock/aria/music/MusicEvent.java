@@ -0,0 +1,35 @@
+package com.thrblock.aria.music;
+
+/**
+ * The playback events,dispatched in the order they happen
+ * <p>
+ * 播放事件，按发生顺序分发
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public enum MusicEvent {
+    /**
+     * a track ended,or was stopped or skipped
+     * <p>
+     * 音轨结束、被停止或被跳过
+     */
+    END,
+    /**
+     * a track started
+     * <p>
+     * 音轨开始播放
+     */
+    START,
+    /**
+     * a track looped to its loop start
+     * <p>
+     * 音轨循环回到循环起点
+     */
+    LOOP,
+    /**
+     * the line played out before the next data was written
+     * <p>
+     * 写入下一数据前LINE已播空
+     */
+    UNDERRUN
+}
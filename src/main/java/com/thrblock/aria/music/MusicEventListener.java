@@ -0,0 +1,17 @@
+package com.thrblock.aria.music;
+
+/**
+ * The music event listener
+ * <p>
+ * 播放事件监听器
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@FunctionalInterface
+public interface MusicEventListener {
+    /**
+     * @param event
+     *            播放事件
+     */
+    public void onEvent(MusicEvent event);
+}
@@ -1,9 +1,18 @@
 package com.thrblock.aria.music;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.PreDestroy;
 import javax.sound.sampled.AudioFormat;
@@ -22,6 +31,13 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.dsp.GainProcessor;
+import com.thrblock.aria.dsp.ProcessorChain;
+import com.thrblock.aria.dsp.SampleBuffer;
+import com.thrblock.aria.metrics.AriaMetrics;
+import com.thrblock.aria.sink.AudioSink;
+import com.thrblock.aria.sink.JavaSoundSink;
+import com.thrblock.aria.sound.SoundExecutors;
 
 /**
  * The music player,which load a bit music raw data into cache and play it.
@@ -43,26 +59,50 @@ public class MusicPlayer implements Runnable {
      */
     @Autowired
     private IDecoder decoder;
+    /**
+     * The sink of the lines,default the Java Sound device
+     * <p>
+     * LINE的输出端，默认为Java Sound设备
+     */
+    @Autowired(required = false)
+    private volatile AudioSink sink = new JavaSoundSink();
 
     /**
-     * This prievent a empty-full loop in cpu
+     * coalesce key of the volume commands
      * <p>
-     * 敏感性参数，防止CPU被循环占满
+     * 音量指令的合并键
      */
-    private static final int SENCITIVE = 10;
+    private static final String VOLUME_KEY = "volume";
+    /**
+     * coalesce key of the seek commands
+     * <p>
+     * 定位指令的合并键
+     */
+    private static final String SEEK_KEY = "seek";
     /**
      * This is the cache size for data line
      * <p>
      * 底层播放缓冲区设置
      */
-    private static final int LINE_CACHE_LENGTH = 512 * 1024; // 512 KB Line
-                                                             // Cache
+    private static final int LINE_CACHE_LENGTH = 64 * 1024; // 64 KB Line Cache
     /**
      * This is the cache size for raw data
      * <p>
      * 音频流缓冲区设置
      */
     private static final int DATA_CACHE_LENGTH = 16 * 1024; // 16 KB Data Cache
+    /**
+     * The blocks decoded ahead of the line
+     * <p>
+     * 提前解码的块数
+     */
+    private static final int RING_BLOCKS = 16; // 256 KB Decoded Ahead
+    /**
+     * The seconds of the next track decoded ahead
+     * <p>
+     * 下一音轨提前解码的秒数
+     */
+    private static final float PREFETCH_SECONDS = 1f;
     /**
      * This is the logger
      * <p>
@@ -82,13 +122,19 @@ public class MusicPlayer implements Runnable {
      * <p>
      * 当前播放的解码字节数，默认为0
      */
-    private long currentPlayed;
+    private volatile long currentPlayed;
+    /**
+     * The decoded position of the stream,ahead of the played position
+     * <p>
+     * 音频流的解码位置，领先于播放位置
+     */
+    private long readPosition;
     /**
      * The total length of raw data
      * <p>
-     * 当前音乐的解码字节总数，初始化前为0
+     * 当前音乐的解码字节总数，初始化前为0，后台检测完成前也可能为0
      */
-    private long totalLength;
+    private volatile long totalLength;
 
     /**
      * Current file
@@ -102,6 +148,32 @@ public class MusicPlayer implements Runnable {
      * 当前的音量控制面板，初始化前可能为空
      */
     private FloatControl currentContorl;
+    /**
+     * The volume in decibel,applied to each line opened
+     * <p>
+     * 以分贝计的音量，应用于每条打开的LINE
+     */
+    private volatile float volume = 0;
+    /**
+     * The volume last set,read before the player thread applies it
+     * <p>
+     * 最后设置的音量，可在播放线程应用前读取
+     */
+    private volatile float requestedVolume = 0;
+    /**
+     * The gain used when the line has no master gain control
+     * <p>
+     * LINE无主增益控制时使用的软件增益
+     */
+    private final GainProcessor softGain = new GainProcessor();
+    /**
+     * The processors run on the decoded data before the line
+     * <p>
+     * 写入LINE前对解码数据执行的处理链
+     */
+    private final ProcessorChain processors = new ProcessorChain();
+    private final ProcessorChain outputChain = new ProcessorChain().add(softGain).add(processors);
+    private final SampleBuffer samples = new SampleBuffer(DATA_CACHE_LENGTH / 2);
     /**
      * The audio inputstream
      * <p>
@@ -142,25 +214,164 @@ public class MusicPlayer implements Runnable {
      */
     private byte[] cache = new byte[DATA_CACHE_LENGTH];
     /**
-     * raw data cache
+     * The background length detect thread,a detect discards its result once
+     * replaced
+     * <p>
+     * 后台长度检测线程，被替换后的检测将丢弃结果
+     */
+    private volatile Thread lengthDetector;
+
+    /**
+     * The flag to mark the stream replaced by a seek,the data read before is
+     * discarded
+     * <p>
+     * 定位标记，音频流已被定位替换，之前读取的数据将被丢弃
+     */
+    private boolean seeked = false;
+
+    /**
+     * Gapless loop,the line is kept open and the next iteration is primed
+     * <p>
+     * 无缝循环，保持LINE打开并预先准备下一次循环
+     */
+    private boolean gaplessLoop = false;
+    /**
+     * loop start in sample frames
+     * <p>
+     * 循环起点，以采样帧计
+     */
+    private long loopStartFrame = 0;
+    /**
+     * loop end in sample frames,-1 for the end of the track
+     * <p>
+     * 循环终点，以采样帧计，-1为音轨结尾
+     */
+    private long loopEndFrame = -1;
+    /**
+     * The next iteration priming on the loader,may be null
+     * <p>
+     * 在加载线程中准备的下一次循环，可能为空
+     */
+    private CompletableFuture<Primed> primed;
+    /**
+     * The primed block taken over by the current stream,read before the stream
+     * <p>
+     * 当前音频流接管的预解码数据，先于音频流读取
+     */
+    private byte[] pending = new byte[DATA_CACHE_LENGTH];
+    private int pendingLength = 0;
+
+    /**
+     * The ring between the decoder thread and the player thread
+     * <p>
+     * 解码线程与播放线程间的环形缓冲区
+     */
+    private final PcmRing ring = new PcmRing(RING_BLOCKS, DATA_CACHE_LENGTH);
+    /**
+     * The decoder of the current pass,null when not playing
      * <p>
-     * 解码字节预估缓冲区
+     * 当前播放的解码线程，未播放时为空
      */
-    private byte[] skipUse = new byte[DATA_CACHE_LENGTH];
+    private volatile DecodeAhead decodeAhead;
 
     /**
-     * The command queue
+     * The playlist,used by the player thread only
+     * <p>
+     * 播放列表，仅由播放线程使用
+     */
+    private final List<File> playlist = new ArrayList<>();
+    /**
+     * The playlist position of the current track,-1 when the track is not
+     * from the playlist
+     * <p>
+     * 当前音轨在播放列表中的位置，非播放列表音轨时为-1
+     */
+    private volatile int playlistIndex = -1;
+    /**
+     * The track to switch to requested by next or previous,-1 for none
      * <p>
-     * 命令队列
+     * 由上一首或下一首请求切换的音轨，无请求时为-1
      */
-    private Queue<IMusicCmd> cmdQueue = new ConcurrentLinkedQueue<>();
+    private int requestedTrack = -1;
+    /**
+     * The flag to mark the current track skipped
+     * <p>
+     * 跳过标记，当前音轨已被跳过
+     */
+    private boolean trackSkipped = false;
+    /**
+     * crossfade between the tracks in millisecond,0 for gapless
+     * <p>
+     * 音轨间交叉淡化毫秒数，为0时无缝衔接
+     */
+    private int crossfadeMillis = 0;
+    /**
+     * The next track opened and decoded ahead,taken over by the player thread,
+     * may be null
+     * <p>
+     * 预先打开并解码的下一音轨，已由播放线程接管，可能为空
+     */
+    private TrackPrefetch prefetch;
+    /**
+     * The next track prefetching on the loader,may be null
+     * <p>
+     * 在加载线程中预取的下一音轨，可能为空
+     */
+    private CompletableFuture<TrackPrefetch> prefetching;
+    private int prefetchingIndex = -1;
+    /**
+     * The playlist position failed to prefetch,not retried
+     * <p>
+     * 预取失败的播放列表位置，不再重试
+     */
+    private int prefetchFailed = -1;
+    /**
+     * The next track data mixed into the crossfade
+     * <p>
+     * 交叉淡化中混入的下一音轨数据
+     */
+    private byte[] mixCache = new byte[DATA_CACHE_LENGTH];
 
     /**
-     * The progress listener
+     * The command queue,the player thread blocks on it while idle or paused
      * <p>
-     * 进度监听器
+     * 命令队列，空闲或暂停时播放线程阻塞等待
      */
+    private BlockingQueue<QueuedCmd> cmdQueue = new LinkedBlockingQueue<>();
+    /**
+     * The commands drained at a buffer boundary,used by the player thread only
+     * <p>
+     * 在缓冲区边界取出的指令，仅由播放线程使用
+     */
+    private List<QueuedCmd> drained = new ArrayList<>();
+    /**
+     * The sinks holding the render for the commands run,released once the
+     * line shows them,used by the player thread only
+     * <p>
+     * 因已执行指令而暂停渲染的输出端，LINE体现指令效果后释放，仅由播放线程使用
+     */
+    private final List<AudioSink> held = new ArrayList<>();
+
+    /**
+     * The progress and the events,dispatched off the play thread
+     * <p>
+     * 进度与事件，在播放线程之外分发
+     */
+    private final ProgressDispatcher progress = new ProgressDispatcher();
     private MusicProgressListener progressListener;
+    /**
+     * The loader opening the streams off the player thread
+     * <p>
+     * 在播放线程之外打开音频流的加载线程
+     */
+    private final ExecutorService loader = SoundExecutors.loader(1);
+    /**
+     * the next line continues a loop,no start event
+     * <p>
+     * 下一条LINE延续循环播放，不产生开始事件
+     */
+    private boolean looping;
+    private final Thread thread;
 
     /**
      * For Spring IOC use only.
@@ -168,7 +379,8 @@ public class MusicPlayer implements Runnable {
      * 仅供Spring IOC容器 使用
      */
     private MusicPlayer() {
-        new Thread(this).start();
+        thread = new Thread(this);
+        thread.start();
     }
 
     /**
@@ -185,15 +397,35 @@ public class MusicPlayer implements Runnable {
     }
 
     /**
-     * set progress listener
+     * set progress listener,called on the dispatch thread with the latest
+     * position
      * <p>
-     * 设定进度监听器
+     * 设定进度监听器，在分发线程中以最新位置调用
      * 
      * @param progressListener
      *            进度监听器，可由lambda构造
+     * @see #getProgressDispatcher() 加入更多监听器
      */
-    public void setProgressListener(MusicProgressListener progressListener) {
+    public synchronized void setProgressListener(MusicProgressListener progressListener) {
+        if (this.progressListener != null) {
+            progress.removeProgressListener(this.progressListener);
+        }
         this.progressListener = progressListener;
+        if (progressListener != null) {
+            progress.addProgressListener(progressListener);
+        }
+    }
+
+    /**
+     * get the dispatcher of the progress and the start,end,loop and underrun
+     * events
+     * <p>
+     * 获得进度与开始、结束、循环、欠载事件的分发器
+     *
+     * @return 进度分发器
+     */
+    public ProgressDispatcher getProgressDispatcher() {
+        return progress;
     }
 
     /**
@@ -205,10 +437,12 @@ public class MusicPlayer implements Runnable {
      *            src audio file 音频文件
      */
     public void initMusic(File srcFile) {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             try {
                 if (!playFlag) {
+                    closePrefetchQuietly();
                     initMusic(srcFile, true);
+                    playlistIndex = -1;
                 }
             } catch (UnsupportedAudioFileException | IOException e) {
                 LOG.info("Exception in init:" + e);
@@ -217,10 +451,114 @@ public class MusicPlayer implements Runnable {
     }
 
     /**
-     * init a music file,and check it's raw data length or not,the checking will
-     * take some time and make progress listener available
+     * add a track to the end of the playlist,it is inited when no music is
+     * inited.The playlist continues after the current track,the next track is
+     * opened and its first second decoded ahead of the switch
+     * <p>
+     * 将音轨加入播放列表末尾，尚未初始化音频时初始化该音轨
+     * <p>
+     * 当前音轨结束后继续播放列表，切换前预先打开下一音轨并解码其第一秒
+     *
+     * @param srcFile
+     *            src audio file 音频文件
+     * @see #setCrossfadeMillis(int) 设置交叉淡化
+     */
+    public void enqueue(File srcFile) {
+        offer(() -> {
+            playlist.add(srcFile);
+            if (this.srcFile == null && !playFlag) {
+                initTrack(playlist.size() - 1);
+            }
+        });
+    }
+
+    /**
+     * switch to the next track of the playlist<p>
+     * 切换至播放列表的下一音轨
+     */
+    public void next() {
+        offer(() -> skipTo(playlistIndex + 1));
+    }
+
+    /**
+     * switch to the previous track of the playlist<p>
+     * 切换至播放列表的上一音轨
+     */
+    public void previous() {
+        offer(() -> skipTo(playlistIndex - 1));
+    }
+
+    /**
+     * clear the playlist,the current track is kept<p>
+     * 清空播放列表，保留当前音轨
+     */
+    public void clearPlaylist() {
+        offer(() -> {
+            playlist.clear();
+            playlistIndex = -1;
+            requestedTrack = -1;
+            prefetchFailed = -1;
+            closePrefetchQuietly();
+        });
+    }
+
+    /**
+     * set the crossfade between the tracks of the playlist,mixed on the player
+     * thread when both tracks decode to the same 16 bit pcm format.0 for a
+     * gapless switch<p>
+     * 设置播放列表音轨间的交叉淡化，两音轨解码为相同的16位PCM格式时在播放线程中混合；为0时无缝切换
+     *
+     * @param crossfadeMillis
+     *            交叉淡化毫秒数
+     */
+    public void setCrossfadeMillis(int crossfadeMillis) {
+        offer(() -> this.crossfadeMillis = Math.max(0, crossfadeMillis));
+    }
+
+    /**
+     * get the playlist position of the current track<p>
+     * 获得当前音轨在播放列表中的位置
+     *
+     * @return position,-1 when the track is not from the playlist 位置，非播放列表音轨时为-1
+     */
+    public int getPlaylistIndex() {
+        return playlistIndex;
+    }
+
+    private void skipTo(int index) {
+        if (index < 0 || index >= playlist.size()) {
+            return;
+        }
+        if (playFlag) {
+            requestedTrack = index;
+            trackSkipped = true;
+            loopTime = 0;
+        } else {
+            initTrack(index);
+        }
+    }
+
+    private boolean initTrack(int index) {
+        closePrefetchQuietly();
+        requestedTrack = -1;
+        try {
+            initMusic(playlist.get(index), true);
+            playlistIndex = index;
+            return true;
+        } catch (UnsupportedAudioFileException | IOException e) {
+            LOG.info("Exception in init:" + e);
+            return false;
+        }
+    }
+
+    /**
+     * init a music file,and check it's raw data length or not.The length is read
+     * from the container headers,when unknown it is detected by a full decoding
+     * in background and the progress listener is notified when done
      * <p>
-     * 初始化一个音频文件,并根据需要检测解码数据长度,检测需要一定时间并将使进度监听器可用
+     * 初始化一个音频文件,并根据需要检测解码数据长度
+     * <p>
+     * 长度优先从容器头读取，无法读取时在后台完整解码检测，完成后通知进度监听器
      * 
      * @param srcFile
      *            audio file 音频文件
@@ -237,12 +575,39 @@ public class MusicPlayer implements Runnable {
         AudioFormat baseFormat = srcInput.getFormat();
         this.decodedFormat = decoder.getDecodedAudioFormat(baseFormat);
         this.audioInput = decoder.getDecodedAudioInputStream(srcInput);
+        this.currentPlayed = 0;
+        this.readPosition = 0;
+        this.pendingLength = 0;
+        closeNextQuietly();
         if (recalcLength) {
             long ts = System.currentTimeMillis();
-            totalLength = lengthDetect(srcFile);
+            lengthDetector = null;
+            totalLength = DurationProbe.decodedLength(srcFile, audioInput, decodedFormat);
+            if (totalLength <= 0) {
+                detectInBackground(srcFile);
+            }
             LOG.info("length detect:" + totalLength + ",time use:" + (System.currentTimeMillis() - ts));
             LOG.info("Format decoded:" + decodedFormat);
         }
+        progress.publish(currentPlayed, totalLength);
+    }
+
+    private void detectInBackground(File srcFile) {
+        Thread detector = new Thread(() -> {
+            try {
+                long result = lengthDetect(srcFile);
+                if (lengthDetector == Thread.currentThread()) {
+                    totalLength = result;
+                    progress.publishTotal(result);
+                }
+            } catch (UnsupportedAudioFileException | IOException e) {
+                LOG.info("Exception in length detect:" + e);
+            }
+        });
+        detector.setName("Aria Music Length");
+        detector.setDaemon(true);
+        lengthDetector = detector;
+        detector.start();
     }
 
     /**
@@ -254,10 +619,11 @@ public class MusicPlayer implements Runnable {
      *            loop times,-1 means forever 循环次数，-1为永远循环
      */
     public void play(int loopTime) {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             if (!playFlag) {
                 playFlag = true;
                 pauseFlag = false;
+                looping = false;
                 this.loopTime = loopTime;
             }
         });
@@ -268,10 +634,11 @@ public class MusicPlayer implements Runnable {
      * 播放一次
      */
     public void play() {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             if (!playFlag) {
                 playFlag = true;
                 pauseFlag = false;
+                looping = false;
                 loopTime = 0;
             }
         });
@@ -282,7 +649,7 @@ public class MusicPlayer implements Runnable {
      * 暂停
      */
     public void pause() {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             if (playFlag && !pauseFlag) {
                 pauseFlag = true;
             }
@@ -294,7 +661,7 @@ public class MusicPlayer implements Runnable {
      * 恢复
      */
     public void remuse() {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             if (playFlag && pauseFlag) {
                 pauseFlag = false;
             }
@@ -306,7 +673,7 @@ public class MusicPlayer implements Runnable {
      * 停止
      */
     public void stop() {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             if (playFlag) {
                 playFlag = false;
                 pauseFlag = false;
@@ -315,13 +682,101 @@ public class MusicPlayer implements Runnable {
         });
     }
 
+    /**
+     * seek to a position in bytes of raw data,aligned to frame<p>
+     * 定位到指定解码字节位置，按帧对齐
+     * <p>
+     * MP3 is opened at the nearest frame found in a cached seek index,the
+     * other formats are reopened and skipped.
+     * <p>
+     * MP3通过缓存的定位索引从最近的帧开始解码，其他格式重新打开后跳过
+     * 
+     * @param bytePosition
+     *            解码字节位置
+     * @see #getCurrentPlayed() 当前解码字节播放数
+     * @see #getTotalLength() 解码字节总数
+     */
+    public void seek(long bytePosition) {
+        offer(new CoalescedCmd(SEEK_KEY, () -> seekTo(bytePosition)));
+    }
+
+    /**
+     * seek to a position in millisecond<p>
+     * 定位到指定毫秒位置
+     * 
+     * @param millis
+     *            毫秒位置
+     */
+    public void seekMillis(long millis) {
+        offer(new CoalescedCmd(SEEK_KEY, () -> {
+            if (decodedFormat != null) {
+                seekTo((long) (millis * (double) decodedFormat.getFrameRate() / 1000) * decodedFormat.getFrameSize());
+            }
+        }));
+    }
+
+    /**
+     * enable or disable gapless loop,the line is kept open across the
+     * iterations and the next iteration is decoded ahead<p>
+     * 开启或关闭无缝循环，循环间保持LINE打开并预先解码下一次循环
+     * 
+     * @param gaplessLoop
+     *            是否无缝循环
+     */
+    public void setGaplessLoop(boolean gaplessLoop) {
+        offer(() -> this.gaplessLoop = gaplessLoop);
+    }
+
+    /**
+     * set the sink,used from the next line opened<p>
+     * 设置输出端，自下一条打开的LINE起生效
+     * 
+     * @param sink
+     *            输出端
+     */
+    public void setSink(AudioSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * get the sink<p>
+     * 获得输出端
+     * 
+     * @return 输出端
+     */
+    public AudioSink getSink() {
+        return sink;
+    }
+
+    /**
+     * set the loop points in sample frames,eg.for an intro and a loop body.The
+     * first pass starts at 0,the following passes start at the loop start.The
+     * loop end applies while another pass follows,the last pass plays to the
+     * end of the track<p>
+     * 以采样帧设置循环点，如前奏加循环体的音轨
+     * <p>
+     * 首次从0开始播放，之后从循环起点开始；存在后续循环时在循环终点结束，最后一次播放至音轨结尾
+     * 
+     * @param startFrame
+     *            循环起点
+     * @param endFrame
+     *            loop end,-1 for the end of the track 循环终点，-1为音轨结尾
+     */
+    public void setLoopPoints(long startFrame, long endFrame) {
+        offer(() -> {
+            loopStartFrame = Math.max(0, startFrame);
+            loopEndFrame = endFrame;
+            closeNextQuietly();
+        });
+    }
+
     /**
      * Auto destroy when use spring<p>
      * 销毁 Spirng IOC控制时自动进行
      */
     @PreDestroy
     public void destroy() {
-        cmdQueue.offer(() -> {
+        offer(() -> {
             runFlag = false;
             playFlag = false;
             pauseFlag = false;
@@ -330,8 +785,11 @@ public class MusicPlayer implements Runnable {
     }
 
     /**
-     * set audio volume<p>
+     * set audio volume,applied by the player thread and only the latest of the
+     * pending volume changes is applied<p>
      * 设置音量，音量范围可参阅相关API获得
+     * <p>
+     * 由播放线程执行，多个未执行的音量设置仅执行最后一个
      * 
      * @param volume
      *            音量
@@ -339,25 +797,51 @@ public class MusicPlayer implements Runnable {
      * @see #getMaxVolume() 获得音量最大值
      */
     public void setVolume(float volume) {
+        requestedVolume = volume;
+        offer(new CoalescedCmd(VOLUME_KEY, () -> {
+            this.volume = volume;
+            applyVolume();
+        }));
+    }
+
+    /**
+     * apply the volume to the master gain control,or to the software gain
+     * when the line has none
+     * <p>
+     * 将音量应用至主增益控制，LINE无此控制时应用至软件增益
+     */
+    private void applyVolume() {
         if (currentContorl != null) {
-            currentContorl.setValue(volume);
+            currentContorl.setValue(Math.max(currentContorl.getMinimum(), Math.min(currentContorl.getMaximum(),
+                    volume)));
+            softGain.setGain(1f);
+        } else {
+            softGain.setGainDb(volume);
         }
     }
 
     /**
-     * get current volume<p>
-     * 获得当前音量，范围参阅相关API
+     * get the processors run on the decoded data before the line,they can be
+     * added and removed while playing<p>
+     * 获得写入LINE前对解码数据执行的处理链，播放时可增删处理器
+     * 
+     * @return 处理链
+     */
+    public ProcessorChain getProcessors() {
+        return processors;
+    }
+
+    /**
+     * get the volume last set,even when the player thread has not applied it
+     * yet<p>
+     * 获得最后设置的音量，范围参阅相关API；播放线程尚未应用时亦返回该值
      * 
      * @see #getMinVolume() 获得音量最小值
      * @see #getMaxVolume() 获得音量最大值
      * @return 当前音量
      */
     public float getVolume() {
-        if (currentContorl != null) {
-            return currentContorl.getValue();
-        } else {
-            return 0;
-        }
+        return requestedVolume;
     }
 
     /**
@@ -372,7 +856,7 @@ public class MusicPlayer implements Runnable {
         if (currentContorl != null) {
             return currentContorl.getMaximum();
         } else {
-            return 0;
+            return GainProcessor.MAX_DB;
         }
     }
 
@@ -388,7 +872,7 @@ public class MusicPlayer implements Runnable {
         if (currentContorl != null) {
             return currentContorl.getMinimum();
         } else {
-            return 0;
+            return GainProcessor.MIN_DB;
         }
     }
 
@@ -403,8 +887,21 @@ public class MusicPlayer implements Runnable {
     }
 
     /**
-     * get current total in bytes of raw data<p>
-     * 获得当前解码字节总数
+     * get the fill level of the blocks decoded ahead of the line,0 when not
+     * playing<p>
+     * 获得提前解码缓冲区的填充率，未播放时为0
+     * 
+     * @return fill level in [0,1] 填充率
+     */
+    public float getBufferFill() {
+        DecodeAhead ahead = decodeAhead;
+        return ahead == null ? 0 : ahead.fill();
+    }
+
+    /**
+     * get current total in bytes of raw data,0 until the background detect is
+     * done when the headers do not tell<p>
+     * 获得当前解码字节总数，容器头无长度信息时，后台检测完成前为0
      * 
      * @return 解码字节总数
      */
@@ -415,61 +912,559 @@ public class MusicPlayer implements Runnable {
     @Override
     public void run() {
         Thread.currentThread().setName("Aria Music");
+        AriaMetrics.get().activeThreads().increment();
         while (runFlag) {
             while (!playFlag && runFlag) { // 等待播放信号
-                processCmdStep();
-                sleepQuietly(SENCITIVE);
+                awaitCmd();
+            }
+            if (!playFlag) {
+                continue;
             }
-            try (SourceDataLine line = readyLineByFormat()) {// generate data
-                                                             // line
-                currentContorl = (FloatControl) line.getControl(FloatControl.Type.MASTER_GAIN);
-                playLine(line);
+            SourceDataLine opened = null;
+            AudioSink lineSink = sink;
+            try (SourceDataLine line = readyLineByFormat(lineSink)) {// generate data line
+                opened = line;
+                currentContorl = line.isControlSupported(FloatControl.Type.MASTER_GAIN) ? (FloatControl) line
+                        .getControl(FloatControl.Type.MASTER_GAIN) : null;
+                applyVolume();
+                outputChain.reset();// 新LINE无需渐变，清除上次播放的状态
+                progress.event(looping ? MusicEvent.LOOP : MusicEvent.START);
+                looping = false;
+                playLine(line, lineSink.isRealtime());
+                while (playFlag && (gaplessLoop && nextIteration() || nextTrackInLine())) {
+                    playLine(line, lineSink.isRealtime());
+                }
+                line.drain();// 一定程度上避免切换时的爆音产生
             } catch (LineUnavailableException | IOException e) {
                 LOG.info("Exception in line operation:" + e);
             }
+            if (opened != null) {
+                AriaMetrics.get().openLines().decrement();
+            }
             streamCloseQuietly();
+            closeNextQuietly();
             if (loopTime > 0) {
                 loopTime--;
-                reinit();
+                reinitLoop();
             } else if (loopTime == -1) {
-                reinit();
+                reinitLoop();
             } else {
-                playFlag = false;
+                progress.event(MusicEvent.END);
+                if (!playFlag || !nextTrackCold()) {
+                    playFlag = false;
+                }
             }
         }
+        releaseHolds();
+        closePrefetchQuietly();
+        loader.shutdown();
+        progress.close();
+        AriaMetrics.get().activeThreads().decrement();
     }
 
-    private SourceDataLine readyLineByFormat() throws LineUnavailableException {
+    private SourceDataLine readyLineByFormat(AudioSink lineSink) throws LineUnavailableException {
+        long ts = System.nanoTime();
         SourceDataLine.Info info = new DataLine.Info(SourceDataLine.class, decodedFormat, LINE_CACHE_LENGTH);
-        SourceDataLine sourceDataLine = (SourceDataLine) AudioSystem.getLine(info);
+        SourceDataLine sourceDataLine = lineSink.getLine(info);
         sourceDataLine.open();
+        AriaMetrics metrics = AriaMetrics.get();
+        metrics.lineOpenNanos().record(System.nanoTime() - ts);
+        metrics.openLines().increment();
         sourceDataLine.start();
         return sourceDataLine;
     }
 
-    private void reinit() {
+    private void reinitLoop() {
+        looping = true;
         try {
             initMusic(srcFile, false);
+            if (loopStartFrame > 0) {
+                seekTo(loopStartFrame * decodedFormat.getFrameSize());
+            }
         } catch (UnsupportedAudioFileException | IOException e) {
             LOG.info("Exception in loop reinit:" + e);
         }
     }
 
-    private void playLine(SourceDataLine line) throws IOException {
-        currentPlayed = 0;
-        for (int realRead = 0; realRead != -1 && playFlag; realRead = audioInput.read(cache, 0, cache.length)) {
-            currentPlayed += realRead;
+    /**
+     * switch to the primed stream of the next iteration,usually primed by now
+     * <p>
+     * 切换至已准备好的下一次循环音频流，通常此时已准备完毕
+     */
+    private boolean nextIteration() {
+        if (loopTime == 0) {
+            return false;
+        }
+        if (primed == null) {
+            primeNext();
+        }
+        Primed next;
+        try {
+            next = primed.join();
+        } catch (CompletionException | CancellationException e) {
+            LOG.info("Exception in loop prime:" + e.getCause());
+            primed = null;
+            return false;
+        }
+        primed = null;
+        if (loopTime > 0) {
+            loopTime--;
+        }
+        streamCloseQuietly();
+        audioInput = next.stream;
+        currentPlayed = next.position;
+        readPosition = currentPlayed;
+        pending = next.block;
+        pendingLength = next.length;
+        progress.publish(currentPlayed, totalLength);
+        progress.event(MusicEvent.LOOP);
+        return true;
+    }
+
+    /**
+     * start to open the next iteration at the loop start on the loader,the
+     * seek index scan and the skip to the loop start are off the player thread
+     * <p>
+     * 在加载线程中开始于循环起点打开下一次循环，定位索引扫描与跳至循环起点均不在播放线程中进行
+     */
+    private void primeNext() {
+        File f = srcFile;
+        AudioFormat format = decodedFormat;
+        long position = loopStartFrame * format.getFrameSize();
+        CompletableFuture<Primed> future = new CompletableFuture<>();
+        primed = future;
+        try {
+            loader.execute(() -> {
+                try {
+                    Primed next = prime(f, format, position);
+                    if (!future.complete(next)) {
+                        next.close();
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * loader:open at the position and decode the first block
+     * <p>
+     * 加载线程：于指定位置打开并解码首块数据
+     */
+    private Primed prime(File f, AudioFormat format, long position) throws UnsupportedAudioFileException,
+            IOException {
+        byte[] block = new byte[DATA_CACHE_LENGTH];
+        AudioInputStream next = openAt(f, format, position, block);
+        try {
+            int length = 0;
+            for (int realRead = 0; realRead != -1 && length < block.length; realRead = next.read(block, length,
+                    block.length - length)) {
+                length += realRead;
+            }
+            return new Primed(next, position, block, length);
+        } catch (IOException | RuntimeException e) {
+            next.close();
+            throw e;
+        }
+    }
+
+    /**
+     * prime once the pass is in its last second,at once when the end is unknown
+     * <p>
+     * 在本次循环最后一秒时准备下一次循环，终点未知时立即准备
+     */
+    private boolean shouldPrime() {
+        if (!gaplessLoop || loopTime == 0 || primed != null) {
+            return false;
+        }
+        long end = loopEndFrame >= 0 ? loopEndFrame * decodedFormat.getFrameSize() : totalLength;
+        long ahead = (long) decodedFormat.getFrameRate() * decodedFormat.getFrameSize();
+        return end <= 0 || currentPlayed >= end - ahead;
+    }
+
+    /**
+     * read a block of the current stream on the decoder thread,stop at the
+     * loop end while another pass follows
+     * <p>
+     * 在解码线程中读取当前音频流的一块数据，存在后续循环时在循环终点停止
+     */
+    private int readBlock(byte[] dst) throws IOException {
+        int len = dst.length;
+        if (loopEndFrame >= 0 && loopTime != 0) {
+            long end = loopEndFrame * decodedFormat.getFrameSize();
+            if (readPosition >= end) {
+                return -1;
+            }
+            len = (int) Math.min(len, end - readPosition);
+        }
+        int realRead;
+        if (pendingLength > 0) {
+            realRead = Math.min(len, pendingLength);
+            System.arraycopy(pending, 0, dst, 0, realRead);
+            System.arraycopy(pending, realRead, pending, 0, pendingLength - realRead);
+            pendingLength -= realRead;
+        } else {
+            realRead = audioInput.read(dst, 0, len);
+        }
+        if (realRead > 0) {
+            readPosition += realRead;
+            AriaMetrics.get().decodedBytes().add(realRead);
+        }
+        return realRead;
+    }
+
+    /**
+     * switch to the next track of the playlist on the open line,the prefetched
+     * track is taken over when its format matches the line
+     * <p>
+     * 在已打开的LINE上切换至播放列表的下一音轨，格式与LINE一致时接管预取的音轨
+     */
+    private boolean nextTrackInLine() {
+        int target = requestedTrack >= 0 ? requestedTrack : playlistIndex + 1;
+        if (loopTime != 0 || target >= playlist.size()) {
+            return false;
+        }
+        if (prefetch != null && prefetch.index != target || prefetching != null && prefetchingIndex != target) {
+            closePrefetchQuietly();
+        }
+        if (prefetch == null && prefetching == null) {
+            prefetchTrack(target);
+        }
+        takePrefetch(true);
+        if (prefetch == null || !prefetch.format.matches(decodedFormat)) {
+            return false;
+        }
+        streamCloseQuietly();
+        closeNextQuietly();
+        srcFile = prefetch.file;
+        decodedFormat = prefetch.format;
+        audioInput = prefetch.takeStream();
+        currentPlayed = prefetch.consumed();
+        readPosition = currentPlayed;
+        pendingLength = 0;
+        lengthDetector = null;
+        totalLength = prefetch.totalLength;
+        if (totalLength <= 0) {
+            detectInBackground(srcFile);
+        }
+        playlistIndex = target;
+        requestedTrack = -1;
+        prefetch = null;
+        progress.publish(currentPlayed, totalLength);
+        progress.event(MusicEvent.END);
+        progress.event(MusicEvent.START);
+        LOG.info("track switched:" + srcFile);
+        return true;
+    }
+
+    /**
+     * init the next track of the playlist after the line is closed
+     * <p>
+     * LINE关闭后初始化播放列表的下一音轨
+     */
+    private boolean nextTrackCold() {
+        int target = requestedTrack >= 0 ? requestedTrack : playlistIndex + 1;
+        requestedTrack = -1;
+        return target < playlist.size() && initTrack(target);
+    }
+
+    /**
+     * start to prefetch the track on the loader
+     * <p>
+     * 在加载线程中开始预取音轨
+     */
+    private void prefetchTrack(int index) {
+        File f = playlist.get(index);
+        CompletableFuture<TrackPrefetch> future = new CompletableFuture<>();
+        prefetching = future;
+        prefetchingIndex = index;
+        try {
+            loader.execute(() -> {
+                try {
+                    TrackPrefetch opened = TrackPrefetch.open(f, index, decoder, PREFETCH_SECONDS);
+                    if (!future.complete(opened)) {
+                        closeQuietly(opened);
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * take over the prefetching track once done,or wait for it
+     * <p>
+     * 预取完成后接管预取的音轨，或等待其完成
+     *
+     * @param wait
+     *            是否等待
+     */
+    private void takePrefetch(boolean wait) {
+        if (prefetching == null || !wait && !prefetching.isDone()) {
+            return;
+        }
+        try {
+            prefetch = prefetching.join();
+        } catch (CompletionException | CancellationException e) {
+            LOG.info("Exception in track prefetch:" + e.getCause());
+            prefetchFailed = prefetchingIndex;
+        }
+        prefetching = null;
+    }
+
+    /**
+     * prefetch the next track one second before the crossfade,at once when
+     * the end is unknown
+     * <p>
+     * 在交叉淡化开始前一秒预取下一音轨，终点未知时立即预取
+     */
+    private boolean shouldPrefetch() {
+        int next = playlistIndex + 1;
+        if (prefetch != null || prefetching != null || loopTime != 0 || next >= playlist.size()
+                || next == prefetchFailed) {
+            return false;
+        }
+        long ahead = (long) (decodedFormat.getFrameRate() * PREFETCH_SECONDS) * decodedFormat.getFrameSize()
+                + crossfadeLength();
+        return totalLength <= 0 || currentPlayed >= totalLength - ahead;
+    }
+
+    /**
+     * the crossfade length in bytes,0 when the track is not faded out
+     * <p>
+     * 交叉淡化字节数，当前音轨不淡出时为0
+     */
+    private long crossfadeLength() {
+        if (crossfadeMillis <= 0 || totalLength <= 0 || loopTime != 0) {
+            return 0;
+        }
+        int frameSize = decodedFormat.getFrameSize();
+        long length = (long) (crossfadeMillis * (double) decodedFormat.getFrameRate() / 1000) * frameSize;
+        return Math.min(length, totalLength - totalLength % frameSize);
+    }
+
+    /**
+     * mix the prefetched track into the part of the block in the crossfade
+     * <p>
+     * 将预取音轨混入块中处于交叉淡化的部分
+     */
+    private void crossfade(byte[] block, int length) throws IOException {
+        long fade = crossfadeLength();
+        if (fade <= 0 || prefetch.index != playlistIndex + 1 || !prefetch.format.matches(decodedFormat)
+                || !SampleBuffer.supports(decodedFormat)) {
+            return;
+        }
+        long fadeStart = totalLength - fade;
+        long from = Math.max(currentPlayed, fadeStart);
+        int offset = (int) (from - currentPlayed);
+        if (offset >= length) {
+            return;
+        }
+        int inLength = prefetch.readFully(mixCache, 0, length - offset);
+        Crossfade.mix(block, offset, length - offset, mixCache, inLength, decodedFormat, from - fadeStart, fade);
+    }
+
+    private void closePrefetchQuietly() {
+        if (prefetch != null) {
+            closeQuietly(prefetch);
+            prefetch = null;
+        }
+        if (prefetching != null) {
+            prefetching.cancel(false);
+            prefetching.thenAccept(MusicPlayer::closeQuietly);
+            prefetching = null;
+        }
+    }
+
+    private static void closeQuietly(TrackPrefetch track) {
+        try {
+            track.close();
+        } catch (IOException e) {
+            LOG.info("IOException in stream close:" + e);
+        }
+    }
+
+    private void closeNextQuietly() {
+        if (primed != null) {
+            primed.cancel(false);
+            primed.thenAccept(Primed::close);
+            primed = null;
+        }
+    }
+
+    /**
+     * copy the blocks decoded ahead to the line,the decoder is halted while the
+     * commands run
+     * <p>
+     * 将提前解码的块写入LINE，执行指令时暂停解码线程
+     */
+    private void playLine(SourceDataLine line, boolean realtime) throws IOException {
+        seeked = false;
+        trackSkipped = false;
+        DecodeAhead ahead = new DecodeAhead(ring, this::readBlock);
+        decodeAhead = ahead;
+        boolean written = false;
+        ahead.start();
+        try {
+            while (playFlag) {
+                if (pauseFlag || !cmdQueue.isEmpty()) {
+                    ahead.halt();
+                    pauseAndProcessCmds(line);
+                    if (seeked) {// 丢弃定位前解码的数据
+                        seeked = false;
+                        ahead.clear();
+                        line.flush();
+                        written = false;
+                    }
+                    if (trackSkipped) {// 丢弃被跳过音轨的数据
+                        ahead.clear();
+                        line.flush();
+                        break;
+                    }
+                    ahead.resume();
+                    continue;
+                }
+                int realRead = ahead.await();
+                if (realRead == -1) {
+                    break;
+                }
+                byte[] block = ahead.block();
+                if (prefetching != null) {// 交叉淡化开始时仍未完成则等待
+                    long fade = crossfadeLength();
+                    takePrefetch(fade > 0 && currentPlayed + realRead > totalLength - fade);
+                }
+                if (prefetch != null) {
+                    crossfade(block, realRead);
+                }
+                samples.apply(outputChain, block, 0, realRead, decodedFormat);
+                currentPlayed += realRead;
+                if (realtime && written && line.available() >= line.getBufferSize()) {// LINE已播空
+                    progress.event(MusicEvent.UNDERRUN);
+                    AriaMetrics.get().lineUnderruns().increment();
+                }
+                written = true;
+                releaseHolds();
+                line.write(block, 0, realRead);
+                ahead.release();
+                progress.publish(currentPlayed, totalLength);
+                if (shouldPrime()) {
+                    primeNext();
+                }
+                if (shouldPrefetch()) {
+                    prefetchTrack(playlistIndex + 1);
+                }
+            }
+        } finally {
+            decodeAhead = null;
+            ahead.close();
+        }
+    }
+
+    private void pauseAndProcessCmds(SourceDataLine line) {
+        if (pauseFlag) {
+            line.stop();
             while (pauseFlag) {
-                processCmdStep();
-                sleepQuietly(SENCITIVE);
+                awaitCmd();
             }
-            processCmdStep();
-            line.write(cache, 0, realRead);
-            if (progressListener != null) {
-                progressListener.progress(currentPlayed, totalLength);
+            line.start();
+        }
+        processCmds();
+    }
+
+    private void seekTo(long bytePosition) {
+        if (audioInput == null) {
+            return;
+        }
+        int frameSize = decodedFormat.getFrameSize();
+        long target = Math.max(0, bytePosition - bytePosition % frameSize);
+        if (totalLength > 0) {
+            target = Math.min(target, totalLength - totalLength % frameSize);
+        }
+        try {
+            AudioInputStream next = openAt(srcFile, decodedFormat, target, cache);
+            streamCloseQuietly();
+            audioInput = next;
+            currentPlayed = target;
+            readPosition = target;
+            pendingLength = 0;
+            seeked = true;
+            progress.publish(currentPlayed, totalLength);
+            if (prefetch != null && prefetch.consumed() > 0) {// 已混入交叉淡化的预取不再可用
+                closePrefetchQuietly();
             }
+        } catch (UnsupportedAudioFileException | IOException e) {
+            LOG.info("Exception in seek:" + e);
+        }
+    }
+
+    /**
+     * open the file at the decoded byte position,the skip cache is used to
+     * read over the rest
+     * <p>
+     * 于指定解码字节位置打开文件，使用跳过缓冲区读取剩余部分
+     */
+    private AudioInputStream openAt(File f, AudioFormat format, long target, byte[] skipCache)
+            throws UnsupportedAudioFileException, IOException {
+        SeekIndex index = SeekIndex.of(f, format);
+        SeekIndex.Position position = index == null ? new SeekIndex.Position(0, 0) : index.locate(target);
+        AudioInputStream srcInput;
+        if (position.fileOffset == 0) {
+            srcInput = AudioSystem.getAudioInputStream(f);
+        } else {
+            FileInputStream fileInput = new FileInputStream(f);
+            try {
+                skipFully(fileInput, position.fileOffset);
+                srcInput = AudioSystem.getAudioInputStream(new BufferedInputStream(fileInput));
+            } catch (UnsupportedAudioFileException | IOException e) {
+                fileInput.close();
+                throw e;
+            }
+        }
+        AudioInputStream decoded = decoder.getDecodedAudioInputStream(srcInput);
+        try {
+            skipDecoded(decoded, target - position.outputStart, skipCache);
+        } catch (IOException | RuntimeException e) {
+            decoded.close();
+            throw e;
+        }
+        return decoded;
+    }
+
+    private static void skipFully(FileInputStream input, long n) throws IOException {
+        for (long remain = n; remain > 0;) {
+            long skipped = input.skip(remain);
+            if (skipped <= 0) {
+                throw new IOException("unexpected end of file in seek");
+            }
+            remain -= skipped;
+        }
+    }
+
+    /**
+     * skip by reading,skip of some decoded streams does not keep the position
+     * <p>
+     * 通过读取跳过，部分解码流的skip不能保证位置正确
+     */
+    private static void skipDecoded(AudioInputStream input, long n, byte[] skipCache) throws IOException {
+        for (long remain = n; remain > 0;) {
+            int realRead = input.read(skipCache, 0, (int) Math.min(skipCache.length, remain));
+            if (realRead == -1) {
+                return;
+            }
+            remain -= realRead;
         }
-        line.drain();// 一定程度上避免切换时的爆音产生
     }
 
     private void streamCloseQuietly() {
@@ -480,13 +1475,25 @@ public class MusicPlayer implements Runnable {
         }
     }
 
-    private void sleepQuietly(int milliSecond) {
+    /**
+     * block until a command arrives,then run all the pending commands.The
+     * player is destroyed when interrupted
+     * <p>
+     * 阻塞直到指令到达，随后执行所有待执行指令；被中断时销毁播放器
+     */
+    private void awaitCmd() {
+        releaseHolds();
         try {
-            Thread.sleep(milliSecond);
+            drained.add(cmdQueue.take());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             LOG.info("InterruptedException:" + e);
+            runFlag = false;
+            playFlag = false;
+            pauseFlag = false;
+            return;
         }
+        processCmds();
     }
 
     private long lengthDetect(File srcFile) throws UnsupportedAudioFileException, IOException {
@@ -500,24 +1507,147 @@ public class MusicPlayer implements Runnable {
         long result = frames * dFormat.getFrameSize();
 
         if (result <= 0) {
+            byte[] skipUse = new byte[DATA_CACHE_LENGTH];
             result = 0;
             long realSkip = 0;
             do {
                 result += realSkip;
                 realSkip = decodedStream.read(skipUse);// 使用skip得不到结果也是醉了
-            } while (realSkip != -1);
+            } while (realSkip != -1 && lengthDetector == Thread.currentThread());
         }
         audioInputStream.close();
 
         return result;
     }
 
-    private void processCmdStep() {
-        if (!cmdQueue.isEmpty()) {
-            IMusicCmd cmd = cmdQueue.poll();
-            if (runFlag) {
+    /**
+     * run all the pending commands,a coalescing command is skipped when a later
+     * one has the same key
+     * <p>
+     * 执行所有待执行指令，存在相同合并键的后续指令时跳过该指令
+     */
+    private void processCmds() {
+        cmdQueue.drainTo(drained);
+        AriaMetrics metrics = AriaMetrics.get();
+        metrics.pendingCommands().add(-drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            QueuedCmd cmd = drained.get(i);
+            held.add(cmd.holder);
+            if (runFlag && !coalesced(i)) {
+                metrics.commandLatencyNanos().record(System.nanoTime() - cmd.offered);
                 cmd.exec();
             }
         }
+        drained.clear();
+    }
+
+    private void offer(IMusicCmd cmd) {
+        AudioSink holder = sink;
+        holder.hold(thread);
+        cmdQueue.offer(new QueuedCmd(cmd, holder));
+        AriaMetrics.get().pendingCommands().increment();
+    }
+
+    /**
+     * release the render held for the commands run,called where the line
+     * shows their effect:before a write or while waiting for commands
+     * <p>
+     * 释放因已执行指令而暂停的渲染，在LINE体现指令效果处调用：写入前或等待指令时
+     */
+    private void releaseHolds() {
+        for (AudioSink holder : held) {
+            holder.release(thread);
+        }
+        held.clear();
+    }
+
+    private boolean coalesced(int index) {
+        Object key = drained.get(index).coalesceKey();
+        if (key != null) {
+            for (int i = index + 1; i < drained.size(); i++) {
+                if (key.equals(drained.get(i).coalesceKey())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A command with the time it was offered
+     * <p>
+     * 附带入队时间的指令
+     */
+    private static class QueuedCmd implements IMusicCmd {
+        private final IMusicCmd cmd;
+        private final AudioSink holder;
+        private final long offered = System.nanoTime();
+
+        QueuedCmd(IMusicCmd cmd, AudioSink holder) {
+            this.cmd = cmd;
+            this.holder = holder;
+        }
+
+        @Override
+        public void exec() {
+            cmd.exec();
+        }
+
+        @Override
+        public Object coalesceKey() {
+            return cmd.coalesceKey();
+        }
+    }
+
+    /**
+     * A command replaced by a later command of the same key
+     * <p>
+     * 可被相同合并键的后续指令替代的指令
+     */
+    private static class CoalescedCmd implements IMusicCmd {
+        private final Object key;
+        private final IMusicCmd cmd;
+
+        CoalescedCmd(Object key, IMusicCmd cmd) {
+            this.key = key;
+            this.cmd = cmd;
+        }
+
+        @Override
+        public void exec() {
+            cmd.exec();
+        }
+
+        @Override
+        public Object coalesceKey() {
+            return key;
+        }
+    }
+
+    /**
+     * The next iteration opened on the loader with its first block decoded
+     * <p>
+     * 在加载线程中打开并已解码首块数据的下一次循环
+     */
+    private static final class Primed {
+        private final AudioInputStream stream;
+        private final long position;
+        private final byte[] block;
+        private final int length;
+
+        private Primed(AudioInputStream stream, long position, byte[] block, int length) {
+            this.stream = stream;
+            this.position = position;
+            this.block = block;
+            this.length = length;
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LOG.info("IOException in stream close:" + e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package com.thrblock.aria.music;
+
+/**
+ * Lock-free single producer single consumer ring of pcm blocks
+ * <p>
+ * 无锁单生产者单消费者PCM块环形缓冲区
+ * <p>
+ * The blocks are allocated once,the producer fills the block it claims and
+ * publishes it by a volatile write of the tail,the consumer releases a block
+ * by a volatile write of the head.A published length of -1 marks the end.
+ * <p>
+ * 块仅分配一次；生产者填充取得的块后以volatile写尾指针发布，消费者以volatile写头指针释放；发布长度-1表示结束
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class PcmRing {
+    /**
+     * the length returned when no block is published
+     * <p>
+     * 无已发布块时返回的长度
+     */
+    static final int EMPTY = -2;
+
+    private final byte[][] blocks;
+    private final int[] lengths;
+    private final int mask;
+    /**
+     * next block to consume,written by the consumer
+     * <p>
+     * 下一个待消费块，由消费者写入
+     */
+    private volatile long head = 0;
+    /**
+     * next block to produce,written by the producer
+     * <p>
+     * 下一个待生产块，由生产者写入
+     */
+    private volatile long tail = 0;
+
+    /**
+     * build a ring
+     * <p>
+     * 构造环形缓冲区
+     *
+     * @param capacity
+     *            block count,a power of 2 块数，须为2的幂
+     * @param blockLength
+     *            每块字节数
+     */
+    PcmRing(int capacity, int blockLength) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2:" + capacity);
+        }
+        this.blocks = new byte[capacity][blockLength];
+        this.lengths = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * producer:get the block to fill,null when full
+     * <p>
+     * 生产者：获得待填充块，已满时为空
+     */
+    byte[] claim() {
+        long t = tail;
+        return t - head < blocks.length ? blocks[(int) (t & mask)] : null;
+    }
+
+    /**
+     * producer:publish the claimed block
+     * <p>
+     * 生产者：发布已填充的块
+     *
+     * @param length
+     *            data length,-1 for the end 数据长度，-1表示结束
+     */
+    void publish(int length) {
+        long t = tail;
+        lengths[(int) (t & mask)] = length;
+        tail = t + 1;
+    }
+
+    /**
+     * consumer:the length of the head block
+     * <p>
+     * 消费者：头部块的数据长度
+     *
+     * @return length,-1 for the end,{@link #EMPTY} when nothing published
+     *         数据长度，-1表示结束，无已发布块时为EMPTY
+     */
+    int peekLength() {
+        long h = head;
+        return h == tail ? EMPTY : lengths[(int) (h & mask)];
+    }
+
+    /**
+     * consumer:the head block
+     * <p>
+     * 消费者：头部块
+     */
+    byte[] peekBlock() {
+        return blocks[(int) (head & mask)];
+    }
+
+    /**
+     * consumer:release the head block
+     * <p>
+     * 消费者：释放头部块
+     */
+    void release() {
+        head = head + 1;
+    }
+
+    /**
+     * drop all the published blocks,only when the producer is halted
+     * <p>
+     * 丢弃所有已发布块，仅在生产者停止时调用
+     */
+    void clear() {
+        head = tail;
+    }
+
+    /**
+     * the published block count
+     * <p>
+     * 已发布块数
+     */
+    int size() {
+        return (int) (tail - head);
+    }
+
+    int capacity() {
+        return blocks.length;
+    }
+}
@@ -0,0 +1,273 @@
+package com.thrblock.aria.music;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deliver the progress and the events of a player off the audio thread
+ * <p>
+ * 在音频线程之外分发播放器的进度与事件
+ * <p>
+ * The audio thread only publishes the position by volatile writes and puts
+ * the events into a preallocated single producer ring.One shared daemon thread
+ * dispatches every interval while there are listeners:the latest position when
+ * changed,then every event since the last tick in the order they happened.The
+ * events overflowing the ring are dropped and counted.A slow listener delays
+ * the later dispatches,never the playback.
+ * <p>
+ * 音频线程仅以volatile写发布位置，并将事件放入预分配的单生产者环形缓冲区；存在监听器时由一个共享守护线程按间隔分发：
+ * 位置变化时发送最新位置，随后按发生顺序发送自上次分发以来的全部事件；环形缓冲区溢出的事件被丢弃并计数；
+ * 缓慢的监听器只会推迟后续分发，不会影响播放
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class ProgressDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(ProgressDispatcher.class);
+    private static final long DEFAULT_INTERVAL_MILLIS = 50;
+    private static final MusicEvent[] EVENTS = MusicEvent.values();
+    private static final int EVENT_CAPACITY = 64;
+    private static ScheduledThreadPoolExecutor scheduler;
+
+    private final List<MusicProgressListener> progressListeners = new CopyOnWriteArrayList<>();
+    private final List<MusicEventListener> eventListeners = new CopyOnWriteArrayList<>();
+    /**
+     * the ordinals of the events not dispatched yet
+     * <p>
+     * 尚未分发事件的序数
+     */
+    private final byte[] events = new byte[EVENT_CAPACITY];
+    /**
+     * next event to put,written by the audio thread
+     * <p>
+     * 下一个待放入事件，由音频线程写入
+     */
+    private volatile long eventTail = 0;
+    /**
+     * next event to dispatch,written by the dispatch thread
+     * <p>
+     * 下一个待分发事件，由分发线程写入
+     */
+    private volatile long eventHead = 0;
+    private volatile long droppedEvents = 0;
+    private volatile boolean eventsListened = false;
+    private volatile long current;
+    private volatile long total;
+    private long dispatchedCurrent = -1;
+    private long dispatchedTotal = -1;
+    private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+    private ScheduledFuture<?> task;
+
+    /**
+     * audio thread:publish the position
+     * <p>
+     * 音频线程：发布播放位置
+     *
+     * @param current
+     *            当前进度
+     * @param total
+     *            总进度
+     */
+    public void publish(long current, long total) {
+        this.current = current;
+        this.total = total;
+    }
+
+    /**
+     * publish the total only,eg.from a background detect
+     * <p>
+     * 仅发布总进度，如来自后台检测
+     *
+     * @param total
+     *            总进度
+     */
+    public void publishTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * audio thread:put an event,ignored when no event listener.Called from
+     * one thread at a time
+     * <p>
+     * 音频线程：放入一次事件，无事件监听器时忽略；同一时刻仅由一个线程调用
+     *
+     * @param event
+     *            播放事件
+     */
+    public void event(MusicEvent event) {
+        if (!eventsListened) {
+            return;
+        }
+        long t = eventTail;
+        if (t - eventHead >= EVENT_CAPACITY) {
+            droppedEvents++;
+            return;
+        }
+        events[(int) (t & (EVENT_CAPACITY - 1))] = (byte) event.ordinal();
+        eventTail = t + 1;
+    }
+
+    /**
+     * get the count of the events dropped as the listeners fell behind
+     * <p>
+     * 获得因监听器处理不及而丢弃的事件数
+     *
+     * @return 丢弃事件数
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    /**
+     * add a progress listener,called on the dispatch thread
+     * <p>
+     * 加入进度监听器，在分发线程中调用
+     *
+     * @param listener
+     *            进度监听器
+     */
+    public synchronized void addProgressListener(MusicProgressListener listener) {
+        progressListeners.add(listener);
+        schedule();
+    }
+
+    /**
+     * remove a progress listener
+     * <p>
+     * 移除进度监听器
+     *
+     * @param listener
+     *            进度监听器
+     */
+    public synchronized void removeProgressListener(MusicProgressListener listener) {
+        progressListeners.remove(listener);
+        schedule();
+    }
+
+    /**
+     * add an event listener,called on the dispatch thread
+     * <p>
+     * 加入事件监听器，在分发线程中调用
+     *
+     * @param listener
+     *            事件监听器
+     */
+    public synchronized void addEventListener(MusicEventListener listener) {
+        eventListeners.add(listener);
+        schedule();
+    }
+
+    /**
+     * remove an event listener
+     * <p>
+     * 移除事件监听器
+     *
+     * @param listener
+     *            事件监听器
+     */
+    public synchronized void removeEventListener(MusicEventListener listener) {
+        eventListeners.remove(listener);
+        schedule();
+    }
+
+    /**
+     * set the dispatch interval
+     * <p>
+     * 设置分发间隔
+     *
+     * @param intervalMillis
+     *            分发间隔毫秒数
+     */
+    public synchronized void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = Math.max(1, intervalMillis);
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        schedule();
+    }
+
+    /**
+     * get the dispatch interval
+     * <p>
+     * 获得分发间隔
+     *
+     * @return 分发间隔毫秒数
+     */
+    public synchronized long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * stop dispatching and remove all the listeners
+     * <p>
+     * 停止分发并移除所有监听器
+     */
+    public synchronized void close() {
+        progressListeners.clear();
+        eventListeners.clear();
+        schedule();
+    }
+
+    private void schedule() {
+        eventsListened = !eventListeners.isEmpty();
+        boolean listened = !progressListeners.isEmpty() || !eventListeners.isEmpty();
+        if (listened && task == null) {
+            task = scheduler().scheduleWithFixedDelay(this::dispatch, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else if (!listened && task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor scheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r);
+                t.setName("Aria Music Progress");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return scheduler;
+    }
+
+    /**
+     * dispatch thread:the latest position,then the events in order
+     * <p>
+     * 分发线程：先发送最新位置，再按顺序发送事件
+     */
+    private void dispatch() {
+        long c = current;
+        long t = total;
+        if (c != dispatchedCurrent || t != dispatchedTotal) {
+            dispatchedCurrent = c;
+            dispatchedTotal = t;
+            for (MusicProgressListener listener : progressListeners) {
+                try {
+                    listener.progress(c, t);
+                } catch (RuntimeException e) {
+                    LOG.info("Exception in progress listener:" + e);
+                }
+            }
+        }
+        for (long h = eventHead, tail = eventTail; h < tail; h++) {
+            MusicEvent event = EVENTS[events[(int) (h & (EVENT_CAPACITY - 1))]];
+            eventHead = h + 1;
+            for (MusicEventListener listener : eventListeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    LOG.info("Exception in event listener:" + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.thrblock.aria.music;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sound.sampled.AudioFormat;
+
+import com.thrblock.aria.sound.BufferCleaner;
+
+/**
+ * Seek table of a compressed file,decoded byte offset to file offset
+ * <p>
+ * 压缩文件的定位表，解码字节偏移到文件偏移的映射
+ * <p>
+ * Only MP3 is indexed,an entry is a frame where a new decoder can start.The
+ * frames at the entry whose bit reservoir reaches before it are not output by
+ * the decoder,and the first output frame misses its overlap,so an entry keeps
+ * where the output begins and where the output is clean.
+ * <p>
+ * 仅索引MP3，每个条目为可重新开始解码的帧；
+ * 起始处比特池引用到之前数据的帧不会被解码输出，首个输出帧缺少重叠部分，因此条目同时记录输出起点与完整输出起点
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class SeekIndex {
+    /**
+     * The position to open a decoder at
+     * <p>
+     * 打开解码器的位置
+     */
+    static final class Position {
+        /**
+         * the file offset to open at,0 to open the file normally
+         * <p>
+         * 打开的文件偏移，为0时正常打开文件
+         */
+        final long fileOffset;
+        /**
+         * the decoded byte offset where the opened stream output begins
+         * <p>
+         * 打开后输出开始处对应的解码字节偏移
+         */
+        final long outputStart;
+
+        Position(long fileOffset, long outputStart) {
+            this.fileOffset = fileOffset;
+            this.outputStart = outputStart;
+        }
+    }
+
+    /**
+     * frames between two entries
+     * <p>
+     * 相邻条目间隔帧数
+     */
+    private static final int SPACING = 4;
+    /**
+     * the max frames looked ahead for the bit reservoir
+     * <p>
+     * 比特池最多向后检查的帧数
+     */
+    private static final int RESERVOIR_FRAMES = 16;
+    private static final int CACHE_SIZE = 8;
+    private static final Map<String, SeekIndex> CACHE = new LinkedHashMap<String, SeekIndex>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SeekIndex> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private long[] clean = new long[64];
+    private long[] output = new long[64];
+    private long[] offsets = new long[64];
+    private int size = 0;
+
+    private SeekIndex() {
+    }
+
+    /**
+     * get the cached index of a file,build it on miss
+     * <p>
+     * 获得文件的缓存索引，未命中时构造
+     *
+     * @param f
+     *            音频文件
+     * @param decodedFormat
+     *            解码格式
+     * @return index,null if the file can not be indexed 索引，无法索引时为空
+     */
+    static SeekIndex of(File f, AudioFormat decodedFormat) {
+        if (!f.getName().toLowerCase(Locale.ROOT).endsWith(".mp3")) {
+            return null;
+        }
+        String key = f.getAbsolutePath() + '|' + f.length() + '|' + f.lastModified() + '|' + decodedFormat;
+        synchronized (CACHE) {
+            SeekIndex cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SeekIndex index = buildMp3(f, decodedFormat);
+        if (index != null) {
+            synchronized (CACHE) {
+                CACHE.put(key, index);
+            }
+        }
+        return index;
+    }
+
+    private static SeekIndex buildMp3(File f, AudioFormat decodedFormat) {
+        try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return indexMp3(data, decodedFormat);
+            } finally {
+                BufferCleaner.free(data);// 不等待GC解除映射，文件可随即被替换或删除
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static SeekIndex indexMp3(MappedByteBuffer data, AudioFormat decodedFormat) {
+        int first = DurationProbe.firstMp3Frame(data);
+        if (first < 0) {
+            return null;
+        }
+        int header = data.getInt(first);
+        double bytesPerFrame = DurationProbe.mp3SamplesPerFrame(header) * (double) decodedFormat.getFrameRate()
+                / DurationProbe.mp3SampleRate(header);
+        int frameSize = decodedFormat.getFrameSize();
+        SeekIndex index = new SeekIndex();
+        index.add(0, 0, 0);
+        int frame = 0;
+        for (int pos = first; pos + 4 <= data.limit() && DurationProbe.sameStream(header, data.getInt(pos));) {
+            if (frame > 0 && frame % SPACING == 0) {
+                int skipped = undecodableFrames(data, pos);
+                if (skipped >= 0) {
+                    long start = Math.round((frame + skipped) * bytesPerFrame) * frameSize;
+                    long cleanStart = Math.round((frame + skipped + 1) * bytesPerFrame) * frameSize;
+                    index.add(cleanStart, start, pos);
+                }
+            }
+            pos += DurationProbe.mp3FrameLength(data.getInt(pos));
+            frame++;
+        }
+        return index;
+    }
+
+    /**
+     * the count of the leading frames a decoder opened at pos drops,-1 if
+     * unknown
+     * <p>
+     * 在指定位置打开的解码器丢弃的起始帧数，未知时为-1
+     */
+    private static int undecodableFrames(MappedByteBuffer data, int pos) {
+        long reservoir = 0;
+        for (int j = 0; j < RESERVOIR_FRAMES && pos + 6 <= data.limit(); j++) {
+            int h = data.getInt(pos);
+            int len = DurationProbe.mp3FrameLength(h);
+            if (len <= 0) {
+                return -1;
+            }
+            int layer = h >>> 17 & 3;
+            if (layer != 1) {
+                return 0;
+            }
+            boolean v1 = (h >>> 19 & 3) == 3;
+            boolean mono = (h >>> 6 & 3) == 3;
+            int crc = (h >>> 16 & 1) == 0 ? 2 : 0;
+            int sideInfo = v1 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+            int si = pos + 4 + crc;
+            int mainDataBegin = v1 ? (data.get(si) & 0xFF) << 1 | (data.get(si + 1) & 0x80) >> 7 : data.get(si) & 0xFF;
+            if (mainDataBegin <= reservoir) {
+                return j;
+            }
+            reservoir += len - 4 - crc - sideInfo;
+            pos += len;
+        }
+        return -1;
+    }
+
+    private void add(long cleanStart, long outputStart, long fileOffset) {
+        if (size > 0 && cleanStart <= clean[size - 1]) {
+            return;
+        }
+        if (size == clean.length) {
+            clean = Arrays.copyOf(clean, size * 2);
+            output = Arrays.copyOf(output, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        clean[size] = cleanStart;
+        output[size] = outputStart;
+        offsets[size] = fileOffset;
+        size++;
+    }
+
+    /**
+     * locate the last entry whose clean output begins at or before the target
+     * <p>
+     * 定位完整输出起点不晚于目标的最后一个条目
+     *
+     * @param decodedOffset
+     *            目标解码字节偏移
+     * @return 打开位置
+     */
+    Position locate(long decodedOffset) {
+        int i = Arrays.binarySearch(clean, 0, size, decodedOffset);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        i = Math.max(0, i);
+        return new Position(offsets[i], output[i]);
+    }
+
+    int size() {
+        return size;
+    }
+}
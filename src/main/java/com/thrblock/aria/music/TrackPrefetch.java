@@ -0,0 +1,177 @@
+package com.thrblock.aria.music;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import com.thrblock.aria.decoder.IDecoder;
+
+/**
+ * The next track of a playlist,opened and decoded ahead
+ * <p>
+ * 播放列表的下一音轨，预先打开并解码
+ * <p>
+ * The head of the track is decoded when opened,on the loader of the player.
+ * The crossfade reads from it first,then the rest is taken over as the stream
+ * of the track.
+ * <p>
+ * 在播放器的加载线程中打开并解码音轨开头部分；交叉淡化先行读取，之后其余部分作为音轨的音频流被接管
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class TrackPrefetch {
+    final File file;
+    final int index;
+    final AudioFormat format;
+    /**
+     * the decoded length from the headers,0 when unknown
+     * <p>
+     * 由容器头得到的解码字节总数，未知时为0
+     */
+    final long totalLength;
+    private final AudioInputStream stream;
+    private final byte[] head;
+    private final int headLength;
+    private int headPosition = 0;
+    private long consumed = 0;
+
+    private TrackPrefetch(File file, int index, AudioFormat format, AudioInputStream stream, byte[] head,
+            int headLength) {
+        this.file = file;
+        this.index = index;
+        this.format = format;
+        this.totalLength = DurationProbe.decodedLength(file, stream, format);
+        this.stream = stream;
+        this.head = head;
+        this.headLength = headLength;
+    }
+
+    /**
+     * open a track and decode its head
+     * <p>
+     * 打开音轨并解码开头部分
+     *
+     * @param file
+     *            音频文件
+     * @param index
+     *            播放列表位置
+     * @param decoder
+     *            解码器
+     * @param seconds
+     *            解码秒数
+     * @return 预取的音轨
+     * @throws UnsupportedAudioFileException
+     *             when decode not support 解码器不支持此格式时抛出
+     * @throws IOException
+     *             when a io error IO错误时抛出
+     */
+    static TrackPrefetch open(File file, int index, IDecoder decoder, float seconds)
+            throws UnsupportedAudioFileException, IOException {
+        AudioInputStream srcInput = AudioSystem.getAudioInputStream(file);
+        AudioFormat format;
+        AudioInputStream stream;
+        try {
+            format = decoder.getDecodedAudioFormat(srcInput.getFormat());
+            stream = decoder.getDecodedAudioInputStream(srcInput);
+        } catch (RuntimeException e) {
+            srcInput.close();
+            throw e;
+        }
+        try {
+            byte[] head = new byte[Math.max(0, (int) (format.getFrameRate() * seconds)) * format.getFrameSize()];
+            int length = 0;
+            for (int realRead = 0; realRead != -1 && length < head.length; realRead = stream.read(head, length,
+                    head.length - length)) {
+                length += realRead;
+            }
+            return new TrackPrefetch(file, index, format, stream, head, length);
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * read the decoded head first,then the stream
+     * <p>
+     * 先读取已解码的开头部分，再读取音频流
+     *
+     * @return length,-1 for the end 数据长度，-1表示结束
+     */
+    int read(byte[] dst, int off, int len) throws IOException {
+        int realRead;
+        if (headPosition < headLength) {
+            realRead = Math.min(len, headLength - headPosition);
+            System.arraycopy(head, headPosition, dst, off, realRead);
+            headPosition += realRead;
+        } else {
+            realRead = stream.read(dst, off, len);
+        }
+        if (realRead > 0) {
+            consumed += realRead;
+        }
+        return realRead;
+    }
+
+    /**
+     * read until the length is filled or the end
+     * <p>
+     * 读取直至填满或结束
+     *
+     * @return 实际读取字节数
+     */
+    int readFully(byte[] dst, int off, int len) throws IOException {
+        int length = 0;
+        for (int realRead = 0; realRead != -1 && length < len; realRead = read(dst, off + length, len - length)) {
+            length += realRead;
+        }
+        return length;
+    }
+
+    /**
+     * the decoded bytes read so far
+     * <p>
+     * 已读取的解码字节数
+     */
+    long consumed() {
+        return consumed;
+    }
+
+    /**
+     * take over the rest as the stream of the track
+     * <p>
+     * 将其余部分作为音轨的音频流接管
+     *
+     * @return 音频流
+     */
+    AudioInputStream takeStream() {
+        InputStream rest = new InputStream() {
+            private final byte[] single = new byte[1];
+
+            @Override
+            public int read() throws IOException {
+                return TrackPrefetch.this.read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return TrackPrefetch.this.read(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                stream.close();
+            }
+        };
+        return new AudioInputStream(rest, format, AudioSystem.NOT_SPECIFIED);
+    }
+
+    void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.thrblock.aria.sink;
+
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The output of the players,gives the lines they write to
+ * <p>
+ * 播放器的输出端，提供其写入的LINE
+ * <p>
+ * A realtime sink plays on a device and its lines block at the device pace.A
+ * non-realtime sink runs without the wall clock,so a session can be rendered
+ * at cpu speed.
+ * <p>
+ * 实时输出端在设备上播放，其LINE按设备节奏阻塞；非实时输出端不依赖真实时钟，可按CPU速度渲染整段会话
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see JavaSoundSink
+ * @see NullSink
+ * @see MemorySink
+ * @see WavFileSink
+ */
+public interface AudioSink {
+    /**
+     * get a line of the format and buffer size of the info,not opened
+     * <p>
+     * 按信息中的格式与缓冲区大小获得LINE，未打开
+     *
+     * @param info
+     *            LINE信息
+     * @return 未打开的LINE
+     * @throws LineUnavailableException
+     *             when the line can not be got or the format is not supported
+     *             无法获得LINE或格式不支持时抛出
+     */
+    SourceDataLine getLine(DataLine.Info info) throws LineUnavailableException;
+
+    /**
+     * whether the lines are paced by a device,the line underruns are only
+     * counted on a realtime sink
+     * <p>
+     * LINE是否由设备控制节奏，仅在实时输出端上统计LINE欠载
+     *
+     * @return 是否实时
+     */
+    boolean isRealtime();
+
+    /**
+     * hold the render of a non-realtime sink until the player thread releases
+     * it,called on the thread handing a command to the player.The render goes
+     * on while the player waits for room in one of its lines.A realtime sink
+     * ignores it
+     * <p>
+     * 在向播放线程交付指令的线程上调用，非实时输出端的渲染暂停直至播放线程释放；播放线程等待其LINE的空间时渲染继续；实时输出端忽略此调用
+     *
+     * @param player
+     *            播放线程
+     */
+    default void hold(Thread player) {
+    }
+
+    /**
+     * release a hold on the player thread once the command shows on its lines
+     * <p>
+     * 指令在播放线程的LINE上生效后释放一次保持
+     *
+     * @param player
+     *            播放线程
+     */
+    default void release(Thread player) {
+    }
+}
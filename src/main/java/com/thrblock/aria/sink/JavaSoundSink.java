@@ -0,0 +1,58 @@
+package com.thrblock.aria.sink;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The sink of the Java Sound device,the default of the players
+ * <p>
+ * Java Sound设备输出端，播放器的默认输出端
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class JavaSoundSink implements AudioSink {
+    private final Mixer.Info mixerInfo;
+
+    /**
+     * build on the default mixer
+     * <p>
+     * 在默认混音器上构造
+     */
+    public JavaSoundSink() {
+        this(null);
+    }
+
+    /**
+     * build on the given mixer
+     * <p>
+     * 在指定混音器上构造
+     *
+     * @param mixerInfo
+     *            mixer info,null for the default 混音器信息，为空时使用默认混音器
+     */
+    public JavaSoundSink(Mixer.Info mixerInfo) {
+        this.mixerInfo = mixerInfo;
+    }
+
+    @Override
+    public SourceDataLine getLine(DataLine.Info info) throws LineUnavailableException {
+        try {
+            if (mixerInfo == null) {
+                return (SourceDataLine) AudioSystem.getLine(info);
+            }
+            return (SourceDataLine) AudioSystem.getMixer(mixerInfo).getLine(info);
+        } catch (IllegalArgumentException e) {
+            LineUnavailableException wrapped = new LineUnavailableException(e.getMessage());
+            wrapped.initCause(e);
+            throw wrapped;
+        }
+    }
+
+    @Override
+    public boolean isRealtime() {
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package com.thrblock.aria.sink;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * The offline sink rendering into memory,for the regression checks
+ * <p>
+ * 渲染至内存的离线输出端，用于回归比对
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see OfflineSink
+ */
+public class MemorySink extends OfflineSink {
+    private final ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+
+    /**
+     * build with the default format,44.1k 16 bit stereo
+     * <p>
+     * 使用默认格式构造，44.1k 16位 立体声
+     */
+    public MemorySink() {
+        this(DEFAULT_FORMAT);
+    }
+
+    /**
+     * build with the output format
+     * <p>
+     * 使用输出格式构造
+     *
+     * @param format
+     *            16 bit signed pcm,mono or stereo 16位有符号PCM，单声道或立体声
+     */
+    public MemorySink(AudioFormat format) {
+        super(format);
+    }
+
+    @Override
+    protected void output(byte[] data, int off, int len) {
+        rendered.write(data, off, len);
+    }
+
+    /**
+     * get a copy of the rendered pcm
+     * <p>
+     * 获得已渲染PCM数据的副本
+     *
+     * @return 已渲染数据
+     */
+    public byte[] toByteArray() {
+        return rendered.toByteArray();
+    }
+
+    /**
+     * get the rendered pcm as a stream,eg. for AudioSystem.write
+     * <p>
+     * 以音频流形式获得已渲染数据，如用于AudioSystem.write
+     *
+     * @return 音频流
+     */
+    public AudioInputStream getAudioInputStream() {
+        byte[] data = toByteArray();
+        return new AudioInputStream(new ByteArrayInputStream(data), getFormat(), data.length
+                / getFormat().getFrameSize());
+    }
+}
@@ -0,0 +1,114 @@
+package com.thrblock.aria.sink;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The sink that discards everything at once,for the hosts without an audio
+ * device
+ * <p>
+ * 立即丢弃全部数据的输出端，用于无音频设备的主机
+ * <p>
+ * The lines never block,so the players run at cpu speed.
+ * <p>
+ * LINE从不阻塞，播放器按CPU速度运行
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class NullSink implements AudioSink {
+    private static final AudioFormat DEFAULT_FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    private final LongAdder written = new LongAdder();
+
+    @Override
+    public SourceDataLine getLine(DataLine.Info info) {
+        return new NullLine(info);
+    }
+
+    @Override
+    public boolean isRealtime() {
+        return false;
+    }
+
+    /**
+     * get the bytes written to all the lines
+     * <p>
+     * 获得所有LINE的写入字节数
+     *
+     * @return 写入字节数
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    private class NullLine extends SinkLine {
+        private volatile long frames = 0;
+
+        NullLine(DataLine.Info info) {
+            super(info, formatOf(info, DEFAULT_FORMAT));
+        }
+
+        @Override
+        void opened(AudioFormat format, int bufferSize) {
+            frames = 0;
+        }
+
+        @Override
+        void closed() {
+            // 无资源
+        }
+
+        @Override
+        public int write(byte[] b, int off, int len) {
+            checkFrames(len);
+            if (!open) {
+                return 0;
+            }
+            frames += len / format.getFrameSize();
+            written.add(len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return open ? bufferSize : 0;
+        }
+
+        @Override
+        public void drain() {
+            // 数据已全部丢弃
+        }
+
+        @Override
+        public void flush() {
+            // 数据已全部丢弃
+        }
+
+        @Override
+        public void start() {
+            started = true;
+        }
+
+        @Override
+        public void stop() {
+            started = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return started;
+        }
+
+        @Override
+        public boolean isActive() {
+            return started;
+        }
+
+        @Override
+        public long getLongFramePosition() {
+            return frames;
+        }
+    }
+}
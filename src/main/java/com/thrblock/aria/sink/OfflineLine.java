@@ -0,0 +1,231 @@
+package com.thrblock.aria.sink;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+
+import com.thrblock.aria.dsp.SampleBuffer;
+
+/**
+ * A line of an offline sink,a ring of the data ahead of the render clock
+ * <p>
+ * 离线输出端的LINE，保存领先于渲染时钟的数据的环形缓冲区
+ * <p>
+ * The ring state is guarded by the lock of the sink,the writes block on it
+ * while the ring is full.
+ * <p>
+ * 环形缓冲区状态由输出端的锁保护，缓冲区满时写入在该锁上阻塞
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class OfflineLine extends SinkLine {
+    private final OfflineSink sink;
+    private byte[] ring;
+    private int head = 0;
+    private int fill = 0;
+    private long consumed = 0;
+    private boolean draining = false;
+    /**
+     * the thread waiting in a write or drain of this line
+     * <p>
+     * 在此LINE的写入或排空中等待的线程
+     */
+    private Thread waiter;
+    private Thread writer;
+
+    OfflineLine(OfflineSink sink, DataLine.Info info, AudioFormat defaultFormat) {
+        super(info, defaultFormat);
+        this.sink = sink;
+    }
+
+    @Override
+    void opened(AudioFormat format, int bufferSize) throws LineUnavailableException {
+        synchronized (sink) {
+            ring = new byte[bufferSize];
+            head = 0;
+            fill = 0;
+            consumed = 0;
+        }
+        sink.add(this, format);
+    }
+
+    @Override
+    void closed() {
+        synchronized (sink) {
+            fill = 0;
+            sink.remove(this);
+        }
+    }
+
+    @Override
+    public int write(byte[] b, int off, int len) {
+        checkFrames(len);
+        int written = 0;
+        synchronized (sink) {
+            while (written < len) {
+                while (open && fill == ring.length && !sink.isClosed()) {
+                    try {
+                        await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return written;
+                    }
+                }
+                if (!open || sink.isClosed()) {
+                    break;
+                }
+                int n = Math.min(len - written, ring.length - fill);
+                int tail = (head + fill) % ring.length;
+                int first = Math.min(n, ring.length - tail);
+                System.arraycopy(b, off + written, ring, tail, first);
+                System.arraycopy(b, off + written + first, ring, 0, n - first);
+                fill += n;
+                written += n;
+                writer = Thread.currentThread();
+                sink.touch();
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public int available() {
+        synchronized (sink) {
+            return open ? ring.length - fill : 0;
+        }
+    }
+
+    @Override
+    public void drain() {
+        synchronized (sink) {
+            draining = true;
+            try {
+                while (open && started && fill > 0 && !sink.isClosed()) {
+                    await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                draining = false;
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        synchronized (sink) {
+            head = 0;
+            fill = 0;
+            sink.touch();
+        }
+    }
+
+    @Override
+    public void start() {
+        synchronized (sink) {
+            started = true;
+            sink.touch();
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (sink) {
+            started = false;
+            sink.touch();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        synchronized (sink) {
+            return started && fill > 0;
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return isRunning();
+    }
+
+    @Override
+    public long getLongFramePosition() {
+        synchronized (sink) {
+            return consumed;
+        }
+    }
+
+    /**
+     * sink:whether the render waits for this line,it plays but has less data
+     * than the block.A line with nothing more to play must be stopped,drained
+     * or closed
+     * <p>
+     * 输出端调用：渲染是否等待此LINE，即正在播放但数据不足一块；无后续数据的LINE须停止、排空或关闭
+     */
+    boolean isShort(int frames) {
+        return open && started && !draining && fill < frames * format.getFrameSize();
+    }
+
+    /**
+     * sink:whether the thread waits on this line for the render,for room to
+     * write or for the data to drain
+     * <p>
+     * 输出端调用：线程是否在此LINE上等待渲染，即等待写入空间或等待数据排空
+     */
+    boolean isStalled(Thread thread) {
+        return waiter == thread && (draining ? fill > 0 : fill == ring.length);
+    }
+
+    /**
+     * sink:the thread writing this line while it plays,null when stopped,
+     * draining or never written
+     * <p>
+     * 输出端调用：LINE播放时写入它的线程，已停止、排空中或未写入时为null
+     */
+    Thread filler() {
+        return open && started && !draining ? writer : null;
+    }
+
+    /**
+     * wait with the lock of the sink held,the render is notified of the waiter
+     * <p>
+     * 持有输出端锁时等待，并通知渲染有线程等待
+     */
+    private void await() throws InterruptedException {
+        waiter = Thread.currentThread();
+        sink.touch();
+        try {
+            sink.wait();
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * sink:add the next frames to the mix,converted to the sink channels
+     * <p>
+     * 输出端调用：将后续帧转换为输出端声道数后叠加至混音
+     */
+    void mixInto(int[] mix, int frames, int channels) {
+        if (!open || !started) {
+            return;
+        }
+        int frameSize = format.getFrameSize();
+        int lineChannels = format.getChannels();
+        boolean bigEndian = format.isBigEndian();
+        int count = Math.min(frames, fill / frameSize);
+        for (int f = 0, pos = head; f < count; f++, pos = (pos + frameSize) % ring.length) {
+            int left = SampleBuffer.readSample(ring, pos, bigEndian);
+            int right = lineChannels == 2 ? SampleBuffer.readSample(ring, pos + 2, bigEndian) : left;
+            if (channels == 2) {
+                mix[f * 2] += left;
+                mix[f * 2 + 1] += right;
+            } else {
+                mix[f] += lineChannels == 2 ? (left + right) / 2 : left;
+            }
+        }
+        head = (head + count * frameSize) % ring.length;
+        fill -= count * frameSize;
+        consumed += count;
+    }
+}
@@ -0,0 +1,409 @@
+package com.thrblock.aria.sink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import com.thrblock.aria.dsp.SampleBuffer;
+import com.thrblock.aria.sound.AriaSoundException;
+
+/**
+ * A sink mixing all its lines on a render clock driven by the caller
+ * <p>
+ * 在调用方驱动的渲染时钟上混合所有LINE的输出端
+ * <p>
+ * Each line buffers ahead of the clock up to its buffer size,then its writes
+ * block as on a device.{@link #advance(long)} moves the clock at cpu speed and
+ * waits for every started line short of data,the stopped,draining and closed
+ * lines are not waited for.A command handed to a player holds the render until
+ * the player takes it,see {@link AudioSink#hold(Thread)},and each advance
+ * returns once these players wait for the render,so the commands given between
+ * two advances land at the same render position each run whatever the thread
+ * timing.The sound mixer and the music player take part,the lines of the other
+ * writers are only waited for while short.
+ * <p>
+ * 每条LINE最多领先时钟一个缓冲区的数据，之后写入如同在设备上一样阻塞；{@link #advance(long)}
+ * 以CPU速度推进时钟并等待每条数据不足的已开始LINE，已停止、排空中与已关闭的LINE不被等待；
+ * 交付给播放器的指令使渲染暂停直至播放器接收，见 {@link AudioSink#hold(Thread)}，每次推进在这些播放器等待渲染后返回，
+ * 因此无论线程时序如何，两次推进之间发出的指令每次运行都落在相同的渲染位置；音效混音器与音乐播放器参与此过程，其他写入方的LINE仅在数据不足时被等待
+ * <p>
+ * The lines must be 16 bit signed pcm of the sink sample rate,mono or stereo.
+ * Decode with a {@link com.thrblock.aria.decoder.ResamplingDecoder} for the
+ * other rates.
+ * <p>
+ * LINE须为与输出端采样率相同的16位有符号PCM，单声道或立体声；其他采样率可使用
+ * {@link com.thrblock.aria.decoder.ResamplingDecoder} 解码
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public abstract class OfflineSink implements AudioSink, AutoCloseable {
+    /**
+     * 44.1k 16 bit stereo little endian
+     * <p>
+     * 44.1k 16位 立体声 小端
+     */
+    public static final AudioFormat DEFAULT_FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    /**
+     * the render block in seconds,the position a new line lands on is
+     * rounded to it
+     * <p>
+     * 以秒计的渲染块，新LINE的落点按此取整
+     */
+    private static final float BLOCK_SECONDS = 0.01f;
+    /**
+     * the interval the render checks if a held player thread has ended
+     * <p>
+     * 渲染检查被保持的播放线程是否已结束的间隔
+     */
+    private static final long RECHECK_MILLIS = 100;
+
+    private final AudioFormat format;
+    private final int channels;
+    private final boolean bigEndian;
+    private final int blockFrames;
+    private final int[] mixCache;
+    private final byte[] outCache;
+    /**
+     * the lines,guarded by this
+     * <p>
+     * 所有LINE，由本对象锁保护
+     */
+    private final List<OfflineLine> lines = new ArrayList<>();
+    /**
+     * the commands each player thread has not taken yet,guarded by this
+     * <p>
+     * 各播放线程尚未接收的指令数，由本对象锁保护
+     */
+    private final Map<Thread, Integer> holds = new HashMap<>();
+    /**
+     * the threads that took a hold,guarded by this
+     * <p>
+     * 曾被保持的播放线程，由本对象锁保护
+     */
+    private final Set<Thread> players = new HashSet<>();
+    private volatile long position = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * build with the output format
+     * <p>
+     * 使用输出格式构造
+     *
+     * @param format
+     *            16 bit signed pcm,mono or stereo 16位有符号PCM，单声道或立体声
+     */
+    protected OfflineSink(AudioFormat format) {
+        if (!SampleBuffer.supports(format) || format.getChannels() < 1 || format.getChannels() > 2) {
+            throw new IllegalArgumentException("sink format must be 16 bit signed pcm,mono or stereo:" + format);
+        }
+        this.format = format;
+        this.channels = format.getChannels();
+        this.bigEndian = format.isBigEndian();
+        this.blockFrames = Math.max(1, Math.round(format.getSampleRate() * BLOCK_SECONDS));
+        this.mixCache = new int[blockFrames * channels];
+        this.outCache = new byte[blockFrames * channels * 2];
+    }
+
+    /**
+     * write a rendered block
+     * <p>
+     * 写出已渲染的块
+     *
+     * @param data
+     *            数据
+     * @param off
+     *            起始偏移
+     * @param len
+     *            字节数
+     * @throws IOException
+     *             当写出失败时抛出
+     */
+    protected abstract void output(byte[] data, int off, int len) throws IOException;
+
+    /**
+     * finish the output when closed
+     * <p>
+     * 关闭时结束输出
+     *
+     * @throws IOException
+     *             当写出失败时抛出
+     */
+    protected void finish() throws IOException {
+    }
+
+    @Override
+    public SourceDataLine getLine(DataLine.Info info) throws LineUnavailableException {
+        if (closed) {
+            throw new LineUnavailableException("sink closed");
+        }
+        return new OfflineLine(this, info, SinkLine.formatOf(info, format));
+    }
+
+    @Override
+    public boolean isRealtime() {
+        return false;
+    }
+
+    /**
+     * get the output format
+     * <p>
+     * 获得输出格式
+     *
+     * @return 输出格式
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * get the render position in frames
+     * <p>
+     * 获得以帧计的渲染位置
+     *
+     * @return 渲染位置
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * get the render position in millisecond
+     * <p>
+     * 获得以毫秒计的渲染位置
+     *
+     * @return 渲染位置
+     */
+    public long getMillisecondPosition() {
+        return (long) (position * 1000.0 / format.getFrameRate());
+    }
+
+    @Override
+    public synchronized void hold(Thread player) {
+        holds.merge(player, 1, Integer::sum);
+        players.add(player);
+    }
+
+    @Override
+    public synchronized void release(Thread player) {
+        holds.computeIfPresent(player, (k, n) -> n == 1 ? null : n - 1);
+        notifyAll();
+    }
+
+    /**
+     * render the given time,the commands given before take effect at the
+     * current position,after the data the lines buffered.It returns once the
+     * players wait for the render
+     * <p>
+     * 渲染指定时长，此前发出的指令在当前位置、各LINE已缓冲的数据之后生效；在各播放器等待渲染后返回
+     *
+     * @param millis
+     *            渲染毫秒数
+     * @throws AriaSoundException
+     *             when the output fails or interrupted 当写出失败或中断时抛出
+     */
+    public void advance(long millis) throws AriaSoundException {
+        advanceFrames(Math.round(millis * (double) format.getFrameRate() / 1000));
+    }
+
+    /**
+     * render the given frames
+     * <p>
+     * 渲染指定帧数
+     *
+     * @param frames
+     *            渲染帧数
+     * @throws AriaSoundException
+     *             when the output fails or interrupted 当写出失败或中断时抛出
+     */
+    public void advanceFrames(long frames) throws AriaSoundException {
+        try {
+            settle();
+            for (long done = 0; done < frames;) {
+                int n = (int) Math.min(blockFrames, frames - done);
+                synchronized (this) {
+                    if (closed) {
+                        throw new IllegalStateException("sink closed");
+                    }
+                    awaitLines(n);
+                    mix(n);
+                    position += n;
+                    notifyAll();
+                }
+                output(outCache, 0, n * channels * 2);
+                done += n;
+            }
+            settle();
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * close all the lines and finish the output,the blocked writers return
+     * <p>
+     * 关闭所有LINE并结束输出，阻塞中的写入返回
+     *
+     * @throws AriaSoundException
+     *             when the output fails 当写出失败时抛出
+     */
+    @Override
+    public void close() throws AriaSoundException {
+        List<OfflineLine> toClose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(lines);
+            notifyAll();
+        }
+        for (OfflineLine line : toClose) {
+            line.close();
+        }
+        try {
+            finish();
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * line:a line is opened,started,written,waited on or closed.Called with
+     * the lock held
+     * <p>
+     * LINE调用：LINE打开、开始、写入、被等待或关闭，调用时持有锁
+     */
+    void touch() {
+        notifyAll();
+    }
+
+    void add(OfflineLine line, AudioFormat lineFormat) throws LineUnavailableException {
+        if (!SampleBuffer.supports(lineFormat) || lineFormat.getChannels() < 1 || lineFormat.getChannels() > 2
+                || lineFormat.getSampleRate() != format.getSampleRate()) {
+            throw new LineUnavailableException("format not supported by the sink:" + lineFormat + ",decode to "
+                    + format);
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new LineUnavailableException("sink closed");
+            }
+            lines.add(line);
+            touch();
+        }
+    }
+
+    synchronized void remove(OfflineLine line) {
+        lines.remove(line);
+        touch();
+    }
+
+    /**
+     * wait until each player waits for the render:for room in its line or for
+     * its line to drain,or it plays no line
+     * <p>
+     * 等待各播放器均在等待渲染：等待LINE空间、等待LINE排空或未在播放LINE
+     */
+    private synchronized void settle() throws InterruptedException {
+        while (!closed && (isHeld() || isFilling())) {
+            wait(RECHECK_MILLIS);
+        }
+    }
+
+    /**
+     * wait for the held players and the lines short of the next block
+     * <p>
+     * 等待被保持的播放线程与数据不足下一块的LINE
+     */
+    private void awaitLines(int frames) throws InterruptedException {
+        while (!closed) {
+            if (isHeld()) {
+                wait(RECHECK_MILLIS);
+            } else if (isShort(frames)) {
+                wait();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * whether a player thread has commands to take and does not wait for the
+     * render,the holds of the ended threads are dropped
+     * <p>
+     * 是否有播放线程尚有指令待接收且未在等待渲染，已结束线程的保持被丢弃
+     */
+    private boolean isHeld() {
+        for (Iterator<Thread> it = holds.keySet().iterator(); it.hasNext();) {
+            Thread player = it.next();
+            if (!player.isAlive()) {
+                it.remove();
+            } else if (!isStalled(player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * whether a player still fills a playing line,the ended threads are
+     * dropped
+     * <p>
+     * 是否有播放线程仍在填充播放中的LINE，已结束的线程被丢弃
+     */
+    private boolean isFilling() {
+        players.removeIf(player -> !player.isAlive());
+        for (OfflineLine line : lines) {
+            Thread filler = line.filler();
+            if (filler != null && players.contains(filler) && !isStalled(filler)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isStalled(Thread player) {
+        for (OfflineLine line : lines) {
+            if (line.isStalled(player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isShort(int frames) {
+        for (OfflineLine line : lines) {
+            if (line.isShort(frames)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void mix(int frames) {
+        Arrays.fill(mixCache, 0, frames * channels, 0);
+        for (OfflineLine line : lines) {
+            line.mixInto(mixCache, frames, channels);
+        }
+        for (int i = 0; i < frames * channels; i++) {
+            SampleBuffer.writeSample(outCache, i * 2, mixCache[i], bigEndian);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.thrblock.aria.sink;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The common part of the lines of the software sinks,no controls and no
+ * events
+ * <p>
+ * 软件输出端LINE的公共部分，无控制器且不发送事件
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+abstract class SinkLine implements SourceDataLine {
+    private final DataLine.Info info;
+    private final AudioFormat defaultFormat;
+    private final int defaultBufferSize;
+    protected volatile AudioFormat format;
+    protected volatile int bufferSize;
+    protected volatile boolean open = false;
+    protected volatile boolean started = false;
+
+    SinkLine(DataLine.Info info, AudioFormat defaultFormat) {
+        this.info = info;
+        this.defaultFormat = defaultFormat;
+        this.defaultBufferSize = info.getMaxBufferSize();
+        this.format = defaultFormat;
+    }
+
+    /**
+     * check the format and take the resources,the fields are set after
+     * <p>
+     * 检查格式并占用资源，之后设置字段
+     */
+    abstract void opened(AudioFormat format, int bufferSize) throws LineUnavailableException;
+
+    /**
+     * release the resources
+     * <p>
+     * 释放资源
+     */
+    abstract void closed();
+
+    @Override
+    public void open() throws LineUnavailableException {
+        open(defaultFormat, defaultBufferSize);
+    }
+
+    @Override
+    public void open(AudioFormat format) throws LineUnavailableException {
+        open(format, defaultBufferSize);
+    }
+
+    @Override
+    public synchronized void open(AudioFormat format, int bufferSize) throws LineUnavailableException {
+        if (open) {
+            return;
+        }
+        int frameSize = Math.max(1, format.getFrameSize());
+        int size = bufferSize > 0 ? bufferSize : (int) Math.max(1, format.getFrameRate() / 2) * frameSize;
+        size = Math.max(frameSize, size - size % frameSize);
+        opened(format, size);
+        this.format = format;
+        this.bufferSize = size;
+        this.open = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (open) {
+            open = false;
+            started = false;
+            closed();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public Line.Info getLineInfo() {
+        return info;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public int getFramePosition() {
+        return (int) getLongFramePosition();
+    }
+
+    @Override
+    public long getMicrosecondPosition() {
+        return (long) (getLongFramePosition() * 1_000_000.0 / format.getFrameRate());
+    }
+
+    @Override
+    public float getLevel() {
+        return AudioSystem.NOT_SPECIFIED;
+    }
+
+    @Override
+    public Control[] getControls() {
+        return new Control[0];
+    }
+
+    @Override
+    public boolean isControlSupported(Control.Type control) {
+        return false;
+    }
+
+    @Override
+    public Control getControl(Control.Type control) {
+        throw new IllegalArgumentException("Unsupported control type: " + control);
+    }
+
+    @Override
+    public void addLineListener(LineListener listener) {
+        // 软件LINE不发送事件
+    }
+
+    @Override
+    public void removeLineListener(LineListener listener) {
+        // 软件LINE不发送事件
+    }
+
+    /**
+     * check the length is of whole frames
+     * <p>
+     * 检查长度为整数帧
+     */
+    void checkFrames(int len) {
+        if (len % format.getFrameSize() != 0) {
+            throw new IllegalArgumentException("illegal request to write non-integral number of frames (" + len
+                    + " bytes, frameSize = " + format.getFrameSize() + " bytes)");
+        }
+    }
+
+    /**
+     * the format of the info,or else the given one
+     * <p>
+     * 信息中的格式，不存在时使用给定格式
+     */
+    static AudioFormat formatOf(DataLine.Info info, AudioFormat orElse) {
+        AudioFormat[] formats = info.getFormats();
+        return formats.length > 0 ? formats[0] : orElse;
+    }
+}
@@ -0,0 +1,126 @@
+package com.thrblock.aria.sink;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import javax.sound.sampled.AudioFormat;
+
+import com.thrblock.aria.sound.AriaSoundException;
+
+/**
+ * The offline sink rendering into a wav file,for pre-baking
+ * <p>
+ * 渲染至WAV文件的离线输出端，用于预先烘焙
+ * <p>
+ * The data is streamed to the file as rendered,the lengths in the header are
+ * written on close.
+ * <p>
+ * 数据在渲染时即写入文件，头部长度在关闭时写入
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see OfflineSink
+ */
+public class WavFileSink extends OfflineSink {
+    private static final int HEADER_LENGTH = 44;
+    private static final int WRITE_CACHE_LENGTH = 64 * 1024;
+
+    private final File file;
+    private final OutputStream out;
+    private long dataLength = 0;
+
+    /**
+     * build with the default format,44.1k 16 bit stereo
+     * <p>
+     * 使用默认格式构造，44.1k 16位 立体声
+     *
+     * @param file
+     *            WAV文件
+     * @throws AriaSoundException
+     *             when the file can not be created 无法创建文件时抛出
+     */
+    public WavFileSink(File file) throws AriaSoundException {
+        this(file, DEFAULT_FORMAT);
+    }
+
+    /**
+     * build with the output format,written little endian
+     * <p>
+     * 使用输出格式构造，以小端写入
+     *
+     * @param file
+     *            WAV文件
+     * @param format
+     *            16 bit signed pcm,mono or stereo 16位有符号PCM，单声道或立体声
+     * @throws AriaSoundException
+     *             when the file can not be created 无法创建文件时抛出
+     */
+    public WavFileSink(File file, AudioFormat format) throws AriaSoundException {
+        super(new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false));
+        this.file = file;
+        try {
+            this.out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), WRITE_CACHE_LENGTH);
+            out.write(header(getFormat(), 0));
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    @Override
+    protected void output(byte[] data, int off, int len) throws IOException {
+        out.write(data, off, len);
+        dataLength += len;
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        out.close();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.wrap(header(getFormat(), dataLength));
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * get the file
+     * <p>
+     * 获得WAV文件
+     *
+     * @return WAV文件
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * the header of a 16 bit pcm wav file
+     * <p>
+     * 16位PCM WAV文件的头部
+     *
+     * @param format
+     *            16位PCM格式
+     * @param dataLength
+     *            data length in bytes,0 when not known yet 数据字节数，未知时为0
+     * @return 44字节的头部
+     */
+    public static byte[] header(AudioFormat format, long dataLength) {
+        int frameSize = format.getFrameSize();
+        long length = Math.min(dataLength, 0xFFFFFFFFL - (HEADER_LENGTH - 8));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(new byte[] { 'R', 'I', 'F', 'F' }).putInt((int) (length + HEADER_LENGTH - 8));
+        header.put(new byte[] { 'W', 'A', 'V', 'E', 'f', 'm', 't', ' ' }).putInt(16);
+        header.putShort((short) 1).putShort((short) format.getChannels());
+        header.putInt((int) format.getSampleRate()).putInt((int) format.getSampleRate() * frameSize);
+        header.putShort((short) frameSize).putShort((short) format.getSampleSizeInBits());
+        header.put(new byte[] { 'd', 'a', 't', 'a' }).putInt((int) length);
+        return header.array();
+    }
+}
@@ -0,0 +1,201 @@
+package com.thrblock.aria.sound;
+
+import com.thrblock.aria.dsp.SampleBuffer;
+
+/**
+ * Decoded pcm data kept as IMA ADPCM,about 4:1 of 16 bit pcm
+ * <p>
+ * 以IMA ADPCM保存的解码数据，约为16位PCM的四分之一
+ * <p>
+ * The data is split into blocks of {@value #BLOCK_FRAMES} frames,each channel
+ * of a block starts with a raw sample and the step index so any block can be
+ * decoded alone.A read decodes only the blocks it touches,the reader of a
+ * voice keeps the last decoded block so the playing decodes each block once.
+ * <p>
+ * 数据按{@value #BLOCK_FRAMES}帧分块，每块各声道以原始采样与步长索引开头，可独立解码；
+ * 读取时仅解码涉及的块，发声实例的读取器保留最近解码的块，播放时每块仅解码一次
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class AdpcmPcmData implements PcmData {
+    static final int BLOCK_FRAMES = 1024;
+    /**
+     * header bytes of each channel in a block,sample and step index
+     * <p>
+     * 块内每声道的头字节数，包括原始采样与步长索引
+     */
+    private static final int HEADER_LENGTH = 3;
+    private static final int CHANNEL_BLOCK_LENGTH = HEADER_LENGTH + BLOCK_FRAMES / 2;
+
+    private static final int[] INDEX_TABLE = { -1, -1, -1, -1, 2, 4, 6, 8, -1, -1, -1, -1, 2, 4, 6, 8 };
+    private static final int[] STEP_TABLE = { 7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34,
+            37, 41, 45, 50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878,
+            2066, 2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493,
+            10442, 11487, 12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767 };
+
+    private final byte[] compressed;
+    private final int channels;
+    private final boolean bigEndian;
+    private final int frameSize;
+    private final int length;
+    private final int blockLength;
+
+    /**
+     * encode 16 bit pcm
+     * <p>
+     * 编码16位PCM
+     *
+     * @param pcm
+     *            16位PCM
+     * @param channels
+     *            声道数
+     * @param bigEndian
+     *            是否大端
+     */
+    AdpcmPcmData(byte[] pcm, int channels, boolean bigEndian) {
+        this.channels = channels;
+        this.bigEndian = bigEndian;
+        this.frameSize = channels * 2;
+        this.length = pcm.length - pcm.length % frameSize;
+        this.blockLength = channels * CHANNEL_BLOCK_LENGTH;
+        int frames = length / frameSize;
+        int blocks = (frames + BLOCK_FRAMES - 1) / BLOCK_FRAMES;
+        this.compressed = new byte[blocks * blockLength];
+        int[] index = new int[channels];
+        for (int b = 0; b < blocks; b++) {
+            int firstFrame = b * BLOCK_FRAMES;
+            int blockFrames = Math.min(BLOCK_FRAMES, frames - firstFrame);
+            for (int c = 0; c < channels; c++) {
+                index[c] = encodeChannel(pcm, firstFrame, blockFrames, c, index[c], b * blockLength + c
+                        * CHANNEL_BLOCK_LENGTH);
+            }
+        }
+    }
+
+    private int encodeChannel(byte[] pcm, int firstFrame, int blockFrames, int c, int startIndex, int out) {
+        int predictor = SampleBuffer.readSample(pcm, (firstFrame * channels + c) * 2, bigEndian);
+        int index = startIndex;
+        compressed[out] = (byte) predictor;
+        compressed[out + 1] = (byte) (predictor >> 8);
+        compressed[out + 2] = (byte) index;
+        for (int i = 1; i < blockFrames; i++) {
+            int sample = SampleBuffer.readSample(pcm, ((firstFrame + i) * channels + c) * 2, bigEndian);
+            int step = STEP_TABLE[index];
+            int diff = sample - predictor;
+            int nibble = 0;
+            if (diff < 0) {
+                nibble = 8;
+                diff = -diff;
+            }
+            int vpdiff = step >> 3;
+            if (diff >= step) {
+                nibble |= 4;
+                diff -= step;
+                vpdiff += step;
+            }
+            step >>= 1;
+            if (diff >= step) {
+                nibble |= 2;
+                diff -= step;
+                vpdiff += step;
+            }
+            step >>= 1;
+            if (diff >= step) {
+                nibble |= 1;
+                vpdiff += step;
+            }
+            predictor = clamp((nibble & 8) != 0 ? predictor - vpdiff : predictor + vpdiff);
+            index = Math.max(0, Math.min(88, index + INDEX_TABLE[nibble]));
+            int pos = out + HEADER_LENGTH + (i - 1) / 2;
+            compressed[pos] |= (i - 1) % 2 == 0 ? nibble : nibble << 4;
+        }
+        return index;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int read(int position, byte[] dst, int off, int len) {
+        return new BlockReader().read(position, dst, off, len);
+    }
+
+    @Override
+    public Reader newReader() {
+        return new BlockReader();
+    }
+
+    /**
+     * decode all the channels of a block into 16 bit pcm
+     * <p>
+     * 将块内全部声道解码为16位PCM
+     */
+    private void decodeBlock(int block, byte[] out) {
+        int firstFrame = block * BLOCK_FRAMES;
+        int blockFrames = Math.min(BLOCK_FRAMES, length / frameSize - firstFrame);
+        for (int c = 0; c < channels; c++) {
+            int in = block * blockLength + c * CHANNEL_BLOCK_LENGTH;
+            int predictor = SampleBuffer.readSample(compressed, in, false);
+            int index = compressed[in + 2];
+            SampleBuffer.writeSample(out, c * 2, predictor, bigEndian);
+            for (int i = 1; i < blockFrames; i++) {
+                int packed = compressed[in + HEADER_LENGTH + (i - 1) / 2];
+                int nibble = (i - 1) % 2 == 0 ? packed & 0xF : (packed >> 4) & 0xF;
+                int step = STEP_TABLE[index];
+                int vpdiff = step >> 3;
+                if ((nibble & 4) != 0) {
+                    vpdiff += step;
+                }
+                if ((nibble & 2) != 0) {
+                    vpdiff += step >> 1;
+                }
+                if ((nibble & 1) != 0) {
+                    vpdiff += step >> 2;
+                }
+                predictor = clamp((nibble & 8) != 0 ? predictor - vpdiff : predictor + vpdiff);
+                index = Math.max(0, Math.min(88, index + INDEX_TABLE[nibble]));
+                SampleBuffer.writeSample(out, i * frameSize + c * 2, predictor, bigEndian);
+            }
+        }
+    }
+
+    private static int clamp(int sample) {
+        return sample > Short.MAX_VALUE ? Short.MAX_VALUE : sample < Short.MIN_VALUE ? Short.MIN_VALUE : sample;
+    }
+
+    @Override
+    public int residentLength() {
+        return compressed.length;
+    }
+
+    /**
+     * Keeps the last decoded block,a sequential read decodes each block once
+     * <p>
+     * 保留最近解码的块，顺序读取时每块仅解码一次
+     */
+    private final class BlockReader implements Reader {
+        private final byte[] pcm = new byte[BLOCK_FRAMES * frameSize];
+        private int block = -1;
+
+        @Override
+        public int read(int position, byte[] dst, int off, int len) {
+            int n = Math.max(0, Math.min(len, length - position));
+            for (int done = 0; done < n;) {
+                int pos = position + done;
+                int target = pos / pcm.length;
+                if (target != block) {
+                    decodeBlock(target, pcm);
+                    block = target;
+                }
+                int inBlock = pos - target * pcm.length;
+                int count = Math.min(n - done, pcm.length - inBlock);
+                System.arraycopy(pcm, inBlock, dst, off + done, count);
+                done += count;
+            }
+            return n;
+        }
+    }
+}
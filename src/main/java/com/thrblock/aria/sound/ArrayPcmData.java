@@ -0,0 +1,28 @@
+package com.thrblock.aria.sound;
+
+/**
+ * Decoded pcm data in a heap byte array
+ * <p>
+ * 堆内字节数组存储的解码数据
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class ArrayPcmData implements PcmData {
+    private final byte[] decodedSrc;
+
+    ArrayPcmData(byte[] decodedSrc) {
+        this.decodedSrc = decodedSrc;
+    }
+
+    @Override
+    public int length() {
+        return decodedSrc.length;
+    }
+
+    @Override
+    public int read(int position, byte[] dst, int off, int len) {
+        int n = Math.min(len, decodedSrc.length - position);
+        System.arraycopy(decodedSrc, position, dst, off, n);
+        return n;
+    }
+}
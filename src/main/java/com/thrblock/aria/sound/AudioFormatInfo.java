@@ -11,6 +11,8 @@ import javax.sound.sampled.AudioFormat;
 public class AudioFormatInfo {
     final float sampleRate;
     final int channel;
+    final int sampleSize;
+    final boolean bigEndian;
 
     /**
      * warp a AudioFormat<p>
@@ -21,11 +23,13 @@ public class AudioFormatInfo {
     public AudioFormatInfo(AudioFormat format) {
         this.sampleRate = format.getSampleRate();
         this.channel = format.getChannels();
+        this.sampleSize = format.getSampleSizeInBits();
+        this.bigEndian = format.isBigEndian();
     }
 
     @Override
     public String toString() {
-        return "[channel:" + channel + ",sampleRate:" + sampleRate + "]";
+        return "[channel:" + channel + ",sampleRate:" + sampleRate + ",sampleSize:" + sampleSize + "]";
     }
 
     @Override
@@ -37,7 +41,8 @@ public class AudioFormatInfo {
     public boolean equals(Object obj) {
         if (obj instanceof AudioFormatInfo) {
             AudioFormatInfo another = (AudioFormatInfo) obj;
-            return another.channel == this.channel && another.sampleRate == this.sampleRate;
+            return another.channel == this.channel && another.sampleRate == this.sampleRate
+                    && another.sampleSize == this.sampleSize && another.bigEndian == this.bigEndian;
         } else {
             return false;
         }
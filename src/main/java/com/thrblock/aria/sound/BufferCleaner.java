@@ -0,0 +1,72 @@
+package com.thrblock.aria.sound;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Free direct or mapped buffers at once instead of waiting for gc
+ * <p>
+ * 立即释放直接缓冲区或映射缓冲区，而非等待GC
+ * <p>
+ * When no cleaner is accessible the buffer is left to gc.
+ * <p>
+ * 无法访问清理器时由GC回收
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class BufferCleaner {
+    private static final Logger LOG = LoggerFactory.getLogger(BufferCleaner.class);
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private BufferCleaner() {
+    }
+
+    /**
+     * free the buffer,it must not be accessed after
+     * <p>
+     * 释放缓冲区，之后不可再访问
+     *
+     * @param buffer
+     *            直接缓冲区或映射缓冲区
+     */
+    public static void free(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            return;
+        }
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.debug("Buffer left to gc:" + e);
+        }
+    }
+}
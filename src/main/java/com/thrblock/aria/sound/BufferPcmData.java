@@ -0,0 +1,85 @@
+package com.thrblock.aria.sound;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decoded pcm data in a byte buffer view,eg.a memory mapped file
+ * <p>
+ * 字节缓冲区视图存储的解码数据，如内存映射文件
+ * <p>
+ * Each read bulk gets through its own duplicate,so the buffer position is
+ * never moved and the buffer can be shared by voices.
+ * <p>
+ * 每次读取经各自的副本批量读取，不改变缓冲区位置，缓冲区可由多个发声共享
+ * <p>
+ * An owned buffer is freed on release once the running reads are done.
+ * <p>
+ * 自有缓冲区在释放时等待进行中的读取结束后立即回收
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class BufferPcmData implements PcmData {
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int length;
+    private final boolean owned;
+    private final AtomicInteger readers = new AtomicInteger();
+    private volatile boolean released = false;
+
+    /**
+     * build on a buffer view
+     * <p>
+     * 在缓冲区视图上构造
+     *
+     * @param buffer
+     *            缓冲区，从当前位置到限制位置
+     * @param owned
+     *            free the buffer on release 释放时是否回收缓冲区
+     */
+    BufferPcmData(ByteBuffer buffer, boolean owned) {
+        this.buffer = buffer;
+        this.base = buffer.position();
+        this.length = buffer.remaining();
+        this.owned = owned;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int read(int position, byte[] dst, int off, int len) {
+        readers.incrementAndGet();
+        try {
+            if (released) {
+                return 0;
+            }
+            int n = Math.min(len, length - position);
+            if (n > 0) {
+                ByteBuffer view = buffer.duplicate();
+                view.limit(base + position + n);
+                view.position(base + position);
+                view.get(dst, off, n);
+            }
+            return n;
+        } finally {
+            readers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        while (readers.get() > 0) {
+            Thread.yield();
+        }
+        if (owned) {
+            BufferCleaner.free(buffer);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.thrblock.aria.sound;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import com.thrblock.aria.metrics.AriaMetrics;
+import com.thrblock.aria.sink.AudioSink;
+import com.thrblock.aria.sink.JavaSoundSink;
+
+/**
+ * The pool of opened source data lines,keyed by audio format
+ * <p>
+ * 已打开LINE的池，按音频格式划分
+ * <p>
+ * A returned line is stopped but kept open,so the next play skips the
+ * getLine/open round trip.
+ * <p>
+ * 归还的LINE仅停止而不关闭，下次播放时省去获取与打开LINE的开销
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class LinePool {
+    private final Map<AudioFormatInfo, Deque<IdleLine>> idleLines = new ConcurrentHashMap<>();
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final int lineCacheLength;
+    private volatile AudioSink sink;
+    private volatile int maxIdlePerFormat = 4;
+    private volatile int maxLines = 0;
+    private volatile long idleTimeout = 30_000;
+    private volatile long lastEvict = System.currentTimeMillis();
+    private volatile boolean closed = false;
+
+    /**
+     * build a pool
+     * <p>
+     * 构造LINE池
+     *
+     * @param lineCacheLength
+     *            LINE缓冲区大小
+     */
+    public LinePool(int lineCacheLength) {
+        this(lineCacheLength, new JavaSoundSink());
+    }
+
+    /**
+     * build a pool on the given sink
+     * <p>
+     * 在指定输出端上构造LINE池
+     *
+     * @param lineCacheLength
+     *            LINE缓冲区大小
+     * @param sink
+     *            输出端
+     */
+    public LinePool(int lineCacheLength, AudioSink sink) {
+        this.lineCacheLength = lineCacheLength;
+        this.sink = sink;
+    }
+
+    /**
+     * set the sink of the lines opened later,the idle lines are closed
+     * <p>
+     * 设置此后打开LINE的输出端，关闭所有空闲LINE
+     *
+     * @param sink
+     *            输出端
+     */
+    public void setSink(AudioSink sink) {
+        this.sink = sink;
+        closeIdle();
+    }
+
+    /**
+     * get the sink
+     * <p>
+     * 获得输出端
+     *
+     * @return 输出端
+     */
+    public AudioSink getSink() {
+        return sink;
+    }
+
+    /**
+     * borrow a started line,open a new one if no idle line
+     * <p>
+     * 借出一条已开始的LINE，无空闲LINE时打开新的
+     *
+     * @param format
+     *            音频格式
+     * @return 已开始的LINE
+     * @throws LineUnavailableException
+     *             when line can not open or the max lines reached 无法打开或达到上限时抛出
+     */
+    public SourceDataLine borrow(AudioFormat format) throws LineUnavailableException {
+        evictIfDue();
+        Deque<IdleLine> idle = idleLines.get(new AudioFormatInfo(format));
+        for (IdleLine idleLine = idle == null ? null : idle.pollFirst(); idleLine != null; idleLine = idle
+                .pollFirst()) {
+            if (idleLine.line.isOpen()) {
+                idleLine.line.start();
+                return idleLine.line;
+            }
+            openCount.decrementAndGet();
+            AriaMetrics.get().openLines().decrement();
+        }
+        SourceDataLine line = open(format);
+        line.start();
+        return line;
+    }
+
+    /**
+     * give back a drained line,it is closed if the pool is full
+     * <p>
+     * 归还已播放完的LINE，池满时关闭
+     *
+     * @param line
+     *            LINE
+     */
+    public void giveBack(SourceDataLine line) {
+        if (!line.isOpen()) {
+            openCount.decrementAndGet();
+            AriaMetrics.get().openLines().decrement();
+            return;
+        }
+        line.stop();
+        line.flush();
+        if (closed) {
+            closeLine(line);
+            return;
+        }
+        Deque<IdleLine> idle = idleLines.computeIfAbsent(new AudioFormatInfo(line.getFormat()),
+                k -> new ConcurrentLinkedDeque<>());
+        if (idle.size() < maxIdlePerFormat) {
+            IdleLine idleLine = new IdleLine(line);
+            idle.offerFirst(idleLine);
+            if (closed && idle.remove(idleLine)) {// 与close并发
+                closeLine(line);
+            }
+        } else {
+            closeLine(line);
+        }
+        evictIfDue();
+    }
+
+    /**
+     * open lines ahead,so the first play is as fast as the others
+     * <p>
+     * 预先打开LINE，使首次播放与后续播放同样快速
+     *
+     * @param format
+     *            音频格式
+     * @param n
+     *            数量，不超过每格式最大空闲数
+     * @throws LineUnavailableException
+     *             when line can not open 无法打开时抛出
+     */
+    public void prewarm(AudioFormat format, int n) throws LineUnavailableException {
+        Deque<IdleLine> idle = idleLines.computeIfAbsent(new AudioFormatInfo(format),
+                k -> new ConcurrentLinkedDeque<>());
+        while (idle.size() < Math.min(n, maxIdlePerFormat)) {
+            idle.offerLast(new IdleLine(open(format)));
+        }
+    }
+
+    /**
+     * close the lines idle longer than the idle timeout
+     * <p>
+     * 关闭空闲超时的LINE
+     *
+     * @return 关闭数量
+     */
+    public int evictIdle() {
+        long now = System.currentTimeMillis();
+        lastEvict = now;
+        int evicted = 0;
+        for (Deque<IdleLine> idle : idleLines.values()) {
+            for (Iterator<IdleLine> it = idle.iterator(); it.hasNext();) {
+                IdleLine idleLine = it.next();
+                if (now - idleLine.since > idleTimeout && idle.remove(idleLine)) {
+                    closeLine(idleLine.line);
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * close all idle lines,the lines given back after are closed too
+     * <p>
+     * 关闭所有空闲LINE，此后归还的LINE也将关闭
+     */
+    public void close() {
+        closed = true;
+        closeIdle();
+    }
+
+    private void closeIdle() {
+        for (Deque<IdleLine> idle : idleLines.values()) {
+            for (IdleLine idleLine = idle.pollFirst(); idleLine != null; idleLine = idle.pollFirst()) {
+                closeLine(idleLine.line);
+            }
+        }
+    }
+
+    private void evictIfDue() {
+        if (System.currentTimeMillis() - lastEvict > idleTimeout / 2) {
+            evictIdle();
+        }
+    }
+
+    private SourceDataLine open(AudioFormat format) throws LineUnavailableException {
+        if (openCount.incrementAndGet() > maxLines && maxLines > 0) {
+            openCount.decrementAndGet();
+            throw new LineUnavailableException("max lines reached:" + maxLines);
+        }
+        try {
+            long ts = System.nanoTime();
+            SourceDataLine.Info info = new DataLine.Info(SourceDataLine.class, format, lineCacheLength);
+            SourceDataLine sourceDataLine = sink.getLine(info);
+            sourceDataLine.open(format, lineCacheLength);
+            AriaMetrics metrics = AriaMetrics.get();
+            metrics.lineOpenNanos().record(System.nanoTime() - ts);
+            metrics.openLines().increment();
+            return sourceDataLine;
+        } catch (LineUnavailableException | RuntimeException e) {
+            openCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void closeLine(SourceDataLine line) {
+        line.close();
+        openCount.decrementAndGet();
+        AriaMetrics.get().openLines().decrement();
+    }
+
+    /**
+     * get the open line count,include idle and borrowed
+     * <p>
+     * 获得已打开LINE数，包括空闲与借出的
+     *
+     * @return 已打开LINE数
+     */
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * get the idle line count
+     * <p>
+     * 获得空闲LINE数
+     *
+     * @return 空闲LINE数
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (Deque<IdleLine> idle : idleLines.values()) {
+            count += idle.size();
+        }
+        return count;
+    }
+
+    /**
+     * set the max idle lines of each format,default 4
+     * <p>
+     * 设置每种格式的最大空闲LINE数，默认4
+     *
+     * @param maxIdlePerFormat
+     *            最大空闲数
+     */
+    public void setMaxIdlePerFormat(int maxIdlePerFormat) {
+        this.maxIdlePerFormat = maxIdlePerFormat;
+    }
+
+    /**
+     * set the max open lines,0 means no limit
+     * <p>
+     * 设置最大打开LINE数，0为不限制
+     *
+     * @param maxLines
+     *            最大LINE数
+     */
+    public void setMaxLines(int maxLines) {
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * set the idle timeout in millisecond,default 30 seconds
+     * <p>
+     * 设置空闲超时毫秒数，默认30秒
+     *
+     * @param idleTimeout
+     *            空闲超时
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    private static class IdleLine {
+        private final SourceDataLine line;
+        private final long since = System.currentTimeMillis();
+
+        private IdleLine(SourceDataLine line) {
+            this.line = line;
+        }
+    }
+}
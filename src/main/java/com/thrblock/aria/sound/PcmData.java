@@ -0,0 +1,92 @@
+package com.thrblock.aria.sound;
+
+/**
+ * The storage of decoded pcm data of a sound
+ * <p>
+ * 音效解码数据的存储
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+interface PcmData {
+    /**
+     * get the decoded length in bytes
+     * <p>
+     * 获得解码字节数
+     *
+     * @return 解码字节数
+     */
+    int length();
+
+    /**
+     * copy decoded bytes from the given position,must be thread-safe
+     * <p>
+     * 从指定位置复制解码字节，须线程安全
+     *
+     * @param position
+     *            解码字节位置
+     * @param dst
+     *            目标缓冲区
+     * @param off
+     *            目标偏移
+     * @param len
+     *            最大长度
+     * @return copied bytes 复制字节数
+     */
+    int read(int position, byte[] dst, int off, int len);
+
+    /**
+     * open a reader for one voice
+     * <p>
+     * 为单个发声实例打开读取器
+     *
+     * @return a reader reading as {@link #read} 与{@link #read}读取结果相同的读取器
+     */
+    default Reader newReader() {
+        return this::read;
+    }
+
+    /**
+     * get the bytes kept in memory
+     * <p>
+     * 获得实际占用内存的字节数
+     *
+     * @return 占用字节数
+     */
+    default int residentLength() {
+        return length();
+    }
+
+    /**
+     * release the storage,the following reads return 0
+     * <p>
+     * 释放存储，之后的读取返回0
+     */
+    default void release() {
+    }
+
+    /**
+     * A reader of one voice,it may keep the decode state between the reads
+     * so a sequential read continues from it,used by one thread only
+     * <p>
+     * 单个发声实例的读取器，可在读取间保留解码状态使顺序读取得以延续，仅由单个线程使用
+     */
+    @FunctionalInterface
+    interface Reader {
+        /**
+         * copy decoded bytes from the given position
+         * <p>
+         * 从指定位置复制解码字节
+         *
+         * @param position
+         *            解码字节位置
+         * @param dst
+         *            目标缓冲区
+         * @param off
+         *            目标偏移
+         * @param len
+         *            最大长度
+         * @return copied bytes 复制字节数
+         */
+        int read(int position, byte[] dst, int off, int len);
+    }
+}
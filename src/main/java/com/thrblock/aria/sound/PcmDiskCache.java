@@ -0,0 +1,175 @@
+package com.thrblock.aria.sound;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * The on-disk cache of decoded pcm data
+ * <p>
+ * 解码数据的磁盘缓存
+ * <p>
+ * An entry is keyed by source path,size,last modified time and the decoded
+ * format,it is loaded by memory mapping instead of decoding again.
+ * <p>
+ * 缓存项以源文件路径、大小、修改时间与解码格式为键
+ * <p>
+ * 加载时使用内存映射而无需再次解码
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class PcmDiskCache {
+    private static final int MAGIC = 0x41524350; // ARCP
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".pcm";
+
+    private final File dir;
+
+    PcmDiskCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * map a cached entry
+     * <p>
+     * 映射缓存项
+     *
+     * @param src
+     *            源文件
+     * @param decodedFormat
+     *            解码格式
+     * @return mapped data,null if not cached 映射数据，未缓存时为空
+     * @throws IOException
+     *             when io error IO错误时抛出
+     */
+    CachedPcm load(File src, AudioFormat decodedFormat) throws IOException {
+        File entry = new File(dir, key(src, decodedFormat) + SUFFIX);
+        if (!entry.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                return null;
+            }
+            AudioFormat format = new AudioFormat(encodingOf(header.readUTF()), header.readFloat(),
+                    header.readInt(), header.readInt(), header.readInt(), header.readFloat(), header.readBoolean());
+            long length = header.readLong();
+            long dataStart = channel.position();
+            if (dataStart + length != channel.size()) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, length);
+            return new CachedPcm(format, mapped);
+        }
+    }
+
+    /**
+     * write decoded data,the entry is moved into place when complete
+     * <p>
+     * 写入解码数据，完整写入后再移动到位
+     *
+     * @param src
+     *            源文件
+     * @param decodedFormat
+     *            解码格式
+     * @param decodedSrc
+     *            解码数据
+     * @param length
+     *            解码字节数
+     * @throws IOException
+     *             when io error IO错误时抛出
+     */
+    void store(File src, AudioFormat decodedFormat, byte[] decodedSrc, int length) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can not create cache dir:" + dir);
+        }
+        File entry = new File(dir, key(src, decodedFormat) + SUFFIX);
+        File tmp = File.createTempFile("aria", ".tmp", dir);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(decodedFormat.getEncoding().toString());
+            out.writeFloat(decodedFormat.getSampleRate());
+            out.writeInt(decodedFormat.getSampleSizeInBits());
+            out.writeInt(decodedFormat.getChannels());
+            out.writeInt(decodedFormat.getFrameSize());
+            out.writeFloat(decodedFormat.getFrameRate());
+            out.writeBoolean(decodedFormat.isBigEndian());
+            out.writeLong(length);
+            out.write(decodedSrc, 0, length);
+        }
+        try {
+            Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * resolve the encoding constant by name,encoding compares by instance in some jdk
+     * <p>
+     * 按名称取得编码常量，部分JDK中编码按实例比较
+     *
+     * @param name
+     *            编码名称
+     * @return 编码
+     */
+    static AudioFormat.Encoding encodingOf(String name) {
+        for (AudioFormat.Encoding encoding : new AudioFormat.Encoding[] { AudioFormat.Encoding.PCM_SIGNED,
+                AudioFormat.Encoding.PCM_UNSIGNED, AudioFormat.Encoding.PCM_FLOAT, AudioFormat.Encoding.ULAW,
+                AudioFormat.Encoding.ALAW }) {
+            if (encoding.toString().equals(name)) {
+                return encoding;
+            }
+        }
+        return new AudioFormat.Encoding(name);
+    }
+
+    private static String key(File src, AudioFormat decodedFormat) throws IOException {
+        String raw = src.getCanonicalPath() + '|' + src.length() + '|' + src.lastModified() + '|' + decodedFormat;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(raw.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A mapped cache entry
+     * <p>
+     * 已映射的缓存项
+     */
+    static class CachedPcm {
+        final AudioFormat format;
+        final ByteBuffer data;
+
+        CachedPcm(AudioFormat format, ByteBuffer data) {
+            this.format = format;
+            this.data = data;
+        }
+    }
+}
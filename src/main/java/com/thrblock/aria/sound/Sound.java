@@ -1,13 +1,13 @@
 package com.thrblock.aria.sound;
 
-import java.util.concurrent.ExecutorService;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.DataLine;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.SourceDataLine;
+
+import com.thrblock.aria.dsp.AudioProcessor;
 
 /**
  * The Sound Effect class,all the raw data was loaded into memory
@@ -22,24 +22,28 @@ import javax.sound.sampled.SourceDataLine;
  *
  */
 public class Sound {
+    private AudioFormat format;
+    private SoundFactory factory;
+    private PcmData pcmData;
+    private volatile float gain = 1f;
+    private volatile int priority = 0;
+    private volatile int maxVoices = 0;
+    private volatile Supplier<? extends AudioProcessor> processorFactory;
+    private volatile boolean released = false;
     /**
-     * raw data cache<p>
-     * 播放缓冲区设置
-     */
-    private static final int PLAY_CACHE_LENGTH = 2 * 1024;
-    /**
-     * the source data line cache<p>
-     * LINE缓冲区设置
+     * active voices of this sound,guarded by the voice allocator<p>
+     * 本音效的活动发声，由发声分配器同步
      */
-    private static final int LINE_CACHE_LENGTH = 8 * 1024; // 8 KB Line Cache
-    private AudioFormat format;
-    private ExecutorService pool;
-    private byte[] decodedSrc;
+    private final Set<SoundVoice> activeVoices = new LinkedHashSet<>();
+
+    protected Sound(AudioFormat format, SoundFactory factory, byte[] decodedSrc) {
+        this(format, factory, new ArrayPcmData(decodedSrc));
+    }
 
-    protected Sound(AudioFormat format, ExecutorService commonsPool, byte[] decodedSrc) {
+    Sound(AudioFormat format, SoundFactory factory, PcmData pcmData) {
         this.format = format;
-        this.pool = commonsPool;
-        this.decodedSrc = decodedSrc;
+        this.factory = factory;
+        this.pcmData = pcmData;
     }
 
     /**
@@ -47,17 +51,31 @@ public class Sound {
      * 播放一次音效
      */
     public void play() {
-        pool.execute(() -> {
-            SourceDataLine refLine = readyLineByFormat();
-            int offset = 0;
-            while (offset < decodedSrc.length) {
-                offset += refLine.write(decodedSrc, offset, offset + PLAY_CACHE_LENGTH > decodedSrc.length
-                        ? decodedSrc.length - offset : PLAY_CACHE_LENGTH);
-            }
-            refLine.drain();
-            refLine.stop();
-            refLine.close();
-        });
+        factory.start(new SoundVoice(this, 1, gain, priority));
+    }
+
+    /**
+     * play once with the given gain<p>
+     * 以指定增益播放一次音效
+     * 
+     * @param gain
+     *            linear gain,1 means original 线性增益，1为原始音量
+     */
+    public void play(float gain) {
+        factory.start(new SoundVoice(this, 1, gain, priority));
+    }
+
+    /**
+     * play once with the given gain and priority<p>
+     * 以指定增益与优先级播放一次音效
+     * 
+     * @param gain
+     *            linear gain,1 means original 线性增益，1为原始音量
+     * @param priority
+     *            used by {@link VoiceStealPolicy#LOWEST_PRIORITY} 优先级
+     */
+    public void play(float gain, int priority) {
+        factory.start(new SoundVoice(this, 1, gain, priority));
     }
 
     /**
@@ -68,19 +86,7 @@ public class Sound {
      *            loop time 播放次数
      */
     public void loop(int times) {
-        pool.execute(() -> {
-            SourceDataLine refLine = readyLineByFormat();
-            for (int i = 0; i < times; i++) {
-                int offset = 0;
-                while (offset < decodedSrc.length) {
-                    offset += refLine.write(decodedSrc, offset, offset + PLAY_CACHE_LENGTH > decodedSrc.length
-                            ? decodedSrc.length - offset : PLAY_CACHE_LENGTH);
-                }
-            }
-            refLine.drain();
-            refLine.stop();
-            refLine.close();
-        });
+        factory.start(new SoundVoice(this, times, gain, priority));
     }
 
     /**
@@ -104,32 +110,166 @@ public class Sound {
      *            循环偏移量
      */
     public void loopUntil(BooleanSupplier booleanSupplier, int reOffset) {
-        pool.execute(() -> {
-            int settedOffset = 0;
-            SourceDataLine refLine = readyLineByFormat();
-            while (booleanSupplier.getAsBoolean()) {
-                int offset = settedOffset;
-                while (offset < decodedSrc.length) {
-                    offset += refLine.write(decodedSrc, offset, offset + PLAY_CACHE_LENGTH > decodedSrc.length
-                            ? decodedSrc.length - offset : PLAY_CACHE_LENGTH);
-                }
-                settedOffset = reOffset;
-            }
-            refLine.drain();
-            refLine.stop();
-            refLine.close();
-        });
-    }
-
-    private SourceDataLine readyLineByFormat() {
-        try {
-            SourceDataLine.Info info = new DataLine.Info(SourceDataLine.class, format, LINE_CACHE_LENGTH);
-            SourceDataLine sourceDataLine = (SourceDataLine) AudioSystem.getLine(info);
-            sourceDataLine.open();
-            sourceDataLine.start();
-            return sourceDataLine;
-        } catch (LineUnavailableException e) {
-            throw new AriaSoundRtException(e);
-        }
+        int alignedOffset = reOffset - reOffset % format.getFrameSize();
+        factory.start(new SoundVoice(this, booleanSupplier, alignedOffset, gain, priority));
+    }
+
+    /**
+     * set the default gain of the following plays<p>
+     * 设置后续播放的默认增益
+     * 
+     * @param gain
+     *            linear gain,1 means original 线性增益，1为原始音量
+     */
+    public void setGain(float gain) {
+        this.gain = gain;
+    }
+
+    /**
+     * set the processor factory of the following plays,each voice gets its
+     * own processor so the state of a filter is never shared.Only 16 bit pcm
+     * is processed<p>
+     * 设置后续播放的处理器工厂，每个发声实例获得独立的处理器，滤波器等状态不会共享；仅处理16位PCM
+     * 
+     * @param processorFactory
+     *            factory called once per play,null for none 每次播放调用一次的工厂，为空时不处理
+     */
+    public void setProcessorFactory(Supplier<? extends AudioProcessor> processorFactory) {
+        this.processorFactory = processorFactory;
+    }
+
+    /**
+     * create the processor of a new voice
+     * <p>
+     * 为新的发声实例创建处理器
+     * 
+     * @return processor,may be null 处理器，可能为空
+     */
+    AudioProcessor newProcessor() {
+        Supplier<? extends AudioProcessor> supplier = processorFactory;
+        return supplier == null ? null : supplier.get();
+    }
+
+    /**
+     * get the default gain<p>
+     * 获得默认增益
+     * 
+     * @return linear gain 线性增益
+     */
+    public float getGain() {
+        return gain;
+    }
+
+    /**
+     * set the default priority of the following plays<p>
+     * 设置后续播放的默认优先级
+     * 
+     * @param priority
+     *            优先级
+     * @see VoiceStealPolicy#LOWEST_PRIORITY
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * get the default priority<p>
+     * 获得默认优先级
+     * 
+     * @return 优先级
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * set the max voices of this sound,0 means no limit<p>
+     * 设置本音效的最大同时发声数，0为不限制
+     * 
+     * @param maxVoices
+     *            最大发声数
+     * @see SoundFactory#setStealPolicy(VoiceStealPolicy)
+     */
+    public void setMaxVoices(int maxVoices) {
+        this.maxVoices = maxVoices;
+    }
+
+    /**
+     * get the max voices of this sound<p>
+     * 获得本音效的最大同时发声数
+     * 
+     * @return 最大发声数，0为不限制
+     */
+    public int getMaxVoices() {
+        return maxVoices;
+    }
+
+    /**
+     * get the decoded format<p>
+     * 获得解码格式
+     * 
+     * @return decoded format 解码格式
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    Set<SoundVoice> getActiveVoices() {
+        return activeVoices;
+    }
+
+    /**
+     * stop all the voices and free the decoded data at once,the sound can not be played after<p>
+     * without calling this,off-heap data is still freed by gc<p>
+     * 停止所有发声并立即释放解码数据，之后不可再播放；未调用时堆外数据仍会由GC回收
+     */
+    public void release() {
+        released = true;
+        factory.release(this);
+        pcmData.release();
+    }
+
+    /**
+     * is this sound released<p>
+     * 是否已释放
+     * 
+     * @return 是否已释放
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * is any voice of this sound playing<p>
+     * 是否有本音效的发声正在播放
+     * 
+     * @return 是否正在播放
+     */
+    public boolean isPlaying() {
+        return factory.isPlaying(this);
+    }
+
+    /**
+     * get the decoded length in bytes<p>
+     * 获得解码字节数
+     * 
+     * @return 解码字节数
+     */
+    public int getLength() {
+        return pcmData.length();
+    }
+
+    /**
+     * get the bytes kept in memory,smaller than the decoded length when compressed<p>
+     * 获得实际占用内存的字节数，压缩存储时小于解码字节数
+     * 
+     * @return 占用字节数
+     */
+    public int getResidentLength() {
+        return pcmData.residentLength();
+    }
+
+    PcmData getPcmData() {
+        return pcmData;
     }
 }
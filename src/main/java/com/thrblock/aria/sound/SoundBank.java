@@ -0,0 +1,218 @@
+package com.thrblock.aria.sound;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * A packed file of pre-decoded sounds,indexed by name
+ * <p>
+ * 按名称索引的预解码音效包文件
+ * <p>
+ * The whole data region is mapped once,each sound is a slice of the mapping
+ * so opening a bank costs no decoding and no copying.
+ * <p>
+ * 数据区仅映射一次，每个音效均为映射的切片，打开音效包无需解码与复制
+ * <p>
+ * File layout:magic,version,entry count,the entries (name,offset relative to
+ * the data region,length,format),then the data region.
+ * <p>
+ * 文件结构：魔数、版本、条目数、条目（名称、相对数据区的偏移、长度、格式），随后为数据区
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see SoundBankBuilder
+ */
+public class SoundBank implements AutoCloseable {
+    static final int MAGIC = 0x4152424B; // ARBK
+    static final int VERSION = 1;
+
+    private final File file;
+    private final SoundFactory factory;
+    private final Map<String, Entry> entries;
+    private final Map<String, Sound> sounds = new ConcurrentHashMap<>();
+    private final MappedByteBuffer data;
+    private boolean closed = false;
+
+    private SoundBank(File file, SoundFactory factory, Map<String, Entry> entries, MappedByteBuffer data) {
+        this.file = file;
+        this.factory = factory;
+        this.entries = entries;
+        this.data = data;
+    }
+
+    /**
+     * open a bank file
+     * <p>
+     * 打开音效包文件
+     *
+     * @param file
+     *            音效包文件
+     * @param factory
+     *            the factory to play the sounds 播放音效的工厂
+     * @return 音效包
+     * @throws AriaSoundException
+     *             when io error or bad format IO错误或格式错误时抛出
+     */
+    public static SoundBank open(File file, SoundFactory factory) throws AriaSoundException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("not a sound bank:" + file);
+            }
+            int count = header.readInt();
+            Map<String, Entry> entries = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = header.readUTF();
+                long offset = header.readLong();
+                int length = header.readInt();
+                AudioFormat format = new AudioFormat(PcmDiskCache.encodingOf(header.readUTF()), header.readFloat(),
+                        header.readInt(), header.readInt(), header.readInt(), header.readFloat(),
+                        header.readBoolean());
+                entries.put(name, new Entry(offset, length, format));
+            }
+            long dataStart = channel.position();
+            long dataLength = channel.size() - dataStart;
+            if (dataLength > Integer.MAX_VALUE) {
+                throw new IOException("sound bank larger than 2GB:" + file);
+            }
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (e.getValue().offset < 0 || e.getValue().offset + e.getValue().length > dataLength) {
+                    throw new IOException("bad entry " + e.getKey() + " in sound bank:" + file);
+                }
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, dataLength);
+            return new SoundBank(file, factory, Collections.unmodifiableMap(entries), data);
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * get a sound by name,the same instance is returned for the same name
+     * <p>
+     * 按名称获得音效，同一名称返回同一实例
+     *
+     * @param name
+     *            音效名称
+     * @return sound,null if not in the bank 音效，不存在时为空
+     * @throws AriaSoundRtException
+     *             when the bank is closed 音效包已关闭时抛出
+     */
+    public Sound getSound(String name) {
+        Sound sound = sounds.get(name);
+        if (sound != null) {
+            return sound;
+        }
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new AriaSoundRtException(new IllegalStateException("sound bank closed:" + file));
+            }
+            return sounds.computeIfAbsent(name, k -> {
+                ByteBuffer view = data.duplicate();
+                view.limit((int) entry.offset + entry.length);
+                view.position((int) entry.offset);
+                return new Sound(entry.format, factory, new BufferPcmData(view.slice(), false));
+            });
+        }
+    }
+
+    /**
+     * whether the bank contains the name
+     * <p>
+     * 是否包含指定名称的音效
+     *
+     * @param name
+     *            音效名称
+     * @return 是否包含
+     */
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * get all the names in bank order
+     * <p>
+     * 按包内顺序获得所有音效名称
+     *
+     * @return 名称集合
+     */
+    public Set<String> getNames() {
+        return entries.keySet();
+    }
+
+    /**
+     * get the decoded format of a sound without creating it
+     * <p>
+     * 获得音效的解码格式而不创建音效
+     *
+     * @param name
+     *            音效名称
+     * @return format,null if not in the bank 格式，不存在时为空
+     */
+    public AudioFormat getFormat(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : entry.format;
+    }
+
+    /**
+     * get the bank file
+     * <p>
+     * 获得音效包文件
+     *
+     * @return 音效包文件
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * release all the sounds handed out and unmap the file
+     * <p>
+     * 释放所有已获得的音效并解除文件映射
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Sound sound : sounds.values()) {
+            sound.release();
+        }
+        sounds.clear();
+        BufferCleaner.free(data);
+    }
+
+    /**
+     * An entry of the index
+     * <p>
+     * 索引条目
+     */
+    private static class Entry {
+        final long offset;
+        final int length;
+        final AudioFormat format;
+
+        Entry(long offset, int length, AudioFormat format) {
+            this.offset = offset;
+            this.length = length;
+            this.format = format;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.thrblock.aria.sound;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Build a sound bank from audio files,decoded by the decoder of the factory
+ * <p>
+ * 由音频文件构造音效包，使用工厂的解码器解码
+ * <p>
+ * The decoded data is spooled to a temp file as the sounds are added,only the
+ * index is kept in memory.
+ * <p>
+ * 添加音效时解码数据即写入临时文件，内存中仅保留索引
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see SoundBank
+ */
+public class SoundBankBuilder implements AutoCloseable {
+    private final SoundFactory factory;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final File spool;
+    private final DataOutputStream spoolOut;
+    private long spoolLength = 0;
+
+    /**
+     * build with the decoder of the factory
+     * <p>
+     * 使用工厂的解码器构造
+     *
+     * @param factory
+     *            音效工厂
+     * @throws AriaSoundException
+     *             when the temp file can not be created 无法创建临时文件时抛出
+     */
+    public SoundBankBuilder(SoundFactory factory) throws AriaSoundException {
+        this.factory = factory;
+        try {
+            this.spool = File.createTempFile("ariabank", ".tmp");
+            this.spoolOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spool)));
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * decode a file and add it
+     * <p>
+     * 解码文件并加入音效包
+     *
+     * @param name
+     *            音效名称
+     * @param src
+     *            原始音频文件
+     * @return this
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     */
+    public SoundBankBuilder add(String name, File src) throws AriaSoundException {
+        try (AudioInputStream ais = AudioSystem.getAudioInputStream(new BufferedInputStream(new FileInputStream(
+                src)))) {
+            AudioFormat decodedFormat = factory.getDecoder().getDecodedAudioFormat(ais.getFormat());
+            byte[] pcm = factory.decodeAll(ais);
+            return add(name, decodedFormat, pcm, pcm.length);
+        } catch (IOException | UnsupportedAudioFileException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * add a built sound,its pcm data is copied out
+     * <p>
+     * 加入已构造的音效，复制其解码数据
+     *
+     * @param name
+     *            音效名称
+     * @param sound
+     *            音效
+     * @return this
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     */
+    public SoundBankBuilder add(String name, Sound sound) throws AriaSoundException {
+        PcmData pcmData = sound.getPcmData();
+        byte[] pcm = new byte[pcmData.length()];
+        int realRead = pcmData.read(0, pcm, 0, pcm.length);
+        return add(name, sound.getFormat(), pcm, realRead);
+    }
+
+    /**
+     * add decoded pcm
+     * <p>
+     * 加入解码数据
+     *
+     * @param name
+     *            音效名称
+     * @param format
+     *            解码格式
+     * @param pcm
+     *            解码数据
+     * @param length
+     *            解码字节数
+     * @return this
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     */
+    public synchronized SoundBankBuilder add(String name, AudioFormat format, byte[] pcm, int length)
+            throws AriaSoundException {
+        if (entries.containsKey(name)) {
+            throw new AriaSoundException(new IllegalArgumentException("duplicate name in sound bank:" + name));
+        }
+        try {
+            spoolOut.write(pcm, 0, length);
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+        entries.put(name, new Entry(spoolLength, length, format));
+        spoolLength += length;
+        return this;
+    }
+
+    /**
+     * add all the accepted files under a dir,named by the relative path
+     * without extension,eg.ui/click
+     * <p>
+     * 加入目录下所有接受的文件，以不含扩展名的相对路径命名，如ui/click
+     *
+     * @param dir
+     *            目录
+     * @param filter
+     *            文件过滤器
+     * @return this
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     */
+    public SoundBankBuilder addDir(File dir, FileFilter filter) throws AriaSoundException {
+        Path root = dir.toPath();
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(root)) {
+            paths = walk.filter(p -> Files.isRegularFile(p) && filter.accept(p.toFile())).sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+        for (Path p : paths) {
+            add(nameOf(root.relativize(p)), p.toFile());
+        }
+        return this;
+    }
+
+    private static String nameOf(Path relative) {
+        String name = relative.toString().replace(File.separatorChar, '/');
+        int dot = name.lastIndexOf('.');
+        return dot > name.lastIndexOf('/') ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * get the added names
+     * <p>
+     * 获得已加入的音效名称
+     *
+     * @return 名称列表
+     */
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * write the bank file,the builder can still be used after
+     * <p>
+     * 写出音效包文件，之后仍可继续使用
+     *
+     * @param bankFile
+     *            音效包文件
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     */
+    public synchronized void write(File bankFile) throws AriaSoundException {
+        try {
+            spoolOut.flush();
+            try (FileChannel out = FileChannel.open(bankFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    FileChannel in = FileChannel.open(spool.toPath(), StandardOpenOption.READ)) {
+                DataOutputStream header = new DataOutputStream(new BufferedOutputStream(
+                        Channels.newOutputStream(out)));
+                header.writeInt(SoundBank.MAGIC);
+                header.writeInt(SoundBank.VERSION);
+                header.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    AudioFormat format = entry.format;
+                    header.writeUTF(e.getKey());
+                    header.writeLong(entry.offset);
+                    header.writeInt(entry.length);
+                    header.writeUTF(format.getEncoding().toString());
+                    header.writeFloat(format.getSampleRate());
+                    header.writeInt(format.getSampleSizeInBits());
+                    header.writeInt(format.getChannels());
+                    header.writeInt(format.getFrameSize());
+                    header.writeFloat(format.getFrameRate());
+                    header.writeBoolean(format.isBigEndian());
+                }
+                header.flush();
+                for (long pos = 0; pos < spoolLength;) {
+                    pos += in.transferTo(pos, spoolLength - pos, out);
+                }
+            }
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * delete the temp file
+     * <p>
+     * 删除临时文件
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            spoolOut.close();
+            Files.deleteIfExists(spool.toPath());
+        } catch (IOException e) {
+            spool.deleteOnExit();
+        }
+    }
+
+    /**
+     * An entry of the index
+     * <p>
+     * 索引条目
+     */
+    private static class Entry {
+        final long offset;
+        final int length;
+        final AudioFormat format;
+
+        Entry(long offset, int length, AudioFormat format) {
+            this.offset = offset;
+            this.length = length;
+            this.format = format;
+        }
+    }
+}
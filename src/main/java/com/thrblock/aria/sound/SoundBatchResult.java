@@ -0,0 +1,55 @@
+package com.thrblock.aria.sound;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The result of a batch loading,a failed file does not abort the others
+ * <p>
+ * 批量加载结果，单个文件失败不影响其他文件
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class SoundBatchResult {
+    private final Map<File, Sound> sounds;
+    private final Map<File, AriaSoundException> failures;
+
+    SoundBatchResult(Map<File, Sound> sounds, Map<File, AriaSoundException> failures) {
+        this.sounds = Collections.unmodifiableMap(sounds);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * get the loaded sounds in the input order
+     * <p>
+     * 获得已加载的音效，按输入顺序
+     *
+     * @return 文件与音效
+     */
+    public Map<File, Sound> getSounds() {
+        return sounds;
+    }
+
+    /**
+     * get the failures in the input order
+     * <p>
+     * 获得加载失败的文件与异常，按输入顺序
+     *
+     * @return 文件与异常
+     */
+    public Map<File, AriaSoundException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * are all the files loaded
+     * <p>
+     * 是否全部加载成功
+     *
+     * @return 是否全部成功
+     */
+    public boolean isAllLoaded() {
+        return failures.isEmpty();
+    }
+}
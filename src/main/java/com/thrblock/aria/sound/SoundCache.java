@@ -0,0 +1,239 @@
+package com.thrblock.aria.sound;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The in-memory sound cache,bounded by resident bytes and evicted by LRU
+ * <p>
+ * 内存音效缓存，以占用字节数为上限并按最近最少使用回收
+ * <p>
+ * Concurrent loads of the same file share one decoding,the playing sounds
+ * are never evicted.
+ * <p>
+ * 同一文件的并发加载共享一次解码，正在播放的音效不会被回收
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class SoundCache {
+    /**
+     * Load a sound on cache miss
+     * <p>
+     * 缓存未命中时加载音效
+     */
+    @FunctionalInterface
+    interface SoundLoader {
+        Sound load(File f) throws AriaSoundException;
+    }
+
+    /**
+     * entries in access order,guarded by this
+     * <p>
+     * 按访问顺序排列的缓存项，由本对象同步
+     */
+    private final LinkedHashMap<String, Sound> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Sound>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long weight = 0;
+    private volatile long maxWeight;
+
+    /**
+     * build a cache
+     * <p>
+     * 构造音效缓存
+     *
+     * @param maxWeight
+     *            max resident bytes 最大占用字节数
+     */
+    public SoundCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    Sound get(File f, SoundLoader loader) throws AriaSoundException {
+        String key = keyOf(f);
+        synchronized (this) {
+            Sound sound = entries.get(key);
+            if (sound != null) {
+                hits.incrementAndGet();
+                return sound;
+            }
+        }
+        misses.incrementAndGet();
+        CompletableFuture<Sound> mine = new CompletableFuture<>();
+        CompletableFuture<Sound> existing = loading.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            Sound sound;
+            synchronized (this) {
+                sound = entries.get(key);
+            }
+            if (sound == null) {
+                sound = loader.load(f);
+                put(key, sound);
+            }
+            mine.complete(sound);
+            return sound;
+        } catch (AriaSoundException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key);
+        }
+    }
+
+    private Sound await(CompletableFuture<Sound> future) throws AriaSoundException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AriaSoundException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AriaSoundException) {
+                throw (AriaSoundException) e.getCause();
+            }
+            throw new AriaSoundRtException(e);
+        }
+    }
+
+    private synchronized void put(String key, Sound sound) {
+        Sound old = entries.put(key, sound);
+        if (old != null) {
+            weight -= old.getResidentLength();
+        }
+        weight += sound.getResidentLength();
+        evict();
+    }
+
+    private void evict() {
+        for (Iterator<Sound> it = entries.values().iterator(); weight > maxWeight && it.hasNext();) {
+            Sound sound = it.next();
+            if (!sound.isPlaying()) {
+                it.remove();
+                weight -= sound.getResidentLength();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static String keyOf(File f) throws AriaSoundException {
+        try {
+            return f.getCanonicalPath() + '|' + f.length() + '|' + f.lastModified();
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * remove the entry of a sound
+     * <p>
+     * 移除音效对应的缓存项
+     *
+     * @param sound
+     *            音效
+     */
+    public synchronized void remove(Sound sound) {
+        if (entries.values().remove(sound)) {
+            weight -= sound.getResidentLength();
+        }
+    }
+
+    /**
+     * remove all the entries
+     * <p>
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * set the max resident bytes,evict at once if exceeded
+     * <p>
+     * 设置最大占用字节数，超出时立即回收
+     *
+     * @param maxWeight
+     *            最大占用字节数
+     */
+    public synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        evict();
+    }
+
+    /**
+     * get the max resident bytes
+     * <p>
+     * 获得最大占用字节数
+     *
+     * @return 最大占用字节数
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * get the cached resident bytes
+     * <p>
+     * 获得已缓存的占用字节数
+     *
+     * @return 已缓存的占用字节数
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * get the cached sound count
+     * <p>
+     * 获得已缓存的音效数
+     *
+     * @return 音效数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * get the hit count
+     * <p>
+     * 获得命中数
+     *
+     * @return 命中数
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * get the miss count,a load shared by concurrent callers counts for each caller
+     * <p>
+     * 获得未命中数，并发共享的加载对每个调用方分别计数
+     *
+     * @return 未命中数
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * get the eviction count
+     * <p>
+     * 获得回收数
+     *
+     * @return 回收数
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.thrblock.aria.sound;
+
+/**
+ * The execution strategy of the sound play pool
+ * <p>
+ * 音效播放线程池策略
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see SoundExecutors
+ */
+public enum SoundExecution {
+    /**
+     * unbounded cached pool,the former behavior
+     * <p>
+     * 无界缓存线程池，原有行为
+     */
+    CACHED,
+    /**
+     * fixed threads with a bounded queue and a rejection policy
+     * <p>
+     * 固定线程数、有界队列并带拒绝策略
+     */
+    BOUNDED,
+    /**
+     * one virtual thread per voice,fallback to cached when not supported by the jdk
+     * <p>
+     * 每个发声一个虚拟线程，JDK不支持时退回缓存线程池
+     */
+    VIRTUAL
+}
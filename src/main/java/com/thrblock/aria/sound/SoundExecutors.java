@@ -0,0 +1,99 @@
+package com.thrblock.aria.sound;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Factory methods of the sound play pool
+ * <p>
+ * 音效播放线程池工厂方法
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public final class SoundExecutors {
+    private static final Logger LOG = LoggerFactory.getLogger(SoundExecutors.class);
+    private static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r);
+        t.setName("AriaSE-" + t.getId());
+        return t;
+    };
+
+    private SoundExecutors() {
+    }
+
+    /**
+     * unbounded cached pool
+     * <p>
+     * 无界缓存线程池
+     *
+     * @return 线程池
+     */
+    public static ExecutorService cached() {
+        return Executors.newCachedThreadPool(THREAD_FACTORY);
+    }
+
+    /**
+     * fixed threads with a bounded queue
+     * <p>
+     * 固定线程数与有界队列的线程池
+     *
+     * @param threads
+     *            线程数
+     * @param queueCapacity
+     *            队列容量
+     * @param rejectedHandler
+     *            拒绝策略
+     * @return 线程池
+     */
+    public static ExecutorService bounded(int threads, int queueCapacity, RejectedExecutionHandler rejectedHandler) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), THREAD_FACTORY, rejectedHandler);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * fork-join pool for sound loading
+     * <p>
+     * 用于音效加载的fork-join线程池
+     *
+     * @param parallelism
+     *            并行度
+     * @return 线程池
+     */
+    public static ExecutorService loader(int parallelism) {
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("AriaLoader-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    /**
+     * one virtual thread per task,fallback to cached pool when the jdk does
+     * not support virtual threads
+     * <p>
+     * 每任务一个虚拟线程，JDK不支持时退回缓存线程池
+     *
+     * @return 线程池
+     */
+    public static ExecutorService virtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.info("Virtual thread not supported,use cached pool:" + e);
+            return cached();
+        }
+    }
+}
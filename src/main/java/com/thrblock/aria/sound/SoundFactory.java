@@ -3,26 +3,54 @@ package com.thrblock.aria.sound;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.dsp.AudioProcessor;
+import com.thrblock.aria.dsp.SampleBuffer;
+import com.thrblock.aria.metrics.AriaMetrics;
+import com.thrblock.aria.sink.AudioSink;
 
 /**
  * the sound factory
@@ -35,9 +63,85 @@ import com.thrblock.aria.decoder.IDecoder;
 @Component
 @Lazy(true) // Lazy 当系统不需要音频需求时，不会创建线程实例
 public class SoundFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(SoundFactory.class);
+    /**
+     * raw data cache<p>
+     * 播放缓冲区设置
+     */
+    private static final int PLAY_CACHE_LENGTH = 2 * 1024;
+    /**
+     * the source data line cache<p>
+     * LINE缓冲区设置
+     */
+    private static final int LINE_CACHE_LENGTH = 8 * 1024; // 8 KB Line Cache
+    /**
+     * read cache when loading<p>
+     * 加载时的读缓冲区
+     */
+    private static final int LOAD_CACHE_LENGTH = 16 * 1024;
+    private static final long MAX_PRESIZED_LENGTH = Integer.MAX_VALUE - 8;
 
     private ExecutorService commonsPool;
 
+    /**
+     * the pool was supplied by caller and will not be shutdown<p>
+     * 线程池由调用方提供，销毁时不会关闭
+     */
+    private boolean callerPool = false;
+    private SoundExecution execution = SoundExecution.CACHED;
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+    private int queueCapacity = 64;
+    private RejectedExecutionHandler rejectedHandler = new ThreadPoolExecutor.AbortPolicy();
+
+    /**
+     * the pool for sound loading<p>
+     * 音效加载线程池
+     */
+    private ExecutorService loaderPool;
+    private boolean callerLoaderPool = false;
+
+    /**
+     * software mixers by output format<p>
+     * 按输出格式划分的软件混音器
+     */
+    private final Map<AudioFormatInfo, SoundMixer> mixers = new ConcurrentHashMap<>();
+
+    /**
+     * mix concurrent plays into one line per format<p>
+     * 是否将同格式的并发播放混入同一条LINE
+     */
+    private volatile boolean mixing = true;
+
+    /**
+     * active voice registry and limits<p>
+     * 活动发声登记与限制
+     */
+    private final VoiceAllocator allocator = new VoiceAllocator();
+
+    /**
+     * opened lines kept warm for plays<p>
+     * 为播放保持打开的LINE池
+     */
+    private final LinePool linePool = new LinePool(LINE_CACHE_LENGTH);
+
+    /**
+     * decoded pcm cache on disk,may be null<p>
+     * 解码数据磁盘缓存，可能为空
+     */
+    private volatile PcmDiskCache diskCache;
+
+    /**
+     * in-memory sound cache used by getSound<p>
+     * getSound使用的内存音效缓存
+     */
+    private final SoundCache soundCache = new SoundCache(64L * 1024 * 1024);
+
+    /**
+     * storage of the decoded pcm<p>
+     * 解码数据的存储方式
+     */
+    private volatile SoundStorage storage = SoundStorage.HEAP;
+
     @Autowired
     private IDecoder decoder;
 
@@ -58,6 +162,36 @@ public class SoundFactory {
         this.decoder = decoder;
     }
 
+    /**
+     * build with the given decoder and execution strategy
+     * <p>
+     * 使用指定的解码器与线程池策略构造
+     * 
+     * @param decoder
+     *            解码器
+     * @param execution
+     *            线程池策略
+     */
+    public SoundFactory(IDecoder decoder, SoundExecution execution) {
+        this.decoder = decoder;
+        this.execution = execution;
+    }
+
+    /**
+     * build with the given decoder and a caller supplied pool,the pool will not be shutdown by destroy
+     * <p>
+     * 使用指定的解码器与调用方提供的线程池构造，销毁时不会关闭该线程池
+     * 
+     * @param decoder
+     *            解码器
+     * @param executorService
+     *            线程池
+     */
+    public SoundFactory(IDecoder decoder, ExecutorService executorService) {
+        this.decoder = decoder;
+        setExecutorService(executorService);
+    }
+
     /**
      * init the factory,auto done when in spring context
      * <p>
@@ -65,11 +199,245 @@ public class SoundFactory {
      */
     @PostConstruct
     public void init() {
-        commonsPool = Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r);
-            t.setName("AriaSE-" + t.getId());
-            return t;
-        });
+        if (!callerLoaderPool) {
+            loaderPool = SoundExecutors.loader(Runtime.getRuntime().availableProcessors());
+        }
+        if (callerPool) {
+            return;
+        }
+        switch (execution) {
+        case BOUNDED:
+            commonsPool = SoundExecutors.bounded(poolSize, queueCapacity, this::rejected);
+            break;
+        case VIRTUAL:
+            commonsPool = SoundExecutors.virtual();
+            break;
+        default:
+            commonsPool = SoundExecutors.cached();
+            break;
+        }
+    }
+
+    /**
+     * set the execution strategy of the play pool,must be called before init<p>
+     * 设置播放线程池策略，须在初始化前调用
+     * 
+     * @param execution
+     *            线程池策略
+     */
+    public void setExecution(SoundExecution execution) {
+        this.execution = execution;
+    }
+
+    /**
+     * set the thread count of the bounded pool<p>
+     * 设置有界线程池的线程数
+     * 
+     * @param poolSize
+     *            线程数
+     * @see SoundExecution#BOUNDED
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * set the queue capacity of the bounded pool<p>
+     * 设置有界线程池的队列容量
+     * 
+     * @param queueCapacity
+     *            队列容量
+     * @see SoundExecution#BOUNDED
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * set the rejection policy of the bounded pool,default abort which drops the play.The voices discarded by the
+     * policy are released,CallerRunsPolicy is not allowed as the play blocks the caller until the end<p>
+     * 设置有界线程池的拒绝策略，默认丢弃该次播放；被策略丢弃的发声将被释放，不允许CallerRunsPolicy，因其将阻塞调用方直至播放结束
+     * 
+     * @param rejectedHandler
+     *            拒绝策略
+     * @throws IllegalArgumentException
+     *             when CallerRunsPolicy 为CallerRunsPolicy时抛出
+     * @see SoundExecution#BOUNDED
+     */
+    public void setRejectedHandler(RejectedExecutionHandler rejectedHandler) {
+        if (rejectedHandler instanceof ThreadPoolExecutor.CallerRunsPolicy) {
+            throw new IllegalArgumentException("CallerRunsPolicy would play on the caller thread");
+        }
+        this.rejectedHandler = rejectedHandler;
+    }
+
+    /**
+     * use a caller supplied pool,which will not be shutdown by destroy<p>
+     * 使用调用方提供的线程池，销毁时不会关闭
+     * 
+     * @param executorService
+     *            线程池
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.commonsPool = executorService;
+        this.callerPool = true;
+    }
+
+    /**
+     * use a caller supplied pool for sound loading,which will not be shutdown by destroy<p>
+     * 使用调用方提供的音效加载线程池，销毁时不会关闭
+     * 
+     * @param loaderPool
+     *            加载线程池
+     */
+    public void setLoaderPool(ExecutorService loaderPool) {
+        this.loaderPool = loaderPool;
+        this.callerLoaderPool = true;
+    }
+
+    /**
+     * build sounds in parallel on the loader pool,a failed file does not abort the others<p>
+     * 在加载线程池中并行构造音效，单个文件失败不影响其他文件
+     * 
+     * @param files
+     *            src audio files 原始音频文件
+     * @return 加载结果
+     * @throws InterruptedException
+     *             when interrupted 当中断时抛出
+     */
+    public SoundBatchResult buildSounds(Collection<File> files) throws InterruptedException {
+        return buildSounds(files, null);
+    }
+
+    /**
+     * build sounds in parallel on the loader pool,a failed file does not abort the others<p>
+     * 在加载线程池中并行构造音效，单个文件失败不影响其他文件
+     * 
+     * @param files
+     *            src audio files 原始音频文件
+     * @param listener
+     *            progress listener,may be null 进度监听器，可为空
+     * @return 加载结果
+     * @throws InterruptedException
+     *             when interrupted 当中断时抛出
+     */
+    public SoundBatchResult buildSounds(Collection<File> files, SoundLoadListener listener)
+            throws InterruptedException {
+        int total = files.size();
+        AtomicInteger done = new AtomicInteger();
+        Map<File, Future<Sound>> futures = new LinkedHashMap<>();
+        for (File f : files) {
+            futures.put(f, supplyAsync(() -> {
+                try {
+                    return buildSound(f);
+                } finally {
+                    if (listener != null) {
+                        listener.progress(done.incrementAndGet(), total, f);
+                    }
+                }
+            }));
+        }
+        Map<File, Sound> sounds = new LinkedHashMap<>();
+        Map<File, AriaSoundException> failures = new LinkedHashMap<>();
+        for (Map.Entry<File, Future<Sound>> entry : futures.entrySet()) {
+            try {
+                sounds.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), unwrap(e));
+            }
+        }
+        return new SoundBatchResult(sounds, failures);
+    }
+
+    /**
+     * build sond by src audio file on the loader pool,the caller is not blocked<p>
+     * 在加载线程池中构造音效实例，不阻塞调用方
+     * 
+     * @param f
+     *            src audio file 原始音频文件
+     * @return future of the sound,completed exceptionally with AriaSoundException when failed
+     *         音效实例的Future，失败时以AriaSoundException异常完成
+     */
+    public CompletableFuture<Sound> buildSoundAsync(File f) {
+        return supplyAsync(() -> buildSound(f));
+    }
+
+    /**
+     * build sond by src audio stream on the loader pool,the caller is not blocked<p>
+     * 在加载线程池中构造音效实例，不阻塞调用方
+     * 
+     * @param src
+     *            src audio stream,eg.file input stream. 原始音频数据流（不是解码流）
+     * @return future of the sound,completed exceptionally with AriaSoundException when failed
+     *         音效实例的Future，失败时以AriaSoundException异常完成
+     */
+    public CompletableFuture<Sound> buildSoundAsync(InputStream src) {
+        return supplyAsync(() -> buildSound(src));
+    }
+
+    /**
+     * Build a sound on the loader pool<p>
+     * 在加载线程池中构造音效
+     */
+    @FunctionalInterface
+    private interface SoundSupplier {
+        Sound get() throws AriaSoundException;
+    }
+
+    private CompletableFuture<Sound> supplyAsync(SoundSupplier supplier) {
+        CompletableFuture<Sound> future = new CompletableFuture<>();
+        try {
+            loaderPool.execute(() -> {
+                try {
+                    future.complete(supplier.get());
+                } catch (AriaSoundException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                } catch (Error e) {// 如解码时OOM，仍须完成以免等待方永久阻塞
+                    future.completeExceptionally(new AriaSoundException(new ExecutionException(e)));
+                    throw e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new AriaSoundException(e));
+        }
+        return future;
+    }
+
+    private static AriaSoundException unwrap(Exception e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof AriaSoundException) {
+                return (AriaSoundException) cause;
+            }
+        }
+        return new AriaSoundException(e);
+    }
+
+    /**
+     * scan the dir recursively and build the accepted files in parallel<p>
+     * 递归扫描目录并并行构造符合过滤器的文件
+     * 
+     * @param dir
+     *            dir to scan 扫描目录
+     * @param filter
+     *            file filter,eg.by extension 文件过滤器，如按扩展名
+     * @param listener
+     *            progress listener,may be null 进度监听器，可为空
+     * @return 加载结果
+     * @throws AriaSoundException
+     *             when dir can not be scanned 目录无法扫描时抛出
+     * @throws InterruptedException
+     *             when interrupted 当中断时抛出
+     */
+    public SoundBatchResult buildSounds(File dir, FileFilter filter, SoundLoadListener listener)
+            throws AriaSoundException, InterruptedException {
+        List<File> files;
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            files = paths.map(Path::toFile).filter(f -> f.isFile() && filter.accept(f)).sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+        return buildSounds(files, listener);
     }
 
     /**
@@ -84,20 +452,107 @@ public class SoundFactory {
      *             when exception 当出现异常时抛出
      */
     public Sound buildSound(InputStream src) throws AriaSoundException {
+        return buildSound(src, storage);
+    }
+
+    /**
+     * build sond by src audio stream with the given storage
+     * <p>
+     * 以指定存储方式构造一个音效实例
+     * 
+     * @param src
+     *            src audio stream,eg.file input stream. 原始音频数据流（不是解码流）
+     * @param storage
+     *            decoded pcm storage 解码数据存储方式
+     * @return 音效实例
+     * @throws AriaSoundException
+     *             when exception 当出现异常时抛出
+     */
+    public Sound buildSound(InputStream src, SoundStorage storage) throws AriaSoundException {
         try (AudioInputStream ais = AudioSystem.getAudioInputStream(src)) {
-            AudioInputStream decodedStream = decoder.getDecodedAudioInputStream(ais);
             AudioFormat decodedFormat = decoder.getDecodedAudioFormat(ais.getFormat());
-            byte[] loadCache = new byte[1024];
-            ByteArrayOutputStream byteOS = new ByteArrayOutputStream();
-            for (int realRead = 0; realRead != -1; realRead = decodedStream.read(loadCache, 0, loadCache.length)) {
-                byteOS.write(loadCache, 0, realRead);
-            }
-            return new Sound(decodedFormat, commonsPool, byteOS.toByteArray());
+            return new Sound(decodedFormat, this, store(decodeAll(ais), decodedFormat, storage));
         } catch (IOException | UnsupportedAudioFileException e) {
             throw new AriaSoundException(e);
         }
     }
 
+    private PcmData store(byte[] decodedSrc, AudioFormat format, SoundStorage storage) {
+        if (storage == SoundStorage.DIRECT) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(decodedSrc.length);
+            direct.put(decodedSrc);
+            direct.flip();
+            return new BufferPcmData(direct, true);
+        } else if (storage == SoundStorage.ADPCM && SampleBuffer.supports(format)) {
+            return new AdpcmPcmData(decodedSrc, format.getChannels(), format.isBigEndian());
+        }
+        return new ArrayPcmData(decodedSrc);
+    }
+
+    /**
+     * decode the whole stream,the decode time and length are recorded<p>
+     * 解码整个音频流，记录解码耗时与长度
+     */
+    byte[] decodeAll(AudioInputStream ais) throws IOException {
+        long ts = System.nanoTime();
+        byte[] decoded = decodeStream(ais);
+        AriaMetrics metrics = AriaMetrics.get();
+        metrics.soundDecodeNanos().record(System.nanoTime() - ts);
+        metrics.decodedBytes().add(decoded.length);
+        return decoded;
+    }
+
+    /**
+     * write into a presized array when the frame length is known<p>
+     * 帧长度已知时直接写入预分配的数组
+     */
+    private byte[] decodeStream(AudioInputStream ais) throws IOException {
+        AudioInputStream decodedStream = decoder.getDecodedAudioInputStream(ais);
+        long frames = decodedStream.getFrameLength();
+        int frameSize = decodedStream.getFormat().getFrameSize();
+        PcmOutputStream byteOS;
+        if (frames > 0 && frameSize > 0 && frames * frameSize <= MAX_PRESIZED_LENGTH) {
+            byte[] decodedSrc = new byte[(int) (frames * frameSize)];
+            int offset = 0;
+            for (int realRead = 0; realRead != -1 && offset < decodedSrc.length; realRead = decodedStream
+                    .read(decodedSrc, offset, decodedSrc.length - offset)) {
+                offset += realRead;
+            }
+            if (offset < decodedSrc.length) {
+                return Arrays.copyOf(decodedSrc, offset);
+            }
+            byte[] loadCache = new byte[LOAD_CACHE_LENGTH];
+            int realRead = decodedStream.read(loadCache, 0, loadCache.length);
+            if (realRead == -1) {
+                return decodedSrc;
+            }
+            byteOS = new PcmOutputStream(decodedSrc.length * 2);
+            byteOS.write(decodedSrc, 0, decodedSrc.length);
+            byteOS.write(loadCache, 0, realRead);
+        } else {
+            byteOS = new PcmOutputStream(LOAD_CACHE_LENGTH * 4);
+        }
+        byte[] loadCache = new byte[LOAD_CACHE_LENGTH];
+        for (int realRead = 0; realRead != -1; realRead = decodedStream.read(loadCache, 0, loadCache.length)) {
+            byteOS.write(loadCache, 0, realRead);
+        }
+        return byteOS.trimmed();
+    }
+
+    /**
+     * output stream that hands out its buffer without copy when it is exactly full<p>
+     * 恰好写满时无需复制即可交出缓冲区的输出流
+     */
+    private static class PcmOutputStream extends ByteArrayOutputStream {
+        PcmOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] trimmed() {
+            return count == buf.length ? buf : Arrays.copyOf(buf, count);
+        }
+    }
+
     /**
      * build sond by src audio file
      * <p>
@@ -110,13 +565,419 @@ public class SoundFactory {
      *             when exception 当异常时抛出
      */
     public Sound buildSound(File f) throws AriaSoundException {
+        return buildSound(f, storage);
+    }
+
+    /**
+     * build sond by src audio file with the given storage,a disk cached file is always memory mapped
+     * <p>
+     * 以指定存储方式构造一个音效实例，已有磁盘缓存的文件总是使用内存映射
+     * 
+     * @param f
+     *            src audio file 原始音频文件
+     * @param storage
+     *            decoded pcm storage 解码数据存储方式
+     * @return sound instance 音效实例
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     */
+    public Sound buildSound(File f, SoundStorage storage) throws AriaSoundException {
+        if (diskCache != null) {
+            return buildSoundCached(f, storage);
+        }
         try {
-            return buildSound(new BufferedInputStream(new FileInputStream(f)));
+            return buildSound(new BufferedInputStream(new FileInputStream(f)), storage);
         } catch (FileNotFoundException e) {
             throw new AriaSoundException(e);
         }
     }
 
+    /**
+     * get a cached sound of the file,build it on miss.<p>
+     * concurrent calls of the same file share one decoding<p>
+     * 获得文件对应的缓存音效，未命中时构造；同一文件的并发调用共享一次解码
+     * 
+     * @param f
+     *            src audio file 原始音频文件
+     * @return sound instance 音效实例
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     * @see #getSoundCache() 缓存容量与统计
+     */
+    public Sound getSound(File f) throws AriaSoundException {
+        return soundCache.get(f, this::buildSound);
+    }
+
+    /**
+     * get the in-memory sound cache,for size limit and statistics<p>
+     * 获得内存音效缓存，用于设置容量与获取统计
+     * 
+     * @return 音效缓存
+     */
+    public SoundCache getSoundCache() {
+        return soundCache;
+    }
+
+    private Sound buildSoundCached(File f, SoundStorage storage) throws AriaSoundException {
+        try {
+            AudioFormat decodedFormat = decoder.getDecodedAudioFormat(AudioSystem.getAudioFileFormat(f).getFormat());
+            PcmDiskCache.CachedPcm cached = diskCache.load(f, decodedFormat);
+            if (cached != null) {
+                return new Sound(cached.format, this, new BufferPcmData(cached.data, true));
+            }
+            InputStream src = new BufferedInputStream(new FileInputStream(f));
+            try (AudioInputStream ais = AudioSystem.getAudioInputStream(src)) {
+                byte[] decodedSrc = decodeAll(ais);
+                try {
+                    diskCache.store(f, decodedFormat, decodedSrc, decodedSrc.length);
+                } catch (IOException e) {
+                    LOG.info("Exception in cache store:" + e);
+                }
+                return new Sound(decodedFormat, this, store(decodedSrc, decodedFormat, storage));
+            }
+        } catch (IOException | UnsupportedAudioFileException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * open a sound bank,its sounds are slices of the mapped file<p>
+     * 打开音效包，其中的音效为映射文件的切片
+     * 
+     * @param bankFile
+     *            sound bank file 音效包文件
+     * @return 音效包
+     * @throws AriaSoundException
+     *             when exception 当异常时抛出
+     * @see SoundBankBuilder
+     */
+    public SoundBank openBank(File bankFile) throws AriaSoundException {
+        return SoundBank.open(bankFile, this);
+    }
+
+    IDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * set the storage of the decoded pcm of the following built sounds,default heap<p>
+     * 设置后续构造音效的解码数据存储方式，默认堆内
+     * 
+     * @param storage
+     *            存储方式
+     */
+    public void setStorage(SoundStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * get the storage of the decoded pcm<p>
+     * 获得解码数据存储方式
+     * 
+     * @return 存储方式
+     */
+    public SoundStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * set the decoded pcm cache dir,null means no cache.<p>
+     * a cached file is memory mapped instead of decoding again<p>
+     * 设置解码数据缓存目录，为空时不缓存；已缓存的文件使用内存映射加载而无需再次解码
+     * 
+     * @param cacheDir
+     *            缓存目录
+     */
+    public void setCacheDir(File cacheDir) {
+        this.diskCache = cacheDir == null ? null : new PcmDiskCache(cacheDir);
+    }
+
+    /**
+     * use software mixer or not,default true.when false each play opens its own line in the pool<p>
+     * 设置是否使用软件混音，默认开启；关闭时每次播放在线程池中独立打开LINE
+     * 
+     * @param mixing
+     *            是否混音
+     */
+    public void setMixing(boolean mixing) {
+        this.mixing = mixing;
+    }
+
+    /**
+     * is software mixer used<p>
+     * 是否使用软件混音
+     * 
+     * @return 是否混音
+     */
+    public boolean isMixing() {
+        return mixing;
+    }
+
+    /**
+     * set the global max voices,0 means no limit<p>
+     * 设置全局最大同时发声数，0为不限制
+     * 
+     * @param maxVoices
+     *            最大发声数
+     */
+    public void setMaxVoices(int maxVoices) {
+        allocator.setMaxVoices(maxVoices);
+    }
+
+    /**
+     * get the global max voices<p>
+     * 获得全局最大同时发声数
+     * 
+     * @return 最大发声数，0为不限制
+     */
+    public int getMaxVoices() {
+        return allocator.getMaxVoices();
+    }
+
+    /**
+     * set the policy used when the global or per-sound limit is reached,default oldest<p>
+     * 设置达到全局或单个音效发声上限时的策略，默认停止最早的发声
+     * 
+     * @param stealPolicy
+     *            策略
+     */
+    public void setStealPolicy(VoiceStealPolicy stealPolicy) {
+        allocator.setPolicy(stealPolicy);
+    }
+
+    /**
+     * get the steal policy<p>
+     * 获得发声上限策略
+     * 
+     * @return 策略
+     */
+    public VoiceStealPolicy getStealPolicy() {
+        return allocator.getPolicy();
+    }
+
+    /**
+     * get the active voice count<p>
+     * 获得当前活动发声数
+     * 
+     * @return 活动发声数
+     */
+    public int getActiveVoices() {
+        return allocator.getActiveCount();
+    }
+
+    /**
+     * get how many voices were stopped by later plays<p>
+     * 获得被后续播放抢占的发声数
+     * 
+     * @return 抢占数
+     */
+    public long getStolenCount() {
+        return allocator.getStolenCount();
+    }
+
+    /**
+     * get how many plays were dropped by the limits<p>
+     * 获得因上限被丢弃的播放数
+     * 
+     * @return 丢弃数
+     */
+    public long getDroppedCount() {
+        return allocator.getDroppedCount();
+    }
+
+    /**
+     * open lines of the format ahead,so the first play is as fast as the hundredth<p>
+     * 预先打开指定格式的LINE，使首次播放与后续播放同样快速
+     * 
+     * @param format
+     *            audio format,eg.{@link Sound#getFormat()} 音频格式
+     * @param n
+     *            line count 数量
+     * @throws AriaSoundException
+     *             when line can not open 无法打开LINE时抛出
+     */
+    public void prewarm(AudioFormat format, int n) throws AriaSoundException {
+        try {
+            linePool.prewarm(format, n);
+        } catch (LineUnavailableException e) {
+            throw new AriaSoundException(e);
+        }
+    }
+
+    /**
+     * get the line pool,for size limits and idle eviction settings<p>
+     * 获得LINE池，用于设置数量上限与空闲回收
+     * 
+     * @return LINE池
+     */
+    public LinePool getLinePool() {
+        return linePool;
+    }
+
+    /**
+     * set the sink of the sounds,default the Java Sound device.Set before the
+     * first play,auto done when an AudioSink bean is in spring context<p>
+     * 设置音效的输出端，默认为Java Sound设备；须在首次播放前设置，Spring上下文中存在AudioSink时自动完成
+     * 
+     * @param sink
+     *            输出端
+     */
+    @Autowired(required = false)
+    public void setSink(AudioSink sink) {
+        linePool.setSink(sink);
+    }
+
+    /**
+     * get the sink of the sounds<p>
+     * 获得音效的输出端
+     * 
+     * @return 输出端
+     */
+    public AudioSink getSink() {
+        return linePool.getSink();
+    }
+
+    void release(Sound sound) {
+        allocator.stopAll(sound);
+        soundCache.remove(sound);
+    }
+
+    boolean isPlaying(Sound sound) {
+        return allocator.isPlaying(sound);
+    }
+
+    /**
+     * start a voice,only enqueue when mixing.It plays on its own line when
+     * the line of the mixer can not open or the mixer has stopped<p>
+     * 开始一个发声实例，混音模式下仅入队；混音器LINE无法打开或混音器已停止时使用独立LINE播放
+     * 
+     * @param voice
+     *            发声实例
+     */
+    void start(SoundVoice voice) {
+        if (voice.getSound().isReleased() || !allocator.acquire(voice)) {
+            return;
+        }
+        AudioFormat format = voice.getSound().getFormat();
+        if (mixing && SampleBuffer.supports(format)) {
+            AudioFormatInfo key = new AudioFormatInfo(format);
+            try {
+                SoundMixer mixer = mixers.computeIfAbsent(key,
+                        k -> new SoundMixer(k, mixers, readyLineByFormat(format), allocator, linePool));
+                if (mixer.submit(voice)) {
+                    return;
+                }
+                mixers.remove(key, mixer);// 混音线程已结束，下次播放时重建
+            } catch (AriaSoundRtException e) {
+                LOG.info("Exception in mixer line open:" + e);
+            }
+        }
+        PlayTask task = new PlayTask(voice);
+        try {
+            commonsPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.drop();
+        }
+    }
+
+    /**
+     * run the rejection policy of the bounded pool and release the voices it discards<p>
+     * 执行有界线程池的拒绝策略并释放其丢弃的发声
+     */
+    private void rejected(Runnable r, ThreadPoolExecutor pool) {
+        if (rejectedHandler instanceof ThreadPoolExecutor.DiscardOldestPolicy) {
+            if (!pool.isShutdown()) {
+                drop(pool.getQueue().poll());
+                pool.execute(r);
+                return;
+            }
+        } else if (!(rejectedHandler instanceof ThreadPoolExecutor.DiscardPolicy)) {
+            rejectedHandler.rejectedExecution(r, pool);
+            if (pool.getQueue().contains(r)) {// 自定义策略重新入队
+                return;
+            }
+        }
+        drop(r);
+    }
+
+    private static void drop(Runnable r) {
+        if (r instanceof PlayTask) {
+            ((PlayTask) r).drop();
+        }
+    }
+
+    /**
+     * A play on the pool,either played or dropped once<p>
+     * 线程池中的一次播放，仅播放或丢弃一次
+     */
+    private final class PlayTask implements Runnable {
+        private final SoundVoice voice;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        PlayTask(SoundVoice voice) {
+            this.voice = voice;
+        }
+
+        @Override
+        public void run() {
+            if (settled.compareAndSet(false, true)) {
+                playDirect(voice);
+            }
+        }
+
+        void drop() {
+            if (settled.compareAndSet(false, true)) {
+                allocator.drop(voice);
+            }
+        }
+    }
+
+    private void playDirect(SoundVoice voice) {
+        AriaMetrics.get().activeThreads().increment();
+        SourceDataLine refLine = null;
+        try {
+            AudioFormat format = voice.getSound().getFormat();
+            refLine = readyLineByFormat(format);
+            byte[] playCache = new byte[PLAY_CACHE_LENGTH];
+            AudioProcessor processor = voice.getProcessor();
+            SampleBuffer samples = processor == null ? null : new SampleBuffer(PLAY_CACHE_LENGTH / 2);
+            boolean realtime = linePool.getSink().isRealtime();
+            boolean written = false;
+            for (int realRead = voice.read(playCache, 0, playCache.length); realRead != -1; realRead = voice
+                    .read(playCache, 0, playCache.length)) {
+                if (processor != null) {
+                    samples.apply(processor, playCache, 0, realRead, format);
+                }
+                if (SampleBuffer.supports(format)) {
+                    SoundMixer.applyGain(playCache, realRead, voice.getGain(), format.isBigEndian());
+                }
+                if (realtime && written && refLine.available() >= refLine.getBufferSize()) {
+                    AriaMetrics.get().lineUnderruns().increment();
+                }
+                written = true;
+                refLine.write(playCache, 0, realRead);
+            }
+            refLine.drain();
+        } finally {
+            try {
+                if (refLine != null) {
+                    linePool.giveBack(refLine);
+                }
+            } finally {
+                allocator.release(voice);
+                AriaMetrics.get().activeThreads().decrement();
+            }
+        }
+    }
+
+    private SourceDataLine readyLineByFormat(AudioFormat format) {
+        try {
+            return linePool.borrow(format);
+        } catch (LineUnavailableException e) {
+            throw new AriaSoundRtException(e);
+        }
+    }
+
     /**
      * destroy se thread pool<p>
      * 等待音效播放完全并销毁音效线程池
@@ -126,7 +987,19 @@ public class SoundFactory {
      */
     @PreDestroy
     public void destroy() throws InterruptedException {
-        commonsPool.shutdown();
-        commonsPool.awaitTermination(3, TimeUnit.SECONDS);
+        if (!callerPool) {
+            commonsPool.shutdown();
+        }
+        if (!callerLoaderPool) {
+            loaderPool.shutdown();
+        }
+        for (SoundMixer mixer : mixers.values()) {
+            mixer.shutdown(TimeUnit.SECONDS.toMillis(3));
+        }
+        mixers.clear();
+        if (!callerPool) {
+            commonsPool.awaitTermination(3, TimeUnit.SECONDS);
+        }
+        linePool.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.thrblock.aria.sound;
+
+import java.io.File;
+
+/**
+ * The batch loading progress listener,called from loader threads
+ * <p>
+ * 批量加载进度监听器，由加载线程调用
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+@FunctionalInterface
+public interface SoundLoadListener {
+    /**
+     * @param done 已完成数（包括失败）
+     * @param total 总数
+     * @param file 刚完成的文件
+     */
+    public void progress(int done, int total, File file);
+}
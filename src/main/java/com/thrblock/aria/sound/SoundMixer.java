@@ -0,0 +1,254 @@
+package com.thrblock.aria.sound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thrblock.aria.dsp.AudioProcessor;
+import com.thrblock.aria.dsp.SampleBuffer;
+import com.thrblock.aria.metrics.AriaMetrics;
+import com.thrblock.aria.sink.AudioSink;
+
+/**
+ * The software mixer,one mixer thread and one line for each output format
+ * <p>
+ * 软件混音器，每种输出格式对应一个混音线程与一条LINE
+ * <p>
+ * All the active voices are run through their processors,summed into one
+ * block with per-voice gain and clipped into 16 bit signed pcm.
+ * <p>
+ * 所有活动发声实例经各自处理器处理后按各自增益叠加，并截断为16位有符号PCM
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class SoundMixer implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(SoundMixer.class);
+    /**
+     * the mix block size
+     * <p>
+     * 混音块大小
+     */
+    private static final int MIX_BLOCK_LENGTH = 2 * 1024;
+
+    private final AudioFormatInfo formatInfo;
+    private final AudioFormatInfo key;
+    private final Map<AudioFormatInfo, SoundMixer> registry;
+    private final VoiceAllocator allocator;
+    private final LinePool linePool;
+    private final SourceDataLine line;
+    private final AudioSink sink;
+    private final boolean bigEndian;
+    private final boolean realtime;
+    private final Queue<SoundVoice> pending = new ConcurrentLinkedQueue<>();
+    private final List<SoundVoice> active = new ArrayList<>();
+    private final byte[] voiceCache;
+    private final byte[] outCache;
+    private final int[] mixCache;
+    private final SampleBuffer samples;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * build a mixer on the given opened line
+     * <p>
+     * 在已打开的LINE上构造混音器
+     *
+     * @param key
+     *            混音器在注册表中的键
+     * @param registry
+     *            混音器注册表，混音线程结束时移除自身
+     * @param line
+     *            已打开的LINE
+     * @param allocator
+     *            发声分配器，发声结束时注销
+     * @param linePool
+     *            LINE池，混音器停止时归还LINE
+     */
+    SoundMixer(AudioFormatInfo key, Map<AudioFormatInfo, SoundMixer> registry, SourceDataLine line,
+            VoiceAllocator allocator, LinePool linePool) {
+        AudioFormat format = line.getFormat();
+        this.formatInfo = new AudioFormatInfo(format);
+        this.key = key;
+        this.registry = registry;
+        this.line = line;
+        this.allocator = allocator;
+        this.linePool = linePool;
+        this.bigEndian = format.isBigEndian();
+        this.sink = linePool.getSink();
+        this.realtime = sink.isRealtime();
+        int blockLength = MIX_BLOCK_LENGTH - MIX_BLOCK_LENGTH % format.getFrameSize();
+        this.voiceCache = new byte[blockLength];
+        this.outCache = new byte[blockLength];
+        this.mixCache = new int[blockLength / 2];
+        this.samples = new SampleBuffer(blockLength / 2);
+        this.thread = new Thread(this);
+        thread.setName("AriaSE-Mixer-" + formatInfo);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * enqueue a voice,no thread or line is created.A voice refused by a
+     * stopped mixer stays registered for the caller to play elsewhere
+     * <p>
+     * 提交发声实例，不会创建线程与LINE；已停止的混音器拒绝的发声仍处于注册状态，由调用方另行播放
+     *
+     * @param voice
+     *            发声实例
+     * @return 是否已被混音器接收
+     */
+    boolean submit(SoundVoice voice) {
+        sink.hold(thread);
+        pending.offer(voice);
+        LockSupport.unpark(thread);
+        // 混音线程先置停止标志再清空队列，二者之一取得该发声
+        if (running || !pending.remove(voice)) {
+            return true;
+        }
+        sink.release(thread);
+        return false;
+    }
+
+    /**
+     * stop the mixer thread and give back the line
+     * <p>
+     * 停止混音线程并归还LINE
+     *
+     * @param waitMillis
+     *            最长等待时间
+     * @throws InterruptedException
+     *             当中断时抛出
+     */
+    void shutdown(long waitMillis) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(waitMillis);
+    }
+
+    @Override
+    public void run() {
+        AriaMetrics.get().activeThreads().increment();
+        boolean written = false;
+        boolean stopped = false;
+        try {
+            while (running) {
+                int taken = 0;
+                for (SoundVoice voice = pending.poll(); voice != null; voice = pending.poll()) {
+                    active.add(voice);
+                    taken++;
+                }
+                if (active.isEmpty()) {
+                    written = false;// 空闲时LINE播空属正常
+                    if (!realtime && !stopped) {// 非实时输出端等待已开始的LINE，空闲时须排空并停止
+                        line.drain();
+                        line.stop();
+                        stopped = true;
+                    }
+                    LockSupport.park(this);
+                    continue;
+                }
+                if (stopped) {
+                    line.start();
+                    stopped = false;
+                }
+                for (; taken > 0; taken--) {
+                    sink.release(thread);
+                }
+                int length = mixBlock();
+                if (realtime && written && line.available() >= line.getBufferSize()) {
+                    AriaMetrics.get().lineUnderruns().increment();
+                }
+                written = true;
+                line.write(outCache, 0, length);
+            }
+            line.drain();
+        } catch (RuntimeException e) {
+            LOG.info("Exception in mixer " + formatInfo + ":" + e);
+        } finally {
+            running = false;
+            registry.remove(key, this);
+            for (SoundVoice voice : active) {
+                allocator.release(voice);
+            }
+            active.clear();
+            for (SoundVoice voice = pending.poll(); voice != null; voice = pending.poll()) {
+                allocator.release(voice);
+                sink.release(thread);
+            }
+            linePool.giveBack(line);
+            AriaMetrics.get().activeThreads().decrement();
+        }
+    }
+
+    private int mixBlock() {
+        int maxRead = 0;
+        for (int i = 0; i < mixCache.length; i++) {
+            mixCache[i] = 0;
+        }
+        for (int v = active.size() - 1; v >= 0; v--) {
+            SoundVoice voice = active.get(v);
+            int realRead = voice.read(voiceCache, 0, voiceCache.length);
+            if (realRead == -1) {
+                active.remove(v);
+                allocator.release(voice);
+                continue;
+            }
+            AudioProcessor processor = voice.getProcessor();
+            if (processor != null) {
+                samples.apply(processor, voiceCache, 0, realRead, voice.getSound().getFormat());
+            }
+            accumulate(voice, realRead / 2);
+            maxRead = Math.max(maxRead, realRead);
+        }
+        for (int i = 0; i < maxRead / 2; i++) {
+            SampleBuffer.writeSample(outCache, i * 2, mixCache[i], bigEndian);
+        }
+        return maxRead;
+    }
+
+    private void accumulate(SoundVoice voice, int samples) {
+        boolean srcBigEndian = voice.getSound().getFormat().isBigEndian();
+        float gain = voice.getGain();
+        if (gain == 1f) {
+            for (int i = 0; i < samples; i++) {
+                mixCache[i] += SampleBuffer.readSample(voiceCache, i * 2, srcBigEndian);
+            }
+        } else {
+            for (int i = 0; i < samples; i++) {
+                mixCache[i] += (int) (SampleBuffer.readSample(voiceCache, i * 2, srcBigEndian) * gain);
+            }
+        }
+    }
+
+    /**
+     * apply a linear gain in place,used when not mixing
+     * <p>
+     * 原地应用线性增益，用于非混音播放
+     *
+     * @param buf
+     *            16位PCM数据
+     * @param len
+     *            字节长度
+     * @param gain
+     *            线性增益
+     * @param bigEndian
+     *            是否大端
+     */
+    static void applyGain(byte[] buf, int len, float gain, boolean bigEndian) {
+        if (gain == 1f) {
+            return;
+        }
+        for (int i = 0; i + 1 < len; i += 2) {
+            SampleBuffer.writeSample(buf, i, (int) (SampleBuffer.readSample(buf, i, bigEndian) * gain), bigEndian);
+        }
+    }
+}
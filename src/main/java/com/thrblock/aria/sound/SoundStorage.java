@@ -0,0 +1,33 @@
+package com.thrblock.aria.sound;
+
+/**
+ * Where the decoded pcm of a sound is kept
+ * <p>
+ * 音效解码数据的存储方式
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public enum SoundStorage {
+    /**
+     * heap byte array,the former behavior
+     * <p>
+     * 堆内字节数组，原有行为
+     */
+    HEAP,
+    /**
+     * direct byte buffer out of the java heap,freed by {@link Sound#release()} or gc
+     * <p>
+     * 堆外直接缓冲区，由{@link Sound#release()}或GC释放
+     */
+    DIRECT,
+    /**
+     * IMA ADPCM in heap,about a quarter of the pcm size,decoded block by block while playing
+     * <p>
+     * 堆内IMA ADPCM，约为PCM大小的四分之一，播放时逐块解码
+     * <p>
+     * only for 16 bit pcm,other formats are kept in heap
+     * <p>
+     * 仅适用于16位PCM，其他格式按堆内存储
+     */
+    ADPCM
+}
@@ -0,0 +1,174 @@
+package com.thrblock.aria.sound;
+
+import java.util.function.BooleanSupplier;
+
+import com.thrblock.aria.dsp.AudioProcessor;
+
+/**
+ * A voice is one playing instance of a sound,it keeps the read position and
+ * the loop state
+ * <p>
+ * 发声实例，代表一次音效播放，维护读取位置与循环状态
+ * <p>
+ * The read method is only called by one playing thread,gain and stop can be
+ * changed from any thread.
+ * <p>
+ * read方法仅由单个播放线程调用，增益与停止可由任意线程修改
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class SoundVoice {
+    private final Sound sound;
+    private final PcmData src;
+    private final PcmData.Reader reader;
+    private final BooleanSupplier loopCondition;
+    private final int reOffset;
+    private final int priority;
+    private final AudioProcessor processor;
+    private int passRemain;
+    private boolean started = false;
+    private int position;
+    private volatile float gain;
+    private volatile boolean stopped = false;
+
+    /**
+     * build a voice that plays given times
+     * <p>
+     * 构造一个播放指定次数的发声实例
+     *
+     * @param sound
+     *            音效
+     * @param times
+     *            播放次数
+     * @param gain
+     *            线性增益
+     * @param priority
+     *            优先级
+     */
+    SoundVoice(Sound sound, int times, float gain, int priority) {
+        this(sound, times, null, 0, gain, priority);
+    }
+
+    /**
+     * build a voice that loops while the condition is true
+     * <p>
+     * 构造一个条件循环的发声实例
+     *
+     * @param sound
+     *            音效
+     * @param loopCondition
+     *            循环条件
+     * @param reOffset
+     *            循环偏移量
+     * @param gain
+     *            线性增益
+     * @param priority
+     *            优先级
+     */
+    SoundVoice(Sound sound, BooleanSupplier loopCondition, int reOffset, float gain, int priority) {
+        this(sound, 0, loopCondition, reOffset, gain, priority);
+    }
+
+    private SoundVoice(Sound sound, int times, BooleanSupplier loopCondition, int reOffset, float gain,
+            int priority) {
+        this.sound = sound;
+        this.src = sound.getPcmData();
+        this.reader = src.newReader();
+        this.passRemain = times;
+        this.loopCondition = loopCondition;
+        this.reOffset = reOffset;
+        this.gain = gain;
+        this.priority = priority;
+        this.position = src.length();
+        this.processor = sound.newProcessor();
+    }
+
+    /**
+     * read decoded data of this voice,loops are resolved inside
+     * <p>
+     * 读取解码数据，循环在内部处理
+     *
+     * @param buf
+     *            目标缓冲区
+     * @param off
+     *            偏移
+     * @param len
+     *            最大长度
+     * @return byte count,-1 when finished 读取字节数，结束时返回-1
+     */
+    int read(byte[] buf, int off, int len) {
+        int total = 0;
+        while (total < len && !stopped) {
+            if (position >= src.length() && !nextPass()) {
+                break;
+            }
+            int n = reader.read(position, buf, off + total, len - total);
+            if (n <= 0) {
+                stopped = true;
+                break;
+            }
+            position += n;
+            total += n;
+        }
+        if (total == 0) {
+            stopped = true;
+            return -1;
+        }
+        return total;
+    }
+
+    private boolean nextPass() {
+        if (loopCondition != null) {
+            if (!loopCondition.getAsBoolean()) {
+                return false;
+            }
+            position = started ? reOffset : 0;
+        } else {
+            if (passRemain <= 0) {
+                return false;
+            }
+            passRemain--;
+            position = 0;
+        }
+        started = true;
+        return position < src.length();
+    }
+
+    Sound getSound() {
+        return sound;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    /**
+     * the processor of this voice,may be null
+     * <p>
+     * 本发声实例的处理器，可能为空
+     */
+    AudioProcessor getProcessor() {
+        return processor;
+    }
+
+    float getGain() {
+        return gain;
+    }
+
+    void setGain(float gain) {
+        this.gain = gain;
+    }
+
+    /**
+     * stop this voice,it will be removed at next read
+     * <p>
+     * 停止发声，下次读取时移除
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+}
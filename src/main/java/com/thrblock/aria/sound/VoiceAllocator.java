@@ -0,0 +1,183 @@
+package com.thrblock.aria.sound;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thrblock.aria.metrics.AriaMetrics;
+
+/**
+ * Keep track of active voices and apply the voice limits
+ * <p>
+ * 活动发声登记与发声数限制
+ * <p>
+ * A play beyond the limit is decided here,before any thread or line is used.
+ * <p>
+ * 超限的播放在此处决定去留，不会占用线程或LINE
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+class VoiceAllocator {
+    /**
+     * active voices in start order
+     * <p>
+     * 按开始顺序排列的活动发声
+     */
+    private final Set<SoundVoice> active = new LinkedHashSet<>();
+    private final AtomicLong stolen = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int maxVoices = 0;
+    private volatile VoiceStealPolicy policy = VoiceStealPolicy.OLDEST;
+
+    /**
+     * register a voice,a victim may be stopped
+     * <p>
+     * 登记发声实例，可能停止一个已有发声
+     *
+     * @param voice
+     *            新发声
+     * @return false if dropped 被丢弃时返回false
+     */
+    synchronized boolean acquire(SoundVoice voice) {
+        Sound sound = voice.getSound();
+        Collection<SoundVoice> candidates = null;
+        if (sound.getMaxVoices() > 0 && sound.getActiveVoices().size() >= sound.getMaxVoices()) {
+            candidates = sound.getActiveVoices();
+        } else if (maxVoices > 0 && active.size() >= maxVoices) {
+            candidates = active;
+        }
+        if (candidates != null) {
+            SoundVoice victim = chooseVictim(candidates, voice);
+            if (victim == null) {
+                dropped.incrementAndGet();
+                AriaMetrics.get().droppedVoices().increment();
+                return false;
+            }
+            victim.stop();
+            remove(victim);
+            stolen.incrementAndGet();
+            AriaMetrics.get().stolenVoices().increment();
+        }
+        if (active.add(voice)) {
+            AriaMetrics.get().activeVoices().increment();
+        }
+        sound.getActiveVoices().add(voice);
+        return true;
+    }
+
+    /**
+     * unregister a voice,do nothing if not registered
+     * <p>
+     * 注销发声实例，未登记时忽略
+     *
+     * @param voice
+     *            发声
+     */
+    synchronized void release(SoundVoice voice) {
+        remove(voice);
+    }
+
+    /**
+     * unregister a voice that could not be started and count it as dropped
+     * <p>
+     * 注销未能开始的发声实例并计入丢弃数
+     *
+     * @param voice
+     *            发声
+     */
+    synchronized void drop(SoundVoice voice) {
+        remove(voice);
+        dropped.incrementAndGet();
+        AriaMetrics.get().droppedVoices().increment();
+    }
+
+    private void remove(SoundVoice voice) {
+        if (active.remove(voice)) {
+            voice.getSound().getActiveVoices().remove(voice);
+            AriaMetrics.get().activeVoices().decrement();
+        }
+    }
+
+    private SoundVoice chooseVictim(Collection<SoundVoice> candidates, SoundVoice voice) {
+        Iterator<SoundVoice> it = candidates.iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        switch (policy) {
+        case OLDEST:
+            return it.next();
+        case QUIETEST:
+            SoundVoice quietest = it.next();
+            while (it.hasNext()) {
+                SoundVoice next = it.next();
+                if (next.getGain() < quietest.getGain()) {
+                    quietest = next;
+                }
+            }
+            return quietest;
+        case LOWEST_PRIORITY:
+            SoundVoice lowest = it.next();
+            while (it.hasNext()) {
+                SoundVoice next = it.next();
+                if (next.getPriority() < lowest.getPriority()) {
+                    lowest = next;
+                }
+            }
+            return lowest.getPriority() <= voice.getPriority() ? lowest : null;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * stop and unregister all the voices of a sound
+     * <p>
+     * 停止并注销音效的所有发声
+     *
+     * @param sound
+     *            音效
+     */
+    synchronized void stopAll(Sound sound) {
+        for (SoundVoice voice : sound.getActiveVoices()) {
+            voice.stop();
+            if (active.remove(voice)) {
+                AriaMetrics.get().activeVoices().decrement();
+            }
+        }
+        sound.getActiveVoices().clear();
+    }
+
+    synchronized boolean isPlaying(Sound sound) {
+        return !sound.getActiveVoices().isEmpty();
+    }
+
+    synchronized int getActiveCount() {
+        return active.size();
+    }
+
+    long getStolenCount() {
+        return stolen.get();
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    int getMaxVoices() {
+        return maxVoices;
+    }
+
+    void setMaxVoices(int maxVoices) {
+        this.maxVoices = maxVoices;
+    }
+
+    VoiceStealPolicy getPolicy() {
+        return policy;
+    }
+
+    void setPolicy(VoiceStealPolicy policy) {
+        this.policy = policy;
+    }
+}
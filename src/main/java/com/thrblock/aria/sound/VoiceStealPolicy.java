@@ -0,0 +1,36 @@
+package com.thrblock.aria.sound;
+
+/**
+ * What to do when a play exceeds the voice limit
+ * <p>
+ * 发声数超出上限时的处理策略
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public enum VoiceStealPolicy {
+    /**
+     * stop the oldest voice
+     * <p>
+     * 停止最早开始的发声
+     */
+    OLDEST,
+    /**
+     * stop the voice with the lowest gain
+     * <p>
+     * 停止增益最低的发声
+     */
+    QUIETEST,
+    /**
+     * stop the voice with the lowest priority,the new play is dropped if all
+     * the voices have a higher priority
+     * <p>
+     * 停止优先级最低的发声，若所有发声优先级均更高则丢弃新的播放
+     */
+    LOWEST_PRIORITY,
+    /**
+     * drop the new play
+     * <p>
+     * 丢弃新的播放
+     */
+    REJECT
+}
@@ -0,0 +1,154 @@
+package com.thrblock.aria.transcode;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+
+import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.decoder.ResamplingDecoder;
+import com.thrblock.aria.decoder.SPIDecoder;
+import com.thrblock.aria.sound.AriaSoundException;
+
+/**
+ * A console transcoder,the main class of the jar
+ * <p>
+ * 控制台转码工具，jar的主类
+ * <p>
+ * usage:java -jar aria-core.jar [options] srcDir dstDir
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see Transcoder
+ */
+public class TranscodeCommand {
+    private static final int EXIT_FAILURES = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final String USAGE = "usage: java -jar aria-core.jar [options] srcDir dstDir\n"
+            + "  -f, --format wav|raw     output wav or headerless 16 bit little endian pcm (default wav)\n"
+            + "  -r, --rate <hz>          resample to the rate (default 44100 when -c is given)\n"
+            + "  -c, --channels <1|2>     resample to the channels (default 2 when -r is given)\n"
+            + "  -q, --quality sinc|linear  resampling quality (default sinc)\n"
+            + "  -t, --threads <n>        parallel files (default the cpu count)\n"
+            + "      --full               transcode all files,ignoring the unchanged ones\n"
+            + "      --decoder <class>    IDecoder with a no-arg constructor (default SPIDecoder)";
+
+    private TranscodeCommand() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Transcoder.Output output = Transcoder.Output.WAV;
+        float rate = 0;
+        int channels = 0;
+        ResamplingDecoder.Quality quality = ResamplingDecoder.Quality.SINC;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean incremental = true;
+        String decoderClass = SPIDecoder.class.getName();
+        File src = null;
+        File dst = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                case "-f":
+                case "--format":
+                    output = Transcoder.Output.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "-r":
+                case "--rate":
+                    rate = Float.parseFloat(value(args, ++i));
+                    break;
+                case "-c":
+                case "--channels":
+                    channels = Integer.parseInt(value(args, ++i));
+                    break;
+                case "-q":
+                case "--quality":
+                    quality = ResamplingDecoder.Quality.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "-t":
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--full":
+                    incremental = false;
+                    break;
+                case "--decoder":
+                    decoderClass = value(args, ++i);
+                    break;
+                case "-h":
+                case "--help":
+                    usage(System.out, null);
+                    return;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("unknown option " + arg);
+                    } else if (src == null) {
+                        src = new File(arg);
+                    } else if (dst == null) {
+                        dst = new File(arg);
+                    } else {
+                        throw new IllegalArgumentException("unexpected argument " + arg);
+                    }
+                }
+            }
+            if (dst == null) {
+                throw new IllegalArgumentException("srcDir and dstDir are required");
+            }
+            if (!src.isDirectory()) {
+                throw new IllegalArgumentException("not a dir:" + src);
+            }
+            if (Transcoder.overlaps(src, dst)) {
+                throw new IllegalArgumentException("srcDir and dstDir must not contain each other");
+            }
+            if (rate < 0 || channels < 0 || channels > 2 || threads < 1) {
+                throw new IllegalArgumentException("rate,channels or threads out of range");
+            }
+        } catch (IllegalArgumentException e) {
+            usage(System.err, e.getMessage());
+            System.exit(EXIT_USAGE);
+            return;
+        }
+        IDecoder decoder;
+        try {
+            decoder = (IDecoder) Class.forName(decoderClass).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            usage(System.err, "can not build the decoder " + decoderClass + ":" + e);
+            System.exit(EXIT_USAGE);
+            return;
+        }
+        if (rate > 0 || channels > 0) {
+            decoder = new ResamplingDecoder(decoder, rate > 0 ? rate : 44100f, channels > 0 ? channels : 2, quality);
+        }
+        Transcoder transcoder = new Transcoder(decoder);
+        transcoder.setOutput(output);
+        transcoder.setThreads(threads);
+        transcoder.setIncremental(incremental);
+        TranscodeResult result;
+        try {
+            result = transcoder.transcode(src, dst);
+        } catch (AriaSoundException e) {
+            System.err.println("transcode failed:" + e.getCause());
+            System.exit(EXIT_FAILURES);
+            return;
+        }
+        for (Map.Entry<File, AriaSoundException> failure : result.getFailures().entrySet()) {
+            System.err.println("failed " + failure.getKey() + ":" + failure.getValue().getCause());
+        }
+        System.out.println(result);
+        System.exit(result.getFailures().isEmpty() ? 0 : EXIT_FAILURES);
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("missing value of " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static void usage(PrintStream out, String error) {
+        if (error != null) {
+            out.println(error);
+        }
+        out.println(USAGE);
+    }
+}
@@ -0,0 +1,175 @@
+package com.thrblock.aria.transcode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * The record of the transcoded sources,kept in the output dir
+ * <p>
+ * 已转码源文件的记录，保存于输出目录
+ * <p>
+ * A source is unchanged when its size and mtime match,or when only the mtime
+ * differs and the crc32 of the content matches.The records are dropped when
+ * the settings change.
+ * <p>
+ * 源文件大小与修改时间均一致，或仅修改时间不同而内容crc32一致时视为未变更；设置变更时丢弃全部记录
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+final class TranscodeIndex {
+    static final String FILE_NAME = ".aria-transcode";
+    private static final String SETTINGS_KEY = "#settings";
+    private static final int HASH_CACHE_LENGTH = 64 * 1024;
+
+    private final Path file;
+    private final String settings;
+    private final Map<String, Record> previous = new ConcurrentHashMap<>();
+    private final Map<String, Record> current = new ConcurrentHashMap<>();
+
+    private TranscodeIndex(Path file, String settings) {
+        this.file = file;
+        this.settings = settings;
+    }
+
+    /**
+     * load the index of the output dir,empty when missing or of other
+     * settings
+     * <p>
+     * 加载输出目录的记录，不存在或设置不同时为空
+     */
+    static TranscodeIndex load(File dstDir, String settings) throws IOException {
+        TranscodeIndex index = new TranscodeIndex(dstDir.toPath().resolve(FILE_NAME), settings);
+        if (Files.isRegularFile(index.file)) {
+            Properties props = new Properties();
+            try (InputStream in = Files.newInputStream(index.file)) {
+                props.load(in);
+            }
+            if (settings.equals(props.getProperty(SETTINGS_KEY))) {
+                for (String key : props.stringPropertyNames()) {
+                    Record record = Record.parse(props.getProperty(key));
+                    if (!SETTINGS_KEY.equals(key) && record != null) {
+                        index.previous.put(key, record);
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * check a source against its record,the unchanged one is kept in the index
+     * <p>
+     * 对照记录检查源文件，未变更的保留在记录中
+     *
+     * @return 是否未变更
+     */
+    boolean unchanged(String key, File src) throws IOException {
+        Record record = previous.get(key);
+        if (record == null || record.size != src.length()) {
+            return false;
+        }
+        long mtime = src.lastModified();
+        if (record.mtime != mtime) {
+            long crc = crc32(src);
+            if (record.crc != crc) {
+                return false;
+            }
+            record = new Record(record.size, mtime, crc);
+        }
+        current.put(key, record);
+        return true;
+    }
+
+    /**
+     * record a transcoded source
+     * <p>
+     * 记录已转码的源文件
+     *
+     * @param record
+     *            the record taken before decoding 解码前取得的记录
+     */
+    void put(String key, Record record) {
+        current.put(key, record);
+    }
+
+    /**
+     * write the records of this run,the removed sources are dropped
+     * <p>
+     * 写入本次运行的记录，已删除的源文件不再记录
+     */
+    void save() throws IOException {
+        Properties props = new Properties();
+        props.setProperty(SETTINGS_KEY, settings);
+        for (Map.Entry<String, Record> entry : current.entrySet()) {
+            props.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+        Path part = file.resolveSibling(FILE_NAME + ".part");
+        try (OutputStream out = Files.newOutputStream(part)) {
+            props.store(out, "aria transcode index");
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long crc32(File src) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] cache = new byte[HASH_CACHE_LENGTH];
+        try (InputStream in = Files.newInputStream(src.toPath())) {
+            for (int realRead = in.read(cache); realRead != -1; realRead = in.read(cache)) {
+                crc.update(cache, 0, realRead);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The size,mtime and crc32 of a source
+     * <p>
+     * 源文件的大小、修改时间与crc32
+     */
+    static final class Record {
+        final long size;
+        final long mtime;
+        final long crc;
+
+        Record(long size, long mtime, long crc) {
+            this.size = size;
+            this.mtime = mtime;
+            this.crc = crc;
+        }
+
+        /**
+         * read the record of a source
+         * <p>
+         * 读取源文件的记录
+         */
+        static Record of(File src) throws IOException {
+            return new Record(src.length(), src.lastModified(), crc32(src));
+        }
+
+        static Record parse(String value) {
+            String[] parts = value.split(",");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Record(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2], 16));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return size + "," + mtime + "," + Long.toHexString(crc);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.thrblock.aria.transcode;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.thrblock.aria.sound.AriaSoundException;
+
+/**
+ * The result of a transcoding run,a failed file does not abort the others
+ * <p>
+ * 一次转码的结果，单个文件失败不影响其他文件
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class TranscodeResult {
+    private final int transcoded;
+    private final int skipped;
+    private final Map<File, AriaSoundException> failures;
+    private final long inputBytes;
+    private final long outputBytes;
+    private final double audioSeconds;
+    private final long elapsedNanos;
+
+    TranscodeResult(int transcoded, int skipped, Map<File, AriaSoundException> failures, long inputBytes,
+            long outputBytes, double audioSeconds, long elapsedNanos) {
+        this.transcoded = transcoded;
+        this.skipped = skipped;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+        this.audioSeconds = audioSeconds;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * get the count of the transcoded files
+     * <p>
+     * 获得已转码文件数
+     *
+     * @return 已转码文件数
+     */
+    public int getTranscoded() {
+        return transcoded;
+    }
+
+    /**
+     * get the count of the unchanged files skipped
+     * <p>
+     * 获得因未变更而跳过的文件数
+     *
+     * @return 跳过文件数
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * get the failures in the walk order
+     * <p>
+     * 获得转码失败的文件与异常，按遍历顺序
+     *
+     * @return 文件与异常
+     */
+    public Map<File, AriaSoundException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * get the source bytes of the transcoded files
+     * <p>
+     * 获得已转码文件的源文件字节数
+     *
+     * @return 源文件字节数
+     */
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    /**
+     * get the pcm bytes written
+     * <p>
+     * 获得写入的PCM字节数
+     *
+     * @return PCM字节数
+     */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * get the seconds of audio transcoded
+     * <p>
+     * 获得已转码音频的秒数
+     *
+     * @return 音频秒数
+     */
+    public double getAudioSeconds() {
+        return audioSeconds;
+    }
+
+    /**
+     * get the wall time of the run in millisecond
+     * <p>
+     * 获得本次运行的耗时毫秒数
+     *
+     * @return 耗时毫秒数
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * the throughput summary
+     * <p>
+     * 吞吐量摘要
+     */
+    @Override
+    public String toString() {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return String.format("transcoded %d, skipped %d, failed %d in %.2f s: %.1f s of audio (%.1fx realtime), "
+                + "%.1f MB pcm (%.1f MB/s), %.1f MB read", transcoded, skipped, failures.size(), seconds,
+                audioSeconds, audioSeconds / seconds, outputBytes / 1e6, outputBytes / 1e6 / seconds,
+                inputBytes / 1e6);
+    }
+}
@@ -0,0 +1,362 @@
+package com.thrblock.aria.transcode;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import com.thrblock.aria.decoder.IDecoder;
+import com.thrblock.aria.sink.WavFileSink;
+import com.thrblock.aria.sound.AriaSoundException;
+import com.thrblock.aria.sound.SoundExecutors;
+
+/**
+ * Decode a dir of MP3/OGG/WAV files to WAV or raw pcm files in parallel
+ * <p>
+ * 并行将目录下的MP3/OGG/WAV文件解码为WAV或裸PCM文件
+ * <p>
+ * The output keeps the relative path of the source.Each file is streamed
+ * through a fixed buffer into a temp file moved in place when done,so the
+ * memory is bounded and a failed file leaves no partial output.The
+ * unchanged sources are skipped by the index kept in the output dir.The
+ * sources mapped to the same output,eg.a.mp3 and a.ogg,fail without writing.
+ * <p>
+ * 输出保持源文件的相对路径；每个文件经固定缓冲区流式写入临时文件，完成后移动到位，内存占用有界且失败时不留下不完整的输出；
+ * 未变更的源文件依据输出目录中的记录跳过；映射至同一输出的源文件（如a.mp3与a.ogg）不写入并记为失败
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ * @see TranscodeCommand
+ */
+public class Transcoder {
+    /**
+     * The output file type
+     * <p>
+     * 输出文件类型
+     */
+    public enum Output {
+        /**
+         * 16 bit pcm wav
+         * <p>
+         * 16位PCM WAV文件
+         */
+        WAV(".wav"),
+        /**
+         * headerless 16 bit little endian pcm
+         * <p>
+         * 无文件头的16位小端PCM
+         */
+        RAW(".pcm");
+
+        private final String extension;
+
+        Output(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private static final String[] EXTENSIONS = { ".mp3", ".ogg", ".oga", ".wav" };
+    private static final int TRANSCODE_CACHE_LENGTH = 64 * 1024;
+
+    private final IDecoder decoder;
+    private Output output = Output.WAV;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean incremental = true;
+
+    /**
+     * build with the decoder,eg.a ResamplingDecoder to resample
+     * <p>
+     * 使用指定的解码器构造，如使用ResamplingDecoder重采样
+     *
+     * @param decoder
+     *            解码器
+     */
+    public Transcoder(IDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * set the output file type,default wav
+     * <p>
+     * 设置输出文件类型，默认WAV
+     *
+     * @param output
+     *            输出文件类型
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+    }
+
+    /**
+     * set the parallel files,default the cpu count
+     * <p>
+     * 设置并行转码的文件数，默认为CPU数
+     *
+     * @param threads
+     *            并行数
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * skip the unchanged sources or not,default true
+     * <p>
+     * 设置是否跳过未变更的源文件，默认开启
+     *
+     * @param incremental
+     *            是否增量转码
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * transcode the sources of the dir recursively
+     * <p>
+     * 递归转码目录下的源文件
+     *
+     * @param srcDir
+     *            源目录
+     * @param dstDir
+     *            输出目录
+     * @return 转码结果
+     * @throws AriaSoundException
+     *             when the dirs or the index can not be read or written 目录或记录无法读写时抛出
+     * @throws InterruptedException
+     *             when interrupted 当中断时抛出
+     * @throws IllegalArgumentException
+     *             when one dir is in the other 目录相互包含时抛出
+     */
+    public TranscodeResult transcode(File srcDir, File dstDir) throws AriaSoundException, InterruptedException {
+        if (overlaps(srcDir, dstDir)) {
+            throw new IllegalArgumentException("srcDir and dstDir overlap:" + srcDir + "," + dstDir);
+        }
+        long ts = System.nanoTime();
+        Path src = srcDir.toPath().toAbsolutePath().normalize();
+        Path dst = dstDir.toPath().toAbsolutePath().normalize();
+        List<Path> sources;
+        TranscodeIndex index;
+        try {
+            Files.createDirectories(dst);
+            try (Stream<Path> paths = Files.walk(src)) {
+                sources = paths.filter(p -> Files.isRegularFile(p) && accepts(p)).sorted().collect(
+                        Collectors.toCollection(ArrayList::new));
+            }
+            index = TranscodeIndex.load(dst.toFile(), settings());
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        }
+        AtomicInteger transcoded = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        LongAdder inputBytes = new LongAdder();
+        LongAdder outputBytes = new LongAdder();
+        DoubleAdder audioSeconds = new DoubleAdder();
+        ExecutorService pool = SoundExecutors.loader(Math.max(1, threads));
+        Map<File, Future<Void>> futures = new LinkedHashMap<>();
+        Map<Path, Path> targets = targetsOf(src, dst, sources);
+        Map<String, Integer> claims = new HashMap<>();
+        for (Path target : targets.values()) {
+            claims.merge(target.toString().toLowerCase(Locale.ROOT), 1, Integer::sum);
+        }
+        try {
+            for (Path source : sources) {
+                String key = src.relativize(source).toString().replace(File.separatorChar, '/');
+                Path target = targets.get(source);
+                File f = source.toFile();
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                futures.put(f, future);
+                if (claims.get(target.toString().toLowerCase(Locale.ROOT)) > 1) {// 多个源文件映射至同一输出
+                    future.completeExceptionally(new AriaSoundException(new FileAlreadyExistsException(f.getPath(),
+                            target.toString(), "another source maps to the same output")));
+                    continue;
+                }
+                pool.execute(() -> {
+                    try {
+                        if (incremental && Files.isRegularFile(target) && index.unchanged(key, f)) {
+                            skipped.incrementAndGet();
+                        } else {
+                            TranscodeIndex.Record record = TranscodeIndex.Record.of(f);// 解码前取得
+                            long pcm = transcodeFile(f, target, audioSeconds);
+                            index.put(key, record);
+                            transcoded.incrementAndGet();
+                            inputBytes.add(record.size);
+                            outputBytes.add(pcm);
+                        }
+                        future.complete(null);
+                    } catch (Exception e) {
+                        future.completeExceptionally(new AriaSoundException(e));
+                    } catch (Throwable e) {// 如超大文件导致的OOM，仅此文件失败
+                        future.completeExceptionally(new AriaSoundException(new ExecutionException(e)));
+                    }
+                });
+            }
+            Map<File, AriaSoundException> failures = new LinkedHashMap<>();
+            for (Map.Entry<File, Future<Void>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    failures.put(entry.getKey(), (AriaSoundException) e.getCause());
+                }
+            }
+            index.save();
+            return new TranscodeResult(transcoded.get(), skipped.get(), failures, inputBytes.sum(),
+                    outputBytes.sum(), audioSeconds.sum(), System.nanoTime() - ts);
+        } catch (IOException e) {
+            throw new AriaSoundException(e);
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * decode one file into the target through a temp file
+     * <p>
+     * 经临时文件将单个文件解码至目标文件
+     *
+     * @return 写入的PCM字节数
+     */
+    private long transcodeFile(File src, Path target, DoubleAdder audioSeconds)
+            throws UnsupportedAudioFileException, IOException {
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        long length = 0;
+        try (AudioInputStream srcInput = AudioSystem.getAudioInputStream(new BufferedInputStream(Files
+                .newInputStream(src.toPath()), TRANSCODE_CACHE_LENGTH));
+                AudioInputStream decoded = pcm16(decoder.getDecodedAudioInputStream(srcInput))) {
+            AudioFormat format = decoded.getFormat();
+            try (OutputStream out = Files.newOutputStream(part)) {
+                if (output == Output.WAV) {
+                    out.write(WavFileSink.header(format, 0));
+                }
+                length = copy(decoded, out);
+            }
+            if (output == Output.WAV) {
+                try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                    ByteBuffer header = ByteBuffer.wrap(WavFileSink.header(format, length));
+                    while (header.hasRemaining()) {
+                        channel.write(header, header.position());
+                    }
+                }
+            }
+            audioSeconds.add(length / (double) format.getFrameSize() / format.getFrameRate());
+            moveInPlace(part, target);
+        } catch (Throwable e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        return length;
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] cache = new byte[TRANSCODE_CACHE_LENGTH];
+        long length = 0;
+        for (int realRead = in.read(cache); realRead != -1; realRead = in.read(cache)) {
+            out.write(cache, 0, realRead);
+            length += realRead;
+        }
+        return length;
+    }
+
+    /**
+     * convert to 16 bit signed little endian pcm when the decoder gives other
+     * <p>
+     * 解码器输出其他格式时转换为16位有符号小端PCM
+     */
+    private static AudioInputStream pcm16(AudioInputStream decoded) {
+        AudioFormat format = decoded.getFormat();
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) && format.getSampleSizeInBits() == 16
+                && !format.isBigEndian()) {
+            return decoded;
+        }
+        AudioFormat pcm16 = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+        return AudioSystem.getAudioInputStream(pcm16, decoded);
+    }
+
+    private static void moveInPlace(Path part, Path target) throws IOException {
+        try {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * whether one dir is or is in the other,the output would be walked as
+     * source or the sources written over
+     * <p>
+     * 两目录是否相同或相互包含，此时输出会被当作源文件遍历或覆盖源文件
+     *
+     * @param srcDir
+     *            源目录
+     * @param dstDir
+     *            输出目录
+     * @return 是否重叠
+     */
+    static boolean overlaps(File srcDir, File dstDir) {
+        Path src = srcDir.toPath().toAbsolutePath().normalize();
+        Path dst = dstDir.toPath().toAbsolutePath().normalize();
+        return src.startsWith(dst) || dst.startsWith(src);
+    }
+
+    private static boolean accepts(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Path, Path> targetsOf(Path src, Path dst, List<Path> sources) {
+        Map<Path, Path> targets = new HashMap<>();
+        for (Path source : sources) {
+            String relative = src.relativize(source).toString();
+            int dot = relative.lastIndexOf('.');
+            targets.put(source, dst.resolve(relative.substring(0, dot) + output.extension));
+        }
+        return targets;
+    }
+
+    /**
+     * the settings the index is valid for,the decoded format of a probe
+     * format tells a resampling decoder apart
+     * <p>
+     * 记录适用的设置，以探测格式的解码格式区分重采样解码器
+     */
+    private String settings() {
+        AudioFormat probe = decoder.getDecodedAudioFormat(new AudioFormat(48000f, 16, 1, true, true));
+        return output + "," + decoder.getClass().getName() + "," + probe;
+    }
+}
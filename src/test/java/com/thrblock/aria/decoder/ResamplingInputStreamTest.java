@@ -0,0 +1,112 @@
+package com.thrblock.aria.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import org.junit.Test;
+
+/**
+ * Output length,dc gain and sine accuracy of the resampler
+ * <p>
+ * 重采样的输出长度、直流增益与正弦精度
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class ResamplingInputStreamTest {
+    private static final float[][] RATES = { { 44100, 48000 }, { 48000, 44100 }, { 22050, 44100 },
+            { 44100, 22050 }, { 32000, 32000 } };
+
+    @Test
+    public void lengthMatchesOutputFrames() throws IOException {
+        for (float[] rates : RATES) {
+            for (boolean sinc : new boolean[] { false, true }) {
+                for (int frames : new int[] { 0, 1, 999, 44100 }) {
+                    short[] out = resample(new short[frames], 1, rates[0], rates[1], 1, sinc);
+                    assertEquals(rates[0] + "->" + rates[1] + " " + frames, ResamplingInputStream.outputFrames(
+                            frames, rates[0], rates[1]), out.length);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dcPassesAtUnityGain() throws IOException {
+        short[] dc = new short[44100];
+        Arrays.fill(dc, (short) 10000);
+        for (float[] rates : RATES) {
+            for (boolean sinc : new boolean[] { false, true }) {
+                short[] out = resample(dc, 1, rates[0], rates[1], 1, sinc);
+                for (int i = out.length / 4; i < out.length * 3 / 4; i++) {// 避开两端的过渡
+                    assertEquals(rates[0] + "->" + rates[1] + " at " + i, 10000, out[i], 2);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sineKeepsItsShape() throws IOException {
+        double freq = 1000;
+        double amplitude = 10000;
+        short[] sine = new short[44100];
+        for (int i = 0; i < sine.length; i++) {
+            sine[i] = (short) Math.round(Math.sin(2 * Math.PI * freq * i / 44100) * amplitude);
+        }
+        for (boolean sinc : new boolean[] { false, true }) {
+            short[] out = resample(sine, 1, 44100, 48000, 1, sinc);
+            double maxError = 0;
+            for (int i = out.length / 4; i < out.length * 3 / 4; i++) {
+                double expected = Math.sin(2 * Math.PI * freq * i / 48000) * amplitude;
+                maxError = Math.max(maxError, Math.abs(out[i] - expected));
+            }
+            assertTrue((sinc ? "sinc" : "linear") + " max error " + maxError, maxError < amplitude / 100);
+        }
+    }
+
+    @Test
+    public void stereoDownmixAverages() throws IOException {
+        short[] stereo = new short[2 * 4410];
+        for (int f = 0; f < 4410; f++) {
+            stereo[f * 2] = 3000;
+            stereo[f * 2 + 1] = 1000;
+        }
+        short[] out = resample(stereo, 2, 44100, 44100, 1, false);
+        assertEquals(4410, out.length);
+        for (int i = 10; i < out.length - 10; i++) {
+            assertEquals(2000, out[i]);
+        }
+    }
+
+    private static short[] resample(short[] samples, int srcChannels, float srcRate, float dstRate, int channels,
+            boolean sinc) throws IOException {
+        byte[] pcm = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            pcm[i * 2] = (byte) samples[i];
+            pcm[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        AudioFormat srcFormat = new AudioFormat(srcRate, 16, srcChannels, true, false);
+        AudioFormat target = new AudioFormat(dstRate, 16, channels, true, false);
+        AudioInputStream src = new AudioInputStream(new ByteArrayInputStream(pcm), srcFormat, samples.length
+                / srcChannels);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResamplingInputStream resampled = new ResamplingInputStream(src, target, sinc)) {
+            byte[] cache = new byte[1000];// 非块长整数倍
+            for (int realRead = resampled.read(cache); realRead != -1; realRead = resampled.read(cache)) {
+                out.write(cache, 0, realRead);
+            }
+        }
+        byte[] data = out.toByteArray();
+        short[] result = new short[data.length / 2 / channels];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (short) (data[i * 2 * channels + 1] << 8 | data[i * 2 * channels] & 0xFF);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.thrblock.aria.metrics;
+
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * The metrics are fixed once used
+ * <p>
+ * 指标使用后即固定
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class AriaMetricsTest {
+    @Test
+    public void installAfterUseIsRejected() {
+        AriaMetrics metrics = AriaMetrics.get();
+        try {
+            AriaMetrics.install(new DefaultMetricsRegistry());
+            throw new AssertionError("installed after use");
+        } catch (IllegalStateException e) {
+            assertSame(metrics, AriaMetrics.get());
+        }
+    }
+}
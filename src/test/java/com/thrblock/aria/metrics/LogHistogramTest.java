@@ -0,0 +1,84 @@
+package com.thrblock.aria.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Bucket bounds and percentiles of the log-linear histogram
+ * <p>
+ * 对数线性直方图的桶边界与百分位
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class LogHistogramTest {
+    @Test
+    public void smallValuesAreExact() {
+        for (long v = 0; v < 64; v++) {
+            assertEquals(v, LogHistogram.indexOf(v));
+            assertEquals(v, LogHistogram.highestOf((int) v));
+        }
+    }
+
+    @Test
+    public void eachValueIsWithinItsBucket() {
+        Random random = new Random(1);
+        for (int n = 0; n < 100000; n++) {
+            long v = (random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(63);
+            checkBucket(v);
+        }
+        for (int bit = 6; bit < 63; bit++) {
+            checkBucket((1L << bit) - 1);
+            checkBucket(1L << bit);
+            checkBucket((1L << bit) + 1);
+        }
+        checkBucket(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int index = 1; index <= LogHistogram.indexOf(Long.MAX_VALUE); index++) {
+            long low = LogHistogram.highestOf(index - 1) + 1;
+            assertEquals("bucket " + index, index, LogHistogram.indexOf(low));
+        }
+    }
+
+    @Test
+    public void percentileIsWithinTheResolution() {
+        LogHistogram histogram = new LogHistogram();
+        for (long v = 1; v <= 100000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000.5, histogram.getMean(), 1e-9);
+        for (double p : new double[] { 1, 50, 90, 99, 99.9 }) {
+            long expected = (long) (p * 1000);
+            long got = histogram.getValueAtPercentile(p);
+            assertTrue(p + "th " + got, got >= expected && got - expected <= expected / 32);
+        }
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    private static void checkBucket(long v) {
+        int index = LogHistogram.indexOf(v);
+        long high = LogHistogram.highestOf(index);
+        assertTrue(v + " above " + high, v <= high);
+        if (index > 0) {
+            assertTrue(v + " in the bucket below", v > LogHistogram.highestOf(index - 1));
+        }
+        long low = index == 0 ? 0 : LogHistogram.highestOf(index - 1) + 1;
+        assertTrue(v + " bucket too wide", high - low <= Math.max(0, low / 32));
+    }
+}
@@ -0,0 +1,67 @@
+package com.thrblock.aria.music;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Test;
+
+/**
+ * Gain curve and block independence of the crossfade
+ * <p>
+ * 交叉淡化的增益曲线与分块无关性
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class CrossfadeTest {
+    private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    private static final int FADE = 4 * 1000;
+
+    @Test
+    public void fadesFromTheOutgoingToTheIncoming() {
+        byte[] out = constant(FADE, 8000);
+        byte[] in = constant(FADE, -4000);
+        Crossfade.mix(out, 0, FADE, in, FADE, FORMAT, 0, FADE);
+        assertEquals(8000, sample(out, 0));
+        assertEquals(8000 * Math.cos(Math.PI / 4) - 4000 * Math.sin(Math.PI / 4), sample(out, FADE / 2), 1);
+        assertEquals(-4000, sample(out, FADE - 4), 30);// 末帧接近淡化终点
+    }
+
+    @Test
+    public void missingIncomingIsSilence() {
+        byte[] out = constant(FADE, 8000);
+        Crossfade.mix(out, 0, FADE, new byte[0], 0, FORMAT, FADE / 2, FADE);
+        assertEquals(8000 * Math.cos(Math.PI / 4), sample(out, 0), 1);
+        byte[] done = constant(8, 8000);
+        Crossfade.mix(done, 0, 8, new byte[0], 0, FORMAT, FADE, FADE);
+        assertEquals(0, sample(done, 0));
+    }
+
+    @Test
+    public void blocksMixAsOne() {
+        byte[] whole = constant(FADE, 12000);
+        byte[] split = constant(FADE, 12000);
+        byte[] in = constant(FADE, 3000);
+        Crossfade.mix(whole, 0, FADE, in, FADE, FORMAT, 0, FADE);
+        int first = 4 * 333;
+        byte[] rest = new byte[FADE - first];
+        System.arraycopy(in, first, rest, 0, rest.length);
+        Crossfade.mix(split, 0, first, in, first, FORMAT, 0, FADE);
+        Crossfade.mix(split, first, FADE - first, rest, rest.length, FORMAT, first, FADE);
+        assertArrayEquals(whole, split);
+    }
+
+    private static byte[] constant(int length, int value) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i += 2) {
+            data[i] = (byte) value;
+            data[i + 1] = (byte) (value >> 8);
+        }
+        return data;
+    }
+
+    private static int sample(byte[] data, int i) {
+        return (short) (data[i + 1] << 8 | data[i] & 0xFF);
+    }
+}
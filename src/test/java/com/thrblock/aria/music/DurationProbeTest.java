@@ -0,0 +1,158 @@
+package com.thrblock.aria.music;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Test;
+
+import com.thrblock.aria.sink.WavFileSink;
+
+/**
+ * Header math of the duration probe against generated files
+ * <p>
+ * 以生成的文件检验时长探测的文件头计算
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class DurationProbeTest {
+    /**
+     * MPEG 1 layer III,128 kbps,44.1k,stereo,no crc
+     * <p>
+     * MPEG 1 第三层，128 kbps，44.1k，立体声，无CRC
+     */
+    private static final int MP3_HEADER = 0xFFFB9000;
+    private static final int MP3_FRAME_LENGTH = 144 * 128000 / 44100;
+
+    @Test
+    public void mp3FrameHeader() {
+        assertEquals(MP3_FRAME_LENGTH, DurationProbe.mp3FrameLength(MP3_HEADER));
+        assertEquals(MP3_FRAME_LENGTH + 1, DurationProbe.mp3FrameLength(MP3_HEADER | 1 << 9));
+        assertEquals(1152, DurationProbe.mp3SamplesPerFrame(MP3_HEADER));
+        assertEquals(44100f, DurationProbe.mp3SampleRate(MP3_HEADER), 0);
+        assertEquals(-1, DurationProbe.mp3FrameLength(0x12345678));
+        assertEquals(-1, DurationProbe.mp3FrameLength(MP3_HEADER | 0xF << 12));// 非法码率
+    }
+
+    @Test
+    public void mp3CountsTheFrames() {
+        ByteBuffer data = mp3(0, 40);
+        assertEquals(0, DurationProbe.firstMp3Frame(data));
+        assertDuration(40 * 1152, 44100, DurationProbe.probeMp3(data));
+    }
+
+    @Test
+    public void mp3SkipsTheId3Tag() {
+        ByteBuffer data = mp3(300, 25);
+        assertEquals(310, DurationProbe.firstMp3Frame(data));
+        assertDuration(25 * 1152, 44100, DurationProbe.probeMp3(data));
+    }
+
+    @Test
+    public void mp3ReadsTheXingTag() {
+        ByteBuffer data = mp3(0, 10);
+        int xing = 4 + 32;
+        data.put(xing, (byte) 'X').put(xing + 1, (byte) 'i').put(xing + 2, (byte) 'n').put(xing + 3, (byte) 'g');
+        data.putInt(xing + 4, 1);
+        data.putInt(xing + 8, 999);
+        assertDuration((999 + 1) * 1152, 44100, DurationProbe.probeMp3(data));
+    }
+
+    @Test
+    public void mp3ReadsTheVbriTag() {
+        ByteBuffer data = mp3(0, 10);
+        int vbri = 4 + 32;
+        data.put(vbri, (byte) 'V').put(vbri + 1, (byte) 'B').put(vbri + 2, (byte) 'R').put(vbri + 3, (byte) 'I');
+        data.putInt(vbri + 14, 499);
+        assertDuration((499 + 1) * 1152, 44100, DurationProbe.probeMp3(data));
+    }
+
+    @Test
+    public void wavUsesTheDataChunk() {
+        AudioFormat format = new AudioFormat(22050f, 16, 2, true, false);
+        byte[] header = WavFileSink.header(format, 4000 * 4);
+        ByteBuffer data = ByteBuffer.allocate(header.length + 4000 * 4);
+        data.put(header);
+        assertDuration(4000, 22050, DurationProbe.probeWav(data));
+    }
+
+    @Test
+    public void wavUsesTheFactChunkWhenCompressed() {
+        ByteBuffer data = ByteBuffer.allocate(12 + 8 + 16 + 12 + 8 + 100).order(ByteOrder.LITTLE_ENDIAN);
+        data.put("RIFF".getBytes()).putInt(data.capacity() - 8).put("WAVE".getBytes());
+        data.put("fmt ".getBytes()).putInt(16).putShort((short) 2).putShort((short) 1).putInt(8000).putInt(4000)
+                .putShort((short) 256).putShort((short) 4);
+        data.put("fact".getBytes()).putInt(4).putInt(12345);
+        data.put("data".getBytes()).putInt(100);
+        assertDuration(12345, 8000, DurationProbe.probeWav(data));
+    }
+
+    @Test
+    public void oggUsesTheLastGranule() {
+        ByteBuffer data = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        page(data, 0, 0, 77);
+        int payload = 27 + 1;
+        data.put(payload, (byte) 1);
+        for (int i = 0; i < 6; i++) {
+            data.put(payload + 1 + i, (byte) "vorbis".charAt(i));
+        }
+        data.putInt(payload + 12, 48000);
+        page(data, 1000, 4800, 66);// 其他逻辑流的页不计入
+        page(data, 2000, 96000, 77);
+        page(data, 3000, -1, 77);// 无结束位置的页不计入
+        assertDuration(96000, 48000, DurationProbe.probeOgg(data));
+    }
+
+    @Test
+    public void unknownDataIsNull() {
+        ByteBuffer garbage = ByteBuffer.allocate(1000);
+        assertNull(DurationProbe.probeMp3(garbage));
+        assertNull(DurationProbe.probeOgg(garbage));
+        assertNull(DurationProbe.probeWav(garbage));
+    }
+
+    @Test
+    public void decodedLengthScalesToTheDecodedRate() {
+        DurationProbe.Duration duration = new DurationProbe.Duration(44100, 44100);
+        assertEquals(48000 * 4, duration.decodedLength(48000, 4));
+        assertEquals(44100 * 2, duration.decodedLength(44100, 2));
+    }
+
+    /**
+     * a stream of the frames after a tag of the given size,the frames are
+     * silent
+     * <p>
+     * 指定大小标签之后的静音帧
+     */
+    private static ByteBuffer mp3(int id3Size, int frames) {
+        int first = id3Size == 0 ? 0 : 10 + id3Size;
+        ByteBuffer data = ByteBuffer.allocate(first + frames * MP3_FRAME_LENGTH);
+        if (id3Size > 0) {
+            data.put("ID3".getBytes()).put((byte) 4).put((byte) 0).put((byte) 0);
+            data.put((byte) (id3Size >> 21 & 0x7F)).put((byte) (id3Size >> 14 & 0x7F))
+                    .put((byte) (id3Size >> 7 & 0x7F)).put((byte) (id3Size & 0x7F));
+        }
+        for (int f = 0; f < frames; f++) {
+            data.putInt(first + f * MP3_FRAME_LENGTH, MP3_HEADER);
+        }
+        return data;
+    }
+
+    private static void page(ByteBuffer data, int pos, long granule, int serial) {
+        data.put(pos, (byte) 'O').put(pos + 1, (byte) 'g').put(pos + 2, (byte) 'g').put(pos + 3, (byte) 'S');
+        data.put(pos + 4, (byte) 0);
+        data.putLong(pos + 6, granule);
+        data.putInt(pos + 14, serial);
+        data.put(pos + 26, (byte) 1);
+        data.put(pos + 27, (byte) 30);
+    }
+
+    private static void assertDuration(long frames, float sampleRate, DurationProbe.Duration duration) {
+        assertEquals(frames, duration.frames);
+        assertEquals(sampleRate, duration.sampleRate, 0);
+    }
+}
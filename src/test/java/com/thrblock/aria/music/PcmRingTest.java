@@ -0,0 +1,80 @@
+package com.thrblock.aria.music;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Claim,publish and release across the wraparound of the ring
+ * <p>
+ * 跨越环形缓冲区回绕的取得、发布与释放
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class PcmRingTest {
+    @Test
+    public void emptyRing() {
+        PcmRing ring = new PcmRing(4, 8);
+        assertEquals(PcmRing.EMPTY, ring.peekLength());
+        assertEquals(0, ring.size());
+        assertEquals(4, ring.capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo() {
+        new PcmRing(3, 8);
+    }
+
+    @Test
+    public void blocksComeOutInOrderAcrossTheWraparound() {
+        PcmRing ring = new PcmRing(4, 8);
+        int produced = 0;
+        int consumed = 0;
+        for (int round = 0; round < 10; round++) {
+            for (byte[] block = ring.claim(); block != null; block = ring.claim()) {// 填满
+                block[0] = (byte) produced;
+                ring.publish(produced % 8 + 1);
+                produced++;
+            }
+            assertEquals(4, ring.size());
+            for (int n = 0; n < 3; n++) {// 释放部分，使下一轮跨越回绕
+                assertEquals(consumed % 8 + 1, ring.peekLength());
+                assertEquals((byte) consumed, ring.peekBlock()[0]);
+                ring.release();
+                consumed++;
+            }
+            assertEquals(1, ring.size());
+        }
+        assertEquals(produced - consumed, ring.size());
+    }
+
+    @Test
+    public void fullRingClaimsNothingUntilReleased() {
+        PcmRing ring = new PcmRing(2, 8);
+        byte[] first = ring.claim();
+        ring.publish(8);
+        ring.claim();
+        ring.publish(8);
+        assertNull(ring.claim());
+        ring.release();
+        assertSame(first, ring.claim());
+    }
+
+    @Test
+    public void endAndClear() {
+        PcmRing ring = new PcmRing(4, 8);
+        ring.claim();
+        ring.publish(8);
+        ring.claim();
+        ring.publish(-1);
+        ring.release();
+        assertEquals(-1, ring.peekLength());
+        ring.clear();
+        assertEquals(PcmRing.EMPTY, ring.peekLength());
+        assertEquals(0, ring.size());
+        assertNotNull(ring.claim());
+    }
+}
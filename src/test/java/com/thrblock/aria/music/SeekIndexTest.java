@@ -0,0 +1,137 @@
+package com.thrblock.aria.music;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.thrblock.aria.decoder.SPIDecoder;
+
+import de.sciss.jump3r.lowlevel.LameEncoder;
+
+/**
+ * Decoding from an entry of the seek table against the full decode
+ * <p>
+ * 从定位表条目开始解码与完整解码的比对
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class SeekIndexTest {
+    private static final AudioFormat PCM = new AudioFormat(44100f, 16, 2, true, false);
+    private static final int FRAMES = 44100 * 4;
+    private static final int COMPARE_LENGTH = 4 * 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SPIDecoder decoder = new SPIDecoder();
+
+    @Test
+    public void seekMatchesTheFullDecode() throws Exception {
+        for (boolean vbr : new boolean[] { false, true }) {
+            File mp3 = encode(vbr);
+            byte[] full = decodeFrom(mp3, 0, 0);
+            AudioFormat format;
+            try (AudioInputStream probe = decoded(new FileInputStream(mp3))) {
+                format = probe.getFormat();
+            }
+            SeekIndex index = SeekIndex.of(mp3, format);
+            assertNotNull(index);
+            assertTrue("entries " + index.size(), index.size() > 20);
+            Random random = new Random(1);
+            for (int n = 0; n < 12; n++) {
+                long target = (long) (random.nextInt(full.length - COMPARE_LENGTH) / 4) * 4;
+                SeekIndex.Position position = index.locate(target);
+                assertTrue(position.outputStart <= target);
+                byte[] got = decodeFrom(mp3, position.fileOffset, target - position.outputStart);
+                byte[] expected = Arrays.copyOfRange(full, (int) target, (int) target + COMPARE_LENGTH);
+                assertArrayEquals((vbr ? "vbr" : "cbr") + " at " + target + " from " + position.fileOffset,
+                        expected, Arrays.copyOf(got, COMPARE_LENGTH));
+            }
+        }
+    }
+
+    @Test
+    public void otherFilesAreNotIndexed() throws IOException {
+        File wav = folder.newFile("a.wav");
+        assertNull(SeekIndex.of(wav, PCM));
+    }
+
+    /**
+     * open the file at the offset and drop the leading bytes,as the player
+     * does
+     * <p>
+     * 与播放器相同，于文件偏移处打开并丢弃起始字节
+     */
+    private byte[] decodeFrom(File mp3, long fileOffset, long skip) throws Exception {
+        InputStream input = new FileInputStream(mp3);
+        for (long remain = fileOffset; remain > 0;) {
+            remain -= input.skip(remain);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AudioInputStream decoded = decoded(new BufferedInputStream(input))) {
+            byte[] cache = new byte[4096];
+            for (int realRead = decoded.read(cache); realRead != -1; realRead = decoded.read(cache)) {
+                out.write(cache, 0, realRead);
+            }
+        }
+        byte[] data = out.toByteArray();
+        return Arrays.copyOfRange(data, (int) Math.min(skip, data.length), data.length);
+    }
+
+    private AudioInputStream decoded(InputStream input) throws Exception {
+        return decoder.getDecodedAudioInputStream(AudioSystem.getAudioInputStream(input));
+    }
+
+    /**
+     * a noisy sweep,the frames of noise draw on the bit reservoir
+     * <p>
+     * 带噪声的扫频，噪声帧会使用比特池
+     */
+    private File encode(boolean vbr) throws IOException {
+        byte[] pcm = new byte[FRAMES * 4];
+        Random random = new Random(7);
+        double phase = 0;
+        for (int f = 0; f < FRAMES; f++) {
+            phase += 2 * Math.PI * (200 + 4000.0 * f / FRAMES) / 44100;
+            double noise = (f / 4410) % 2 == 0 ? random.nextGaussian() * 3000 : 0;
+            for (int c = 0; c < 2; c++) {
+                int value = (int) Math.round(Math.sin(phase + c) * 8000 + noise);
+                pcm[f * 4 + c * 2] = (byte) value;
+                pcm[f * 4 + c * 2 + 1] = (byte) (value >> 8);
+            }
+        }
+        LameEncoder encoder = new LameEncoder(PCM, vbr ? LameEncoder.BITRATE_AUTO : 128,
+                LameEncoder.CHANNEL_MODE_JOINT_STEREO, LameEncoder.QUALITY_MIDDLE, vbr);
+        ByteArrayOutputStream mp3 = new ByteArrayOutputStream();
+        byte[] buffer = new byte[encoder.getMP3BufferSize()];
+        int chunk = encoder.getPCMBufferSize();
+        for (int pos = 0; pos < pcm.length; pos += chunk) {
+            int encoded = encoder.encodeBuffer(pcm, pos, Math.min(chunk, pcm.length - pos), buffer);
+            mp3.write(buffer, 0, encoded);
+        }
+        mp3.write(buffer, 0, encoder.encodeFinish(buffer));
+        encoder.close();
+        File file = folder.newFile(vbr ? "vbr.mp3" : "cbr.mp3");
+        Files.write(file.toPath(), mp3.toByteArray());
+        return file;
+    }
+}
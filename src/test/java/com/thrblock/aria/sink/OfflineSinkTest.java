@@ -0,0 +1,126 @@
+package com.thrblock.aria.sink;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.thrblock.aria.decoder.SPIDecoder;
+import com.thrblock.aria.music.MusicPlayer;
+import com.thrblock.aria.sound.AriaSoundException;
+import com.thrblock.aria.sound.Sound;
+import com.thrblock.aria.sound.SoundFactory;
+
+/**
+ * A scripted session renders the same bytes each run
+ * <p>
+ * 脚本化会话每次运行渲染出相同的数据
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class OfflineSinkTest {
+    private static final int FRAME_SIZE = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sessionRendersTheSameBytes() throws Exception {
+        File music = tone("music.wav", 2, 220, 8000);
+        File fx = tone("fx.wav", 0.2, 880, 16000);
+        byte[] first = render(music, fx, 0);
+        assertEquals(1500 * 44100 / 1000 * FRAME_SIZE, first.length);
+        assertTrue("music plays", peak(first, 0, 300) > 7000);
+        boolean paused = false;
+        for (int t = 900; t < 1300; t += 50) {
+            paused |= peak(first, t, t + 50) == 0;
+        }
+        assertTrue("paused", paused);
+        int resumed = peak(first, 1300, 1500);// 音量变化在LINE已缓冲的数据之后生效
+        assertTrue("resumed at half volume " + resumed, resumed > 3000 && resumed < 5000);
+        assertArrayEquals(first, render(music, fx, 0));
+        assertArrayEquals("script timing", first, render(music, fx, 30));
+    }
+
+    /**
+     * render the session,the script sleeps between its steps to change the
+     * thread timing
+     * <p>
+     * 渲染会话，脚本在各步骤之间休眠以改变线程时序
+     */
+    private static byte[] render(File music, File fx, long sleepMillis) throws Exception {
+        MemorySink sink = new MemorySink();
+        SPIDecoder decoder = new SPIDecoder();
+        MusicPlayer player = new MusicPlayer(decoder);
+        player.setSink(sink);
+        SoundFactory factory = new SoundFactory(decoder);
+        factory.setSink(sink);
+        factory.init();
+        try {
+            Sound sound = factory.buildSound(fx);
+            player.initMusic(music);
+            player.play();
+            step(sink, 300, sleepMillis);
+            sound.play();
+            step(sink, 200, sleepMillis);
+            player.setVolume(-6f);
+            step(sink, 400, sleepMillis);
+            player.pause();
+            sound.play(0.5f);
+            step(sink, 300, sleepMillis);
+            player.remuse();
+            step(sink, 200, sleepMillis);
+            player.stop();
+            step(sink, 100, sleepMillis);
+            sink.close();
+            return sink.toByteArray();
+        } finally {
+            player.destroy();
+            factory.destroy();
+        }
+    }
+
+    private static void step(MemorySink sink, long millis, long sleepMillis) throws AriaSoundException,
+            InterruptedException {
+        Thread.sleep(sleepMillis);
+        sink.advance(millis);
+        Thread.sleep(sleepMillis);
+    }
+
+    private File tone(String name, double seconds, double freq, double amplitude) throws IOException {
+        AudioFormat format = new AudioFormat(44100f, 16, 2, true, false);
+        int frames = (int) (44100 * seconds);
+        byte[] pcm = new byte[frames * FRAME_SIZE];
+        for (int f = 0; f < frames; f++) {
+            int value = (int) Math.round(Math.sin(2 * Math.PI * freq * f / 44100) * amplitude);
+            for (int i = f * FRAME_SIZE; i < f * FRAME_SIZE + FRAME_SIZE; i += 2) {
+                pcm[i] = (byte) value;
+                pcm[i + 1] = (byte) (value >> 8);
+            }
+        }
+        File file = folder.newFile(name);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), format, frames),
+                AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+
+    private static int peak(byte[] pcm, long fromMillis, long toMillis) {
+        int peak = 0;
+        for (int i = (int) (fromMillis * 441 / 10) * FRAME_SIZE; i < toMillis * 441 / 10 * FRAME_SIZE; i += 2) {
+            peak = Math.max(peak, Math.abs((short) (pcm[i + 1] << 8 | pcm[i] & 0xFF)));
+        }
+        return peak;
+    }
+}
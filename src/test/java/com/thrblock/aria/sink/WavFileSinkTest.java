@@ -0,0 +1,80 @@
+package com.thrblock.aria.sink;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The wav header and the file the sink leaves
+ * <p>
+ * WAV文件头与输出端生成的文件
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class WavFileSinkTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void headerFields() {
+        AudioFormat format = new AudioFormat(22050f, 16, 1, true, false);
+        ByteBuffer header = ByteBuffer.wrap(WavFileSink.header(format, 1000)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(44, header.capacity());
+        assertTag("RIFF", header, 0);
+        assertEquals(1000 + 36, header.getInt(4));
+        assertTag("WAVE", header, 8);
+        assertTag("fmt ", header, 12);
+        assertEquals(16, header.getInt(16));
+        assertEquals(1, header.getShort(20));// PCM
+        assertEquals(1, header.getShort(22));
+        assertEquals(22050, header.getInt(24));
+        assertEquals(22050 * 2, header.getInt(28));
+        assertEquals(2, header.getShort(32));
+        assertEquals(16, header.getShort(34));
+        assertTag("data", header, 36);
+        assertEquals(1000, header.getInt(40));
+    }
+
+    @Test
+    public void hugeDataIsClamped() {
+        ByteBuffer header = ByteBuffer.wrap(WavFileSink.header(OfflineSink.DEFAULT_FORMAT, 1L << 33)).order(
+                ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0xFFFFFFFFL, header.getInt(4) & 0xFFFFFFFFL);
+        assertEquals(0xFFFFFFFFL - 36, header.getInt(40) & 0xFFFFFFFFL);
+    }
+
+    @Test
+    public void closeWritesTheDataLength() throws Exception {
+        File file = folder.newFile("out.wav");
+        WavFileSink sink = new WavFileSink(file);
+        sink.advance(250);
+        sink.close();
+        int dataLength = 250 * 441 / 10 * 4;
+        byte[] data = Files.readAllBytes(file.toPath());
+        assertEquals(44 + dataLength, data.length);
+        assertArrayEquals(WavFileSink.header(OfflineSink.DEFAULT_FORMAT, dataLength), Arrays.copyOf(data, 44));
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(file)) {
+            assertEquals(250 * 441 / 10, in.getFrameLength());
+            assertEquals(OfflineSink.DEFAULT_FORMAT.toString(), in.getFormat().toString());
+        }
+    }
+
+    private static void assertTag(String tag, ByteBuffer header, int index) {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(tag.charAt(i), (char) header.get(index + i));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.thrblock.aria.sound;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * ADPCM round trip and random access
+ * <p>
+ * ADPCM编解码往返与随机读取
+ *
+ * <a href="mailto:thrblock@gmail.com">thrblock</a>
+ */
+public class AdpcmPcmDataTest {
+    private static final int FRAMES = AdpcmPcmData.BLOCK_FRAMES * 5 + 123;
+    /**
+     * the frames the step size takes to grow from the first index
+     * <p>
+     * 步长自初始索引增长所需的帧数
+     */
+    private static final int ADAPT_FRAMES = 16;
+
+    @Test
+    public void roundTripStaysWithinTheErrorBound() {
+        for (int channels = 1; channels <= 2; channels++) {
+            for (boolean bigEndian : new boolean[] { false, true }) {
+                byte[] pcm = sine(FRAMES, channels, 440, 10000, bigEndian);
+                AdpcmPcmData data = new AdpcmPcmData(pcm, channels, bigEndian);
+                assertEquals(pcm.length, data.length());
+                byte[] decoded = new byte[data.length()];
+                assertEquals(decoded.length, data.read(0, decoded, 0, decoded.length));
+                double squares = 0;
+                int maxError = 0;
+                for (int i = 0; i < pcm.length; i += 2) {
+                    int error = Math.abs(sample(pcm, i, bigEndian) - sample(decoded, i, bigEndian));
+                    squares += (double) error * error;
+                    if (i >= ADAPT_FRAMES * channels * 2) {
+                        maxError = Math.max(maxError, error);
+                    }
+                }
+                double rms = Math.sqrt(squares / (pcm.length / 2));
+                assertTrue("rms error " + rms, rms < 100);// 幅度的1%
+                assertTrue("max error " + maxError, maxError < 500);
+            }
+        }
+    }
+
+    @Test
+    public void blockStartsAreExact() {
+        byte[] pcm = sine(FRAMES, 2, 1000, 20000, false);
+        AdpcmPcmData data = new AdpcmPcmData(pcm, 2, false);
+        byte[] decoded = new byte[data.length()];
+        data.read(0, decoded, 0, decoded.length);
+        for (int frame = 0; frame < FRAMES; frame += AdpcmPcmData.BLOCK_FRAMES) {
+            for (int i = frame * 4; i < frame * 4 + 4; i++) {
+                assertEquals(pcm[i], decoded[i]);
+            }
+        }
+    }
+
+    @Test
+    public void partialReadsMatchTheFullRead() {
+        byte[] pcm = sine(FRAMES, 2, 440, 10000, false);
+        AdpcmPcmData data = new AdpcmPcmData(pcm, 2, false);
+        byte[] full = new byte[data.length()];
+        data.read(0, full, 0, full.length);
+        Random random = new Random(1);
+        for (int n = 0; n < 200; n++) {
+            int position = random.nextInt(full.length);
+            int len = random.nextInt(3 * AdpcmPcmData.BLOCK_FRAMES * 4);
+            byte[] dst = new byte[len + 3];
+            int realRead = data.read(position, dst, 3, len);
+            assertEquals(Math.min(len, full.length - position), realRead);
+            byte[] expected = new byte[realRead];
+            System.arraycopy(full, position, expected, 0, realRead);
+            byte[] got = new byte[realRead];
+            System.arraycopy(dst, 3, got, 0, realRead);
+            assertArrayEquals("position " + position + " length " + len, expected, got);
+        }
+    }
+
+    @Test
+    public void readerMatchesTheFullRead() {
+        byte[] pcm = sine(FRAMES, 2, 440, 10000, true);
+        AdpcmPcmData data = new AdpcmPcmData(pcm, 2, true);
+        byte[] full = new byte[data.length()];
+        data.read(0, full, 0, full.length);
+        PcmData.Reader reader = data.newReader();
+        Random random = new Random(2);
+        byte[] got = new byte[full.length];
+        for (int pass = 0; pass < 3; pass++) {// 每遍从随机位置开始，如循环回到偏移处
+            int start = pass == 0 ? 0 : random.nextInt(full.length);
+            for (int position = start; position < full.length;) {
+                int realRead = reader.read(position, got, position, random.nextInt(3000) + 1);
+                assertTrue(realRead > 0);
+                position += realRead;
+            }
+            assertArrayEquals("pass " + pass, Arrays.copyOfRange(full, start, full.length), Arrays.copyOfRange(
+                    got, start, full.length));
+        }
+        assertEquals(0, reader.read(full.length, got, 0, 8));
+    }
+
+    @Test
+    public void partialFrameIsTrimmed() {
+        AdpcmPcmData data = new AdpcmPcmData(new byte[4 * 10 + 3], 2, false);
+        assertEquals(40, data.length());
+        assertEquals(0, data.read(40, new byte[8], 0, 8));
+    }
+
+    private static byte[] sine(int frames, int channels, double freq, double amplitude, boolean bigEndian) {
+        byte[] pcm = new byte[frames * channels * 2];
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                int value = (int) Math.round(Math.sin(2 * Math.PI * freq * (f + c * 7) / 44100) * amplitude);
+                int i = (f * channels + c) * 2;
+                pcm[bigEndian ? i : i + 1] = (byte) (value >> 8);
+                pcm[bigEndian ? i + 1 : i] = (byte) value;
+            }
+        }
+        return pcm;
+    }
+
+    private static int sample(byte[] data, int i, boolean bigEndian) {
+        return bigEndian ? (short) (data[i] << 8 | data[i + 1] & 0xFF) : (short) (data[i + 1] << 8 | data[i] & 0xFF);
+    }
+}